@@ -0,0 +1,54 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import sequential.Algorithm;
+import sequential.Algorithm.Conclusion;
+
+/*
+ * getConclusion() of a rule that has reached its maximum of n samples at theta, i.e. the undecided end of a run
+ * A fresh rule is used per call, so that the cached p-values of Mira are not reused. Creating it is not timed,
+ * but its allocations are part of the allocation rate
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConclusionBenchmark {
+	@Param({"YounesA", "YounesB", "Mira", "BayesianA", "BayesianB"})
+	public String algorithm;
+	@Param({"0.1", "0.5", "0.9"})
+	public double theta;
+	@Param({"0.01", "0.05"})
+	public double delta;
+	@Param({"100000", "10000000"})
+	public int n;
+
+	private Algorithm rule;
+
+	@Setup(Level.Invocation)
+	public void setUpRule(){
+		this.rule = Rules.create(this.algorithm, this.theta, this.delta, this.n);
+		Rules.fill(this.rule, this.theta, this.n);
+	}
+
+	@Benchmark
+	public Conclusion getConclusion(){
+		return this.rule.getConclusion();
+	}
+}
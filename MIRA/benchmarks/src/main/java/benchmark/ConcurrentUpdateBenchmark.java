@@ -0,0 +1,83 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import sequential.Algorithm;
+import sequential.ConcurrentRule;
+
+/*
+ * Cost of one sample per thread when all the threads feed one rule, through ConcurrentRule or through a lock
+ * around update and obtainAnotherSample. Run with -t, e.g. -t 1 -t 32, and compare with UpdateBenchmark.
+ * Each iteration starts from a rule that already holds n samples at theta, as in UpdateBenchmark; once the rule
+ * has decided the calls left in the iteration are rejections.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentUpdateBenchmark {
+	@Param({"YounesA", "Mira", "BayesianB"})
+	public String algorithm;
+	@Param({"0.5"})
+	public double theta;
+	@Param({"0.01"})
+	public double delta;
+	@Param({"1000000"})
+	public int n;
+
+	private boolean[] outcomes;
+	private ConcurrentRule concurrentRule;
+	private Algorithm lockedRule;
+
+	@State(Scope.Thread)
+	public static class Stream {
+		private int next;
+	}
+
+	@Setup(Level.Trial)
+	public void setUpOutcomes(){
+		this.outcomes = Rules.outcomes(this.theta);
+	}
+
+	@Setup(Level.Iteration)
+	public void setUpRules(){
+		Algorithm rule = Rules.create(this.algorithm, this.theta, this.delta, Integer.MAX_VALUE);
+		Rules.fill(rule, this.theta, this.n);
+		this.concurrentRule = new ConcurrentRule(rule);
+		this.lockedRule = Rules.create(this.algorithm, this.theta, this.delta, Integer.MAX_VALUE);
+		Rules.fill(this.lockedRule, this.theta, this.n);
+	}
+
+	@Benchmark
+	public ConcurrentRule.Outcome concurrentUpdate(Stream stream){
+		boolean isTrue = this.outcomes[stream.next];
+		stream.next = (stream.next + 1) & (Rules.OUTCOMES - 1);
+		return this.concurrentRule.update(isTrue);
+	}
+
+	@Benchmark
+	public boolean lockedUpdate(Stream stream){
+		boolean isTrue = this.outcomes[stream.next];
+		stream.next = (stream.next + 1) & (Rules.OUTCOMES - 1);
+		synchronized(this.lockedRule){
+			if(!this.lockedRule.obtainAnotherSample()) return false;
+			this.lockedRule.update(isTrue);
+			return true;
+		}
+	}
+}
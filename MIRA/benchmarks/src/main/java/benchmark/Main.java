@@ -0,0 +1,22 @@
+package benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+public class Main {
+	/*
+	 * Same command line as org.openjdk.jmh.Main, with the GC profiler always on so that every benchmark also
+	 * reports its allocation rate (gc.alloc.rate.norm is the number of bytes allocated per call)
+	 */
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions options = new CommandLineOptions(args);
+		if(options.shouldHelp() || options.shouldList() || options.shouldListWithParams() || 
+				options.shouldListProfilers() || options.shouldListResultFormats()){
+			org.openjdk.jmh.Main.main(args);
+			return;
+		}
+		new Runner(new OptionsBuilder().parent(options).addProfiler(GCProfiler.class).build()).run();
+	}
+}
@@ -0,0 +1,68 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import sequential.BinomialTail;
+import sequential.Mira;
+
+/*
+ * Mira p-values at n samples with a true fraction of theta, the slowest case since the tails are near the mode
+ * Mira has no delta parameter, its delta is adapted from the samples
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MiraPValueBenchmark {
+	@Param({"0.1", "0.5", "0.9"})
+	public double theta;
+	@Param({"1000", "1000000", "100000000"})
+	public int n;
+
+	private int k;
+	private boolean[] outcomes;
+	private Mira mira;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUpOutcomes(){
+		this.k = (int) Math.round(this.theta * this.n);
+		this.outcomes = Rules.outcomes(this.theta);
+	}
+
+	@Setup(Level.Iteration)
+	public void setUpMira(){
+		this.mira = new Mira(this.theta, Rules.ALPHA, Rules.BETA, Integer.MAX_VALUE);
+		Rules.fill(this.mira, this.theta, this.n);
+		this.next = 0;
+	}
+
+	@Benchmark
+	public double fromScratch(){
+		//Both tails computed from scratch, as the first getConclusion() of a Mira does
+		return BinomialTail.upperTail(this.k, this.n, this.theta) + BinomialTail.lowerTail(this.k, this.n, this.theta);
+	}
+
+	@Benchmark
+	public double alongSamplePath(){
+		//One more sample, then both p-values, which are updated from those of the previous sample
+		this.mira.update(this.outcomes[this.next]);
+		this.next = (this.next + 1) & (Rules.OUTCOMES - 1);
+		return this.mira.getLowestPValue();
+	}
+}
@@ -0,0 +1,82 @@
+package benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import sequential.Algorithm;
+import sequential.BinaryTrace;
+import sequential.TextTrace;
+
+/*
+ * Replay of a whole trace of n samples at theta, as text through TextTrace and as a binary trace through
+ * BinaryTrace.replay. FixedSamples takes every sample, so the time is that of reading the trace.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReplayBenchmark {
+	@Param({"0.5"})
+	public double theta;
+	@Param({"10000000"})
+	public int n;
+
+	private File textFile;
+	private File binaryFile;
+
+	@Setup(Level.Trial)
+	public void setUpTraces() throws IOException {
+		boolean[] outcomes = Rules.outcomes(this.theta);
+		this.textFile = File.createTempFile("replay", ".txt");
+		FileOutputStream output = new FileOutputStream(this.textFile);
+		byte[] trueLine = "true\n".getBytes("UTF-8");
+		byte[] falseLine = "false\n".getBytes("UTF-8");
+		for(int i = 0; i < this.n; i++) output.write(outcomes[i & (Rules.OUTCOMES - 1)] ? trueLine : falseLine);
+		output.close();
+		this.binaryFile = File.createTempFile("replay", ".bin");
+		BinaryTrace.convert(this.textFile, this.binaryFile, "ReplayBenchmark");
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteTraces(){
+		this.textFile.delete();
+		this.binaryFile.delete();
+	}
+
+	@Benchmark
+	public int text() throws IOException {
+		Algorithm rule = Rules.create("FixedSamples", this.theta, 0, this.n);
+		TextTrace trace = new TextTrace(this.textFile);
+		try{
+			while(trace.hasNextSample() && rule.obtainAnotherSample()) rule.update(trace.nextSample());
+		}finally{
+			trace.close();
+		}
+		return rule.getTrueSamples();
+	}
+
+	@Benchmark
+	public int binary() throws IOException {
+		Algorithm rule = Rules.create("FixedSamples", this.theta, 0, this.n);
+		new BinaryTrace(this.binaryFile).replay(rule);
+		return rule.getTrueSamples();
+	}
+}
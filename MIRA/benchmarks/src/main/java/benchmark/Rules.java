@@ -0,0 +1,51 @@
+package benchmark;
+
+import java.util.Random;
+
+import sequential.Algorithm;
+import sequential.BayesianA;
+import sequential.BayesianB;
+import sequential.FixedCIEstimate;
+import sequential.FixedSamples;
+import sequential.Mira;
+import sequential.YounesA;
+import sequential.YounesB;
+
+/*
+ * Rules and sample streams shared by the benchmarks
+ * Settings follow PointTest, delta is only used by YounesA and YounesB
+ */
+class Rules {
+	static final double ALPHA = 0.01;
+	static final double BETA = ALPHA;
+	static final double BAYES_FACTOR_THRESHOLD = 1000;
+	static final double VARIANCE_THRESHOLD = 0.001;
+	static final double CONFIDENCE = 0.05;
+	static final double CI_HALF_WIDTH = 0.001;
+	//Length of the replayed sample stream, a power of two
+	static final int OUTCOMES = 1 << 16;
+
+	static Algorithm create(String algorithm, double theta, double delta, int maxSamples){
+		Algorithm.Operator operator = Algorithm.Operator.GREATER_EQUAL;
+		if(algorithm.equals("YounesA")) return new YounesA(operator, theta, delta, ALPHA, BETA, maxSamples);
+		if(algorithm.equals("YounesB")) return new YounesB("", operator, theta, delta, ALPHA, BETA, Math.min(ALPHA, BETA), maxSamples);
+		if(algorithm.equals("Mira")) return new Mira("", operator, theta, ALPHA, BETA, maxSamples);
+		if(algorithm.equals("BayesianA")) return new BayesianA("", operator, theta, 1, 1, BAYES_FACTOR_THRESHOLD, maxSamples);
+		if(algorithm.equals("BayesianB")) return new BayesianB("", operator, theta, 1, 1, VARIANCE_THRESHOLD, maxSamples);
+		if(algorithm.equals("FixedCIEstimate")) return new FixedCIEstimate("", CONFIDENCE, CI_HALF_WIDTH, maxSamples);
+		if(algorithm.equals("FixedSamples")) return new FixedSamples("", CONFIDENCE, maxSamples);
+		throw new Error("Unknown algorithm: " + algorithm);
+	}
+
+	static void fill(Algorithm rule, double theta, int n){
+		//n samples with a true fraction of theta, the hardest case to decide
+		rule.update((int) Math.round(theta * n), n);
+	}
+
+	static boolean[] outcomes(double theta){
+		Random rand = new Random(1);
+		boolean[] outcomes = new boolean[OUTCOMES];
+		for(int i = 0; i < OUTCOMES; i++) outcomes[i] = rand.nextDouble() < theta;
+		return outcomes;
+	}
+}
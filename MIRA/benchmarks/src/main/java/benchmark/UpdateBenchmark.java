@@ -0,0 +1,63 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import sequential.Algorithm;
+
+/*
+ * Steady state cost of one sample: update followed by obtainAnotherSample
+ * Each iteration starts from a rule that already holds n samples at theta, so the rule stays undecided for long
+ * and every call runs the full decision. The rule keeps growing during the iteration, by about the number of calls.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UpdateBenchmark {
+	@Param({"YounesA", "YounesB", "Mira", "BayesianA", "BayesianB", "FixedCIEstimate", "FixedSamples"})
+	public String algorithm;
+	@Param({"0.1", "0.5", "0.9"})
+	public double theta;
+	@Param({"0.01", "0.05"})
+	public double delta;
+	@Param({"1000", "1000000"})
+	public int n;
+
+	private boolean[] outcomes;
+	private Algorithm rule;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUpOutcomes(){
+		this.outcomes = Rules.outcomes(this.theta);
+	}
+
+	@Setup(Level.Iteration)
+	public void setUpRule(){
+		this.rule = Rules.create(this.algorithm, this.theta, this.delta, Integer.MAX_VALUE);
+		Rules.fill(this.rule, this.theta, this.n);
+		this.next = 0;
+	}
+
+	@Benchmark
+	public boolean updateAndObtainAnotherSample(){
+		this.rule.update(this.outcomes[this.next]);
+		this.next = (this.next + 1) & (Rules.OUTCOMES - 1);
+		return this.rule.obtainAnotherSample();
+	}
+}
@@ -21,6 +21,9 @@
 */
 package sequential;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.apache.commons.math.distribution.NormalDistributionImpl;
 
 /*
@@ -55,10 +58,32 @@ public abstract class Algorithm {
 	protected double alpha;         //Type1 error threshold (False-Positive) for Younes and Mirach or as Priors for Bayesian
 	protected double beta;          //Type2 error threshold (False-Negative) for Younes and Mirach or as Priors for Bayesian
 	
+	//Samples at which a group-sequential rule checks its boundaries, null to check after every sample
+	private LookSchedule lookSchedule = null;
+	//Fraction of the corrected diffusion shift the constants are moved by for the looks, see calibrateLooks
+	private double lookFactor = 0.0;
+	//Corrected diffusion constant of Siegmund for the excess over a boundary checked every sample
+	private static final double LOOK_CORRECTION = 0.5826;
+	//Fractions of the shift tried in turn, the first whose exact error rates are within alpha and beta is taken
+	private static final double[] LOOK_FACTORS = {1.0, 0.5, 0.25};
+	//Tolerance of those exact error rates, the truncated probability is counted as error
+	private static final double LOOK_TOLERANCE = 1e-7;
+	//Tests that take more samples than this at the edges, by expectedRemainingSamples, keep their constants
+	private static final double LOOK_MAX_SAMPLES = 4000;
+	//Calibrated fractions by the parameters of the rule and its schedule, as snapshots set the schedule again
+	private static final Map<String, Double> LOOK_FACTOR_CACHE = new ConcurrentHashMap<String, Double>();
+	//Normal quantile of the 95% Wilson interval of p over which estimateRemainingSamples() gives its band
+	private static final double BAND_Z = 1.959964;
+	//Values of p in that interval at which the estimate is evaluated, besides the point estimate
+	private static final int BAND_POINTS = 8;
+	
 	//This is used to ensure that v will be >0 and < 1, Math.ln(v)
 	private final double EPSILON = 0.00000001;
 	
 	private double confidence;
+	//Normal quantile of the latest confidence given to computeZ
+	private double zConfidence = Double.NaN;
+	private double z;
 	
 	public String getSyntax() { return this.syntax; }
 	public int getTotalSamples() { return this.totalSamples; }
@@ -67,6 +92,8 @@ public abstract class Algorithm {
 	public double getTheta() { return this.theta; }
 	public boolean getSkipRule() { return this.skipRule; }
 	public Operator getOperator() { return this.operator; }
+	public double getConfidence() { return this.confidence; }
+	public LookSchedule getLookSchedule() { return this.lookSchedule; }
 	
 	protected abstract boolean obtainAnotherSampleSpecific();
 	public abstract Conclusion getConclusion();
@@ -145,10 +172,117 @@ public abstract class Algorithm {
 		}
 	}
 	
+	public boolean hasConclusion() {
+		//FALSE for skipped rules and estimates (Operator.QUESTION), which have no conclusion to give
+		return !this.skipRule && this.operator != Operator.QUESTION;
+	}
+	
+	public Conclusion getConclusionOrNull() {
+		return this.hasConclusion() ? this.getConclusion() : null;
+	}
+	
 	public void skipRule(){
 		this.skipRule = true;
 	}
 	
+	public void setLookSchedule(LookSchedule lookSchedule){
+		/*
+		 * Group-sequential mode, the boundaries are only checked at the looks of lookSchedule
+		 * null to check after every sample again. Only before the first sample.
+		 * Checked less often, a test overshoots its boundaries by more, which lowers its error rates below alpha and
+		 * beta at the cost of more samples. Tests with an indifference region move their constants back towards 0,
+		 * see calibrateLooks
+		 */
+		if(this.totalSamples != 0) throw new Error("The look schedule MUST be set before the first sample");
+		this.lookSchedule = lookSchedule;
+		this.lookFactor = 0.0;
+		this.compileLookSchedule();
+	}
+	
+	protected void compileLookSchedule(){
+		/*
+		 * Called when the look schedule is set, to adjust the boundaries to it
+		 * Rules without an indifference region (Mira, Bayesian, estimates) keep theirs and just check at the looks
+		 */
+	}
+	
+	protected void compileLookBoundaries(){
+		/*
+		 * Recompiles the boundaries of a rule that calls calibrateLooks, with its constants through lookAdjusted
+		 */
+	}
+	
+	protected void calibrateLooks(double delta, String parameters){
+		/*
+		 * Sets the fraction of the corrected diffusion shift by which lookAdjusted moves the constants, for a test
+		 * whose error rates are at most beta below theta - delta and at most alpha above theta + delta
+		 * 
+		 * By the corrected diffusion approximation (Siegmund 1985), checked only every g samples a test overshoots
+		 * its boundaries as the continuous test would with them moved out by 0.5826 * sigma * sqrt(g), sigma being
+		 * the standard deviation of a step. Moving the constants in by 0.5826 * sigma * (sqrt(g) - 1) hence gives
+		 * about the error rates of the per-sample test. That is only an approximation, and above alpha or beta for
+		 * some parameters, so the fractions of LOOK_FACTORS are tried in turn and the first whose exact error rates
+		 * (OperatingCharacteristic) at theta - delta and theta + delta are within beta and alpha is taken, none if
+		 * neither is. Tests longer than LOOK_MAX_SAMPLES keep their constants, which only errs towards lower
+		 * error rates. parameters are those of the rule besides theta, alpha, beta and maxSamples, for the cache
+		 */
+		String key = this.getClass().getName() + " " + this.operator + " " + this.theta + " " + this.alpha + " " +
+				this.beta + " " + this.maxSamples + " " + this.lookSchedule + " " + parameters;
+		Double cached = LOOK_FACTOR_CACHE.get(key);
+		if(cached != null){
+			this.lookFactor = cached;
+			this.compileLookBoundaries();
+			return;
+		}
+		double below = Math.max(0.0, this.theta - delta);
+		double above = Math.min(1.0, this.theta + delta);
+		double factor = 0.0;
+		this.lookFactor = 0.0;
+		this.compileLookBoundaries();
+		if(this.lookSchedule != null && this.expectedRemainingSamples(below) <= LOOK_MAX_SAMPLES &&
+				this.expectedRemainingSamples(above) <= LOOK_MAX_SAMPLES){
+			for(double candidate : LOOK_FACTORS){
+				this.lookFactor = candidate;
+				this.compileLookBoundaries();
+				OperatingCharacteristic low = OperatingCharacteristic.compute(this, below, LOOK_TOLERANCE);
+				OperatingCharacteristic high = OperatingCharacteristic.compute(this, above, LOOK_TOLERANCE);
+				double lowError = low.getProbability(Conclusion.H0) + low.getProbability(Conclusion.pValueH0) + 
+						low.getTruncatedProbability();
+				double highError = high.getProbability(Conclusion.H1) + high.getProbability(Conclusion.pValueH1) + 
+						high.getTruncatedProbability();
+				if(lowError <= this.beta && highError <= this.alpha){
+					factor = candidate;
+					break;
+				}
+			}
+		}
+		this.lookFactor = factor;
+		this.compileLookBoundaries();
+		LOOK_FACTOR_CACHE.put(key, factor);
+	}
+	
+	protected double lookAdjusted(double constant, double trueLog, double falseLog, double sharedTrueLog, double sharedFalseLog){
+		/*
+		 * constant of a test, moved towards 0 by lookFactor of the corrected diffusion shift (see calibrateLooks)
+		 * The log likelihood ratio of the test moves by trueLog - sharedTrueLog on a true sample and by
+		 * falseLog - sharedFalseLog on a false one. sigma is taken at p = theta and g is the smallest group of the
+		 * schedule, so that the constant moves the least. It moves at most half way to 0, the test stays one-sided.
+		 */
+		if(this.lookFactor == 0.0 || this.lookSchedule == null) return constant;
+		double step = (trueLog - sharedTrueLog) - (falseLog - sharedFalseLog);
+		double sigma = Math.abs(step) * Math.sqrt(this.theta * (1 - this.theta));
+		double shift = this.lookFactor * LOOK_CORRECTION * sigma * (Math.sqrt(this.lookSchedule.getMinGroupSize()) - 1);
+		if(Double.isNaN(shift) || shift <= 0) return constant;
+		if(constant > 0) return constant - Math.min(shift, constant / 2);
+		else return constant + Math.min(shift, -constant / 2);
+	}
+	
+	protected double lookAdjusted(double constant, boolean isPrime, double delta){
+		//lookAdjusted for the tests of Younes B and MIRACH, whose right hand side is at theta
+		return this.lookAdjusted(constant, this.leftHandLog(isPrime, true, delta), this.leftHandLog(isPrime, false, delta),
+				Math.log(this.theta), Math.log(1 - this.theta));
+	}
+	
 	public void update(boolean isTrue, RuleStatus status){
 		/*
 		 * Set the status of the rule
@@ -164,6 +298,216 @@ public abstract class Algorithm {
 		this.update(isTrue, RuleStatus.APNOTSATISFIED);
 	}
 	
+	public void update(int trues, int total, RuleStatus status){
+		/*
+		 * Batch form of update(isTrue, status) for a block of total samples of which trues are true
+		 * obtainAnotherSample() is then only checked at the end of the block, so use minAdditionalSamples() 
+		 * to size blocks that cannot skip over a decision
+		 */
+		if(trues < 0 || total < trues) throw new Error("trues MUST be >= 0 and <= total. trues: " + trues + " total: " + total);
+		this.lastStatus = status;
+		this.totalSamples += total;
+		this.trueSamples += trues;
+	}
+	
+	public void update(int trues, int total){
+		this.update(trues, total, RuleStatus.APNOTSATISFIED);
+	}
+	
+	public int updateWord(long outcomes, int count){
+		/*
+		 * Packed form of the sampling loop, for replayed traces and fast simulators
+		 * Bit i (lowest first) of outcomes is sample i, and samples are taken up to count for as long as 
+		 * obtainAnotherSample() is TRUE, stopping at exactly the sample after which it turns FALSE
+		 * Returns the number of samples taken, lastStatus is not written
+		 * Samples are counted in blocks with Long.bitCount, sized by the lookahead of minAdditionalSamples()
+		 */
+		if(count < 0 || count > 64) throw new Error("count MUST be >= 0 and <= 64. count: " + count);
+		int used = 0;
+		while(used < count && this.obtainAnotherSample()){
+			int block = this.searchAdditionalSamples(count - used);
+			long bits = outcomes >>> used;
+			if(block < 64) bits = bits & ((1L << block) - 1);
+			this.totalSamples += block;
+			this.trueSamples += Long.bitCount(bits);
+			used += block;
+		}
+		return used;
+	}
+	
+	public int minAdditionalSamples(){
+		/*
+		 * Lower bound on the number of additional samples before obtainAnotherSample() can return false
+		 * 0 if it already returns false
+		 * Blocks of up to this many samples can be given to update(trues, total) without skipping over a decision
+		 */
+		if(!this.obtainAnotherSample()) return 0;
+		return this.searchAdditionalSamples(Integer.MAX_VALUE);
+	}
+	
+	private int searchAdditionalSamples(int limit){
+		/*
+		 * minAdditionalSamples() capped at limit, for when obtainAnotherSample() is TRUE
+		 */
+		int remaining = Integer.MAX_VALUE - this.totalSamples;
+		if(this.maxSamples > 0) remaining = this.maxSamples - this.totalSamples;
+		//remaining is a stop because of maxSamples
+		if(limit >= remaining) limit = remaining;
+		else if(!this.mayStopAfter(limit)) return limit;
+		//Exponential search then bisection on mayStopAfter
+		int lo = 0;
+		int hi = 1;
+		while(hi < limit && !this.mayStopAfter(hi)){
+			lo = hi;
+			if(hi > limit - hi) hi = limit;
+			else hi = hi * 2;
+		}
+		while(hi - lo > 1){
+			int mid = lo + (hi - lo) / 2;
+			if(this.mayStopAfter(mid)) hi = mid;
+			else lo = mid;
+		}
+		//Between looks nothing is checked, so the block reaches to a look
+		if(this.lookSchedule != null && hi < limit) hi = Math.min(limit, this.lookSchedule.nextLook(this.totalSamples + hi) - this.totalSamples);
+		return hi;
+	}
+	
+	private boolean mayStopAfter(int m){
+		//canStopAfter(m), and FALSE if there is no look within m samples
+		if(this.lookSchedule != null && this.lookSchedule.nextLook(this.totalSamples + 1) - this.totalSamples > m) return false;
+		return this.canStopAfter(m);
+	}
+	
+	protected boolean canStopAfter(int m){
+		/*
+		 * Whether obtainAnotherSample() may return false, or change the state that later calls depend on, 
+		 * within m more samples, whatever their outcomes
+		 * Must stay TRUE once it is TRUE for some m and may only err towards TRUE
+		 * By default every sample has to be checked
+		 */
+		return true;
+	}
+	
+	public SampleEstimate estimateRemainingSamples(){
+		/*
+		 * Estimate of the number of samples before obtainAnotherSample() returns FALSE, for schedulers to size
+		 * batches and prefetching and to prioritize rules
+		 * 
+		 * The estimate is expectedRemainingSamples(p) of the rule at the point estimate p = (k + 1) / (n + 2), and
+		 * its band is the range of expectedRemainingSamples over the 95% Wilson interval of p, theta included if it
+		 * is in the interval, as that is where the hypothesis tests take the longest. All are at least
+		 * minAdditionalSamples() and at most what maxSamples leaves, and reach to a look for group-sequential rules.
+		 * Rules without a model of their stopping time only give these two limits.
+		 */
+		if(!this.obtainAnotherSample()) return new SampleEstimate(0, 0, 0);
+		double min = this.minAdditionalSamples();
+		double max = Double.POSITIVE_INFINITY;
+		if(this.maxSamples > 0) max = this.maxSamples - this.totalSamples;
+		int n = this.totalSamples;
+		int k = this.trueSamples;
+		double expected = this.expectedRemainingSamples((k + 1.0) / (n + 2));
+		if(Double.isNaN(expected)) return new SampleEstimate(min, min, max);
+		double lower = expected;
+		double upper = expected;
+		double z2 = BAND_Z * BAND_Z;
+		double mid = (k + z2 / 2) / (n + z2);
+		double half = n == 0 ? 0.5 : BAND_Z * Math.sqrt((double) k * (n - k) / n + z2 / 4) / (n + z2);
+		for(int i = 0; i <= BAND_POINTS + 1; i++){
+			double q = mid - half + 2 * half * i / BAND_POINTS;
+			if(i > BAND_POINTS){
+				if(Math.abs(this.theta - mid) > half || this.operator == Operator.QUESTION) break;
+				q = this.theta;
+			}
+			double e = this.expectedRemainingSamples(q);
+			if(Double.isNaN(e)) continue;
+			lower = Math.min(lower, e);
+			upper = Math.max(upper, e);
+		}
+		return new SampleEstimate(this.toLook(expected, min, max), this.toLook(lower, min, max), this.toLook(upper, min, max));
+	}
+	
+	private double toLook(double samples, double min, double max){
+		//Whole samples within [min, max], up to the next look of a group-sequential rule
+		samples = Math.min(max, Math.max(min, Math.ceil(samples)));
+		if(this.lookSchedule != null && samples < max && samples + this.totalSamples < Integer.MAX_VALUE){
+			samples = Math.min(max, this.lookSchedule.nextLook(this.totalSamples + (int) samples) - this.totalSamples);
+		}
+		return samples;
+	}
+	
+	protected double expectedRemainingSamples(double p){
+		/*
+		 * Expected number of samples before the rule stops from its current state if the true probability is p,
+		 * ignoring maxSamples, NaN if the rule has no model of it
+		 */
+		return Double.NaN;
+	}
+	
+	protected double waldRemainingSamples(DecisionBoundary upper, DecisionBoundary lower, double p){
+		/*
+		 * Wald's approximation of the expected number of samples before a sequential probability ratio test stops,
+		 * from the current counts
+		 * upper holds once the log likelihood ratio S is >= its constant, lower once S is <= its constant, both on
+		 * the same S. A step of S is x1 on a true sample and x0 on a false one, of mean mu and variance var. With
+		 * a = upper - S and b = S - lower, Wald's identity E[exp(h S)] = 1 for the root h != 0 of
+		 * p exp(h x1) + (1 - p) exp(h x0) = 1 gives the probability of ending at upper,
+		 * P = (exp(h b) - 1) / (exp(h (a + b)) - 1), and the expected number of samples (P a - (1 - P) b) / mu,
+		 * or a b / var when mu = 0. The overshoot over the boundaries is ignored.
+		 */
+		double x1 = upper.getTrueLog() - upper.getSharedTrueLog();
+		double x0 = upper.getFalseLog() - upper.getSharedFalseLog();
+		if(Double.isInfinite(x1) || Double.isInfinite(x0) || Double.isNaN(x1) || Double.isNaN(x0)) return Double.NaN;
+		double s = x1 * this.trueSamples + x0 * (this.totalSamples - this.trueSamples);
+		double a = upper.getConstant() - s;
+		double b = s - lower.getConstant();
+		if(a <= 0 || b <= 0) return 0.0;
+		double mu = p * x1 + (1 - p) * x0;
+		double var = p * (1 - p) * (x1 - x0) * (x1 - x0);
+		if(var == 0 || x1 * x0 >= 0){
+			//S only moves one way
+			if(mu > 0) return a / mu;
+			if(mu < 0) return b / -mu;
+			return Double.POSITIVE_INFINITY;
+		}
+		if(Math.abs(mu) * (a + b) < 1e-9 * var) return a * b / var;
+		//Root of the cumulant, negative for mu > 0 and positive for mu < 0, bracketed from -2 mu / var
+		double inside = -2 * mu / var;
+		while(this.cumulant(inside, p, x1, x0) > 0) inside = inside / 2;
+		double outside = inside * 2;
+		//x1 and x0 are of opposite signs, so the cumulant grows without bound
+		while(this.cumulant(outside, p, x1, x0) < 0) outside = outside * 2;
+		if(inside == 0) return a * b / var;
+		for(int i = 0; i < 100 && inside != outside; i++){
+			double h = (inside + outside) / 2;
+			if(h == inside || h == outside) break;
+			if(this.cumulant(h, p, x1, x0) < 0) inside = h;
+			else outside = h;
+		}
+		double h = (inside + outside) / 2;
+		double pUpper;
+		if(h < 0) pUpper = Math.expm1(h * b) / Math.expm1(h * (a + b));
+		else pUpper = Math.exp(-h * a) * Math.expm1(-h * b) / Math.expm1(-h * (a + b));
+		return (pUpper * a - (1 - pUpper) * b) / mu;
+	}
+	
+	private double cumulant(double h, double p, double x1, double x0){
+		//log(p exp(h x1) + (1 - p) exp(h x0)), without overflow
+		double m = Math.max(h * x1, h * x0);
+		return m + Math.log(p * Math.exp(h * x1 - m) + (1 - p) * Math.exp(h * x0 - m));
+	}
+	
+	int getPathState(){
+		/*
+		 * State other than the counts that the decisions depend on, 0 if there is none
+		 * Used by OperatingCharacteristic to tell apart sample paths that reach the same counts
+		 */
+		return 0;
+	}
+	
+	void setPathState(int state){
+		if(state != 0) throw new Error("No path state in " + this.getClass().getSimpleName() + ": " + state);
+	}
+	
 	protected double leftHandValue(boolean isPrime, double delta){
 		/*
 		 * returns leftHandSide value
@@ -175,7 +519,7 @@ public abstract class Algorithm {
 			//delta = this.EPSILON;
 			throw new Error("Does not make sense for delta to be < 0");			
 		}
-		Double peak_1 = 0.0;
+		double peak_1 = 0.0;
 		if (this.trueSamples > 0) {
 			double v;
 			if (isPrime) v = this.theta + delta;
@@ -186,7 +530,7 @@ public abstract class Algorithm {
 			else if(v > 1) v = 1;
 			peak_1 = this.trueSamples * Math.log(v);			
 		}
-		Double peak_2 = 0.0;
+		double peak_2 = 0.0;
 		if(falseSamples > 0){
 			double v;
 			if(isPrime) v = 1 - this.theta - delta;				
@@ -210,6 +554,8 @@ public abstract class Algorithm {
 		if(this.totalSamples == 0) return true;
 		//Max samples limit reached
 		if(this.maxSamples > 0 && this.totalSamples >= this.maxSamples) return false;
+		//Group-sequential rules only check at their looks
+		if(this.lookSchedule != null && !this.lookSchedule.isLook(this.totalSamples)) return true;
 		//Run the specific algorithm for whether to continue
 		return this.obtainAnotherSampleSpecific();		
 	}
@@ -242,6 +588,55 @@ public abstract class Algorithm {
 		return leftHandValue >= h0PrimeConstant;
 	}
 	
+	protected double leftHandLog(boolean isPrime, boolean isTrue, double delta){
+		return leftHandLog(this.theta, isPrime, isTrue, delta);
+	}
+	
+	static double leftHandLog(double theta, boolean isPrime, boolean isTrue, double delta){
+		/*
+		 * returns the log term of leftHandValue for true (isTrue) or false samples
+		 * Used to compile the accept methods into DecisionBoundary and by RuleBank
+		 */
+		if(delta < 0){
+			throw new Error("Does not make sense for delta to be < 0");
+		}
+		double v;
+		if(isTrue){
+			if(isPrime) v = theta + delta;
+			else v = theta - delta;
+		}else{
+			if(isPrime) v = 1 - theta - delta;
+			else v = 1 - theta + delta;
+		}
+		if(v < 0) v = 0;
+		else if(v > 1) v = 1;
+		return Math.log(v);
+	}
+	
+	protected DecisionBoundary compileH1(double sharedTrueLog, double sharedFalseLog, double delta, double gamma){
+		//Integer form of acceptH1
+		return new DecisionBoundary(this.leftHandLog(false, true, delta), this.leftHandLog(false, false, delta), 
+				sharedTrueLog, sharedFalseLog, this.lookAdjusted(Math.log(1 - gamma) - Math.log(this.alpha), false, delta), true, true);
+	}
+	
+	protected DecisionBoundary compileH0(double sharedTrueLog, double sharedFalseLog, double delta, double gamma){
+		//Integer form of acceptH0
+		return new DecisionBoundary(this.leftHandLog(false, true, delta), this.leftHandLog(false, false, delta), 
+				sharedTrueLog, sharedFalseLog, this.lookAdjusted(Math.log(gamma) - Math.log(1 - this.alpha), false, delta), false, false);
+	}
+	
+	protected DecisionBoundary compileH1prime(double sharedTrueLog, double sharedFalseLog, double delta, double gamma){
+		//Integer form of acceptH1prime
+		return new DecisionBoundary(this.leftHandLog(true, true, delta), this.leftHandLog(true, false, delta), 
+				sharedTrueLog, sharedFalseLog, this.lookAdjusted(Math.log(gamma) - Math.log(1 - this.beta), true, delta), false, true);
+	}
+	
+	protected DecisionBoundary compileH0prime(double sharedTrueLog, double sharedFalseLog, double delta, double gamma){
+		//Integer form of acceptH0prime
+		return new DecisionBoundary(this.leftHandLog(true, true, delta), this.leftHandLog(true, false, delta), 
+				sharedTrueLog, sharedFalseLog, this.lookAdjusted(Math.log(1 - gamma) - Math.log(this.beta), true, delta), true, false);
+	}
+	
 	private boolean isAStatisticalRule(){
 		/*
 		 * Returns whether the rule is a statistical/probabilistic or deterministic rule
@@ -254,8 +649,11 @@ public abstract class Algorithm {
 	
 	
 	public boolean isThetaWithinP(double confidence){
-		double[] wilsonInterval = this.computeWilsonInterval(confidence);
-		if(this.theta >= wilsonInterval[0] - wilsonInterval[1] && this.theta <= wilsonInterval[0] + wilsonInterval[1]){
+		double z = this.computeZ(confidence);
+		double mathPowerZ2 = Math.pow(z, 2);
+		double midPoint = this.computeMidPoint(z, mathPowerZ2);
+		double ci = this.computeCI(z, mathPowerZ2);
+		if(this.theta >= midPoint - ci && this.theta <= midPoint + ci){
 			return true;
 		}else{
 			return false;
@@ -263,21 +661,30 @@ public abstract class Algorithm {
 	}
 	
 	public double[] computeWilsonInterval(){
-		return computeWilsonInterval(this.confidence);
+		return this.computeWilsonInterval(new double[2]);
+	}
+	
+	public double[] computeWilsonInterval(double[] wilsonInterval){
+		/*
+		 * Compute the Wilson confidence interval into wilsonInterval, {mid point, half width}
+		 */
+		double z = this.computeZ(this.confidence);
+		double mathPowerZ2 = Math.pow(z, 2);
+		wilsonInterval[0] = this.computeMidPoint(z, mathPowerZ2);
+		wilsonInterval[1] = this.computeCI(z, mathPowerZ2);
+		return wilsonInterval;
 	}
 	
-	private double[] computeWilsonInterval(double confidence){
+	protected double computeZ(double confidence){
 		/*
-		 * Compute the Wilson confidence interval
+		 * z of the Wilson interval, cached for the latest confidence so that the quantile is computed once per level
 		 */
+		if(confidence == this.zConfidence) return this.z;
 		try{
-			double[] wilsonInterval = new double[2];
-			NormalDistributionImpl normal = new NormalDistributionImpl();								
-			double z = normal.inverseCumulativeProbability(confidence/2.0) * -1;
-			double mathPowerZ2 = Math.pow(z, 2);
-			wilsonInterval[0] = this.computeMidPoint(z, mathPowerZ2);
-			wilsonInterval[1] = this.computeCI(z, mathPowerZ2);
-			return wilsonInterval;
+			NormalDistributionImpl normal = new NormalDistributionImpl();
+			this.z = normal.inverseCumulativeProbability(confidence/2.0) * -1;
+			this.zConfidence = confidence;
+			return this.z;
 		}catch(Exception e){e.printStackTrace(); throw new Error();}
 	}
 	
@@ -0,0 +1,12 @@
+package sequential;
+
+import java.util.concurrent.CompletableFuture;
+
+/*
+ * A SampleSource whose samples complete later, e.g. simulator runs on a cluster that take 10 to 500 ms each
+ * Futures of samples that are no longer needed are cancelled, and the source may stop their work when it sees that
+ */
+public interface AsyncSampleSource {
+	//Starts the next sample, which completes TRUE if the property held on it; must not block
+	public CompletableFuture<Boolean> nextSample();
+}
@@ -0,0 +1,165 @@
+package sequential;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
+import sequential.Algorithm.Conclusion;
+
+/*
+ * Drives one rule from an AsyncSampleSource, with many samples in flight at once
+ *
+ * The samples are given to the rule in the order they were started, not the order they complete, as taking them
+ * as they complete would bias the test towards the outcomes that are fast to simulate (see OrderedSampler). The
+ * samples in flight follow the need the rule predicts: as many as the lower end of estimateRemainingSamples() of
+ * the rule, and never fewer than minAdditionalSamples(), which are all needed, at least minInFlight and at most
+ * maxInFlight. The wall clock time of a verification is then about that of the longest chains of samples rather
+ * than the sum of all samples.
+ *
+ * When the rule decides, the samples still in flight are cancelled. No thread is blocked: the rule is updated by
+ * whichever thread completes the oldest sample in flight, under the lock of the sampler.
+ */
+public class AsyncSampler {
+	private final Algorithm rule;
+	private final AsyncSampleSource source;
+	private final int minInFlight;
+	private final int maxInFlight;
+	private final CompletableFuture<Conclusion> result = new CompletableFuture<Conclusion>();
+	//Guarded by this
+	private final ArrayDeque<CompletableFuture<Boolean>> inFlight = new ArrayDeque<CompletableFuture<Boolean>>();
+	private int requested = 0;
+	private int cancelled = 0;
+	private boolean isStarted = false;
+	private boolean isAdvancing = false;//advance() is running, a nested call only sets isPending
+	private boolean isPending = false;
+	private double estimate = 0;  //Lower end of estimateRemainingSamples() at estimatedAt samples
+	private int estimatedAt = -1;
+
+	public AsyncSampler(Algorithm rule, AsyncSampleSource source, int minInFlight, int maxInFlight){
+		if(minInFlight <= 0 || maxInFlight < minInFlight){
+			throw new Error("MUST have 0 < minInFlight <= maxInFlight. minInFlight: " + minInFlight + " maxInFlight: " + maxInFlight);
+		}
+		this.rule = rule;
+		this.source = source;
+		this.minInFlight = minInFlight;
+		this.maxInFlight = maxInFlight;
+	}
+
+	public Algorithm getRule(){ return this.rule; }
+	public synchronized int getSamplesRequested(){ return this.requested; }
+	public synchronized int getSamplesCancelled(){ return this.cancelled; }
+	public synchronized int getSamplesInFlight(){ return this.inFlight.size(); }
+
+	public synchronized CompletableFuture<Conclusion> start(){
+		/*
+		 * Starts sampling, the future completes with the conclusion of the rule once it has decided
+		 * null for estimates (Operator.QUESTION) and skipped rules, read the rule instead
+		 * Completes exceptionally if a sample fails, and cancelling it cancels the samples in flight
+		 */
+		if(this.isStarted) throw new Error("AsyncSampler can only be started once");
+		this.isStarted = true;
+		this.result.whenComplete(new BiConsumer<Conclusion, Throwable>(){
+			public void accept(Conclusion conclusion, Throwable failure){
+				AsyncSampler.this.advance();
+			}
+		});
+		this.advance();
+		return this.result;
+	}
+
+	private void advance(){
+		/*
+		 * Gives the completed samples at the head to the rule, then tops up the samples in flight
+		 * Futures may complete on the calling thread, so nested calls are turned into another round of the loop
+		 */
+		synchronized(this){
+			if(this.isAdvancing){
+				this.isPending = true;
+				return;
+			}
+			this.isAdvancing = true;
+			try{
+				do{
+					this.isPending = false;
+					if(this.result.isDone()){
+						this.cancelInFlight();
+						return;
+					}
+					if(this.consume()) this.fill();
+				}while(this.isPending);
+			}finally{
+				this.isAdvancing = false;
+			}
+		}
+	}
+
+	private boolean consume(){
+		//FALSE once the result is complete
+		if(!this.rule.obtainAnotherSample()) return this.finish(null);
+		while(!this.inFlight.isEmpty() && this.inFlight.peek().isDone()){
+			boolean isTrue;
+			try{
+				isTrue = this.inFlight.poll().join();
+			}catch(RuntimeException e){
+				return this.finish(e);
+			}
+			this.rule.update(isTrue);
+			if(!this.rule.obtainAnotherSample()) return this.finish(null);
+		}
+		return true;
+	}
+
+	private void fill(){
+		int target = this.window();
+		while(this.inFlight.size() < target){
+			CompletableFuture<Boolean> sample;
+			try{
+				sample = this.source.nextSample();
+			}catch(RuntimeException e){
+				this.finish(e);
+				return;
+			}
+			this.requested++;
+			this.inFlight.add(sample);
+			sample.whenComplete(new BiConsumer<Boolean, Throwable>(){
+				public void accept(Boolean isTrue, Throwable failure){
+					AsyncSampler.this.advance();
+				}
+			});
+		}
+	}
+
+	protected int window(){
+		/*
+		 * Number of samples to keep in flight, from the samples the rule still needs
+		 * Never more than maxSamples allows
+		 */
+		int total = this.rule.getTotalSamples();
+		//The estimate takes longer than minAdditionalSamples(), so it is only renewed after a quarter of it is taken
+		if(this.estimatedAt < 0 || total - this.estimatedAt >= Math.max(1.0, Math.min(this.estimate, this.maxInFlight) / 4)){
+			this.estimate = this.rule.estimateRemainingSamples().getLower();
+			this.estimatedAt = total;
+		}
+		double speculated = Math.max(this.minInFlight, this.estimate - (total - this.estimatedAt));
+		int window = (int) Math.min(this.maxInFlight, Math.max(speculated, this.rule.minAdditionalSamples()));
+		if(this.rule.maxSamples > 0) window = Math.min(window, this.rule.maxSamples - this.rule.totalSamples);
+		return window;
+	}
+
+	private boolean finish(Throwable failure){
+		this.cancelInFlight();
+		if(failure != null){
+			this.result.completeExceptionally(failure);
+		}else{
+			this.result.complete(this.rule.getConclusionOrNull());
+		}
+		return false;
+	}
+
+	private void cancelInFlight(){
+		for(CompletableFuture<Boolean> sample : this.inFlight){
+			if(sample.cancel(true)) this.cancelled++;
+		}
+		this.inFlight.clear();
+	}
+}
@@ -0,0 +1,190 @@
+package sequential;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/*
+ * Verifies many traces against many rules in one JVM, a trace per task on a pool of threads
+ *
+ * Every trace, text or binary, is checked against a new rule from each RuleSpec. Binary traces are replayed to
+ * each rule in turn from the mapping. Text traces are read once for all the rules, 64 samples at a time given
+ * with updateWord, and reading stops as soon as every rule has decided. As in Mira.main, the end of a trace stops
+ * the rules that are still undecided. Text traces are strict, see TextTrace, so that another file in the
+ * directory is an error rather than a trace of FALSE samples.
+ *
+ * The results are a tab separated table with a header, a row per trace and rule in the order of the traces
+ * (sorted by name) and of the rules, written as the traces finish in that order:
+ * 	trace rule algorithm samples trueSamples conclusion status estimate lower upper
+ * status is the conclusion as TRUE, FALSE or UNKNOWN. lower and upper are the Wilson interval of estimates, -
+ * for tests, and conclusion and status are - for estimates. A trace that cannot be read has a single row with
+ * status ERROR and the message as conclusion.
+ */
+public class BatchVerifier {
+	public static final String HEADER = "trace\trule\talgorithm\tsamples\ttrueSamples\tconclusion\tstatus\testimate\tlower\tupper";
+
+	private final List<RuleSpec> specs;
+
+	public BatchVerifier(List<RuleSpec> specs){
+		this.specs = specs;
+	}
+
+	public static List<File> listTraces(String directoryOrGlob){
+		/*
+		 * The files of a directory, or those matching a glob on their name such as traces/run-*.bin, sorted
+		 */
+		File directory = new File(directoryOrGlob);
+		PathMatcher matcher = null;
+		if(!directory.isDirectory()){
+			directory = directory.getAbsoluteFile().getParentFile();
+			matcher = FileSystems.getDefault().getPathMatcher("glob:" + new File(directoryOrGlob).getName());
+		}
+		File[] files = directory.listFiles();
+		if(files == null) throw new Error("Not a directory: " + directory);
+		Arrays.sort(files);
+		List<File> traces = new ArrayList<File>();
+		for(File file : files){
+			if(file.isFile() && (matcher == null || matcher.matches(file.toPath().getFileName()))) traces.add(file);
+		}
+		return traces;
+	}
+
+	public Algorithm[] verify(File trace) throws IOException {
+		/*
+		 * A new rule per spec, each run on trace until it decides or the trace ends
+		 */
+		Algorithm[] rules = new Algorithm[this.specs.size()];
+		for(int i = 0; i < rules.length; i++) rules[i] = this.specs.get(i).create();
+		if(BinaryTrace.isBinaryTrace(trace)){
+			BinaryTrace binary = new BinaryTrace(trace);
+			for(Algorithm rule : rules){
+				binary.rewind();
+				binary.replay(rule);
+			}
+			return rules;
+		}
+		TextTrace text = new TextTrace(trace, true);
+		try{
+			int[] active = new int[rules.length];
+			int activeCount = rules.length;
+			for(int i = 0; i < rules.length; i++) active[i] = i;
+			while(activeCount > 0 && text.hasNextSample()){
+				long word = 0;
+				int count = 0;
+				while(count < 64 && text.hasNextSample()){
+					if(text.nextSample()) word |= 1L << count;
+					count++;
+				}
+				int kept = 0;
+				for(int j = 0; j < activeCount; j++){
+					//A rule that takes fewer than count has decided
+					if(rules[active[j]].updateWord(word, count) == count) active[kept++] = active[j];
+				}
+				activeCount = kept;
+			}
+		}catch(UncheckedIOException e){
+			throw e.getCause();
+		}finally{
+			text.close();
+		}
+		return rules;
+	}
+
+	private String rows(File trace){
+		StringBuilder rows = new StringBuilder();
+		Algorithm[] rules;
+		try{
+			rules = this.verify(trace);
+		}catch(IOException e){
+			rows.append(trace.getPath()).append("\t-\t-\t-\t-\t").append(String.valueOf(e.getMessage()).replaceAll("\\s+", " "));
+			rows.append("\tERROR\t-\t-\t-\n");
+			return rows.toString();
+		}
+		for(int i = 0; i < rules.length; i++){
+			Algorithm rule = rules[i];
+			RuleSpec spec = this.specs.get(i);
+			int n = rule.getTotalSamples();
+			rows.append(trace.getPath()).append('\t').append(spec.getName()).append('\t').append(spec.getAlgorithm());
+			rows.append('\t').append(n).append('\t').append(rule.getTrueSamples());
+			if(!rule.hasConclusion()){
+				//{mid point, half width}
+				double[] interval = n > 0 ? rule.computeWilsonInterval() : new double[]{0.5, 0.5};
+				rows.append("\t-\t-\t").append(n > 0 ? (rule.getTrueSamples() + 0.0) / n : Double.NaN);
+				rows.append('\t').append(interval[0] - interval[1]).append('\t').append(interval[0] + interval[1]);
+			}else{
+				rows.append('\t').append(rule.getConclusion()).append('\t').append(rule.getConclusionInRuleStatus());
+				rows.append('\t').append(n > 0 ? (rule.getTrueSamples() + 0.0) / n : Double.NaN).append("\t-\t-");
+			}
+			rows.append('\n');
+		}
+		return rows.toString();
+	}
+
+	public void run(List<File> traces, int threads, PrintWriter output){
+		/*
+		 * Writes the table of all traces, verified on threads threads
+		 */
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try{
+			List<Future<String>> futures = new ArrayList<Future<String>>(traces.size());
+			for(final File trace : traces){
+				futures.add(executor.submit(new Callable<String>(){
+					public String call(){
+						return BatchVerifier.this.rows(trace);
+					}
+				}));
+			}
+			output.println(HEADER);
+			for(Future<String> future : futures){
+				try{
+					output.print(future.get());
+				}catch(InterruptedException e){
+					throw new Error(e);
+				}catch(ExecutionException e){
+					throw new Error(e.getCause());
+				}
+				output.flush();
+			}
+		}finally{
+			executor.shutdownNow();
+		}
+	}
+
+	public static void main(String[] args){
+		try{
+			if(args.length < 2 || args.length > 4){
+				throw new Error("Need two to four arguments.\n 1) directory of traces, or glob on their names (String) " +
+						"\n 2) rule specification file, see RuleSpec (String) " +
+						"\n 3) optional, number of threads, the number of processors by default (int) " +
+						"\n 4) optional, file to write the results table to, standard output by default (String)");
+			}
+			List<File> traces = listTraces(args[0]);
+			List<RuleSpec> specs = RuleSpec.read(new File(args[1]));
+			int threads = args.length >= 3 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+			PrintWriter output = args.length == 4 ? 
+					new PrintWriter(new OutputStreamWriter(new FileOutputStream(args[3]), "UTF-8")) : new PrintWriter(System.out);
+			long start = System.nanoTime();
+			try{
+				new BatchVerifier(specs).run(traces, threads, output);
+			}finally{
+				output.flush();
+				if(args.length == 4) output.close();
+			}
+			System.err.println("Traces: " + traces.size() + ", Rules: " + specs.size() + ", Threads: " + threads + 
+					", Seconds: " + (System.nanoTime() - start) / 1e9);
+		}catch(Exception e){e.printStackTrace();}
+	}
+}
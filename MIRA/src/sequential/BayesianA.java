@@ -1,7 +1,5 @@
 package sequential;
 
-import org.apache.commons.math.distribution.BetaDistributionImpl;
-
 /*
  * A Bayesian Approach to Model Checking Biological Systems CMSB2009
  * Sumit K Jha et al
@@ -10,18 +8,21 @@ import org.apache.commons.math.distribution.BetaDistributionImpl;
  */
 public class BayesianA extends Algorithm{
 	private double bayesFactorThreshold;
+	private BetaTail posteriorTail;//Tails of the posterior Beta at theta, updated per sample
 
 	public BayesianA(String syntax, Operator operator, double theta, double alpha, double beta, double bayesFactorThreshold, int maxSamples){
 		super(syntax, operator, theta, alpha, beta, maxSamples);
 		this.bayesFactorThreshold = bayesFactorThreshold;
+		this.posteriorTail = new BetaTail(this.theta, this.alpha, this.beta);
 	}
 	
+	double getBayesFactorThreshold(){ return this.bayesFactorThreshold; }
+	
 	private double computeBayesFactor(){
-		try{
-			BetaDistributionImpl beta = new BetaDistributionImpl(this.trueSamples + this.alpha, this.totalSamples - this.trueSamples + this.beta);
-			double f = beta.cumulativeProbability(this.theta);
-			return (1 / f) - 1;
-		}catch(Exception e){e.printStackTrace(); throw new Error("Error in computing BayesFactor");}
+		//P(p <= theta) under the posterior Beta(trueSamples + alpha, falseSamples + beta)
+		this.posteriorTail.moveTo(this.totalSamples, this.trueSamples);
+		double f = this.posteriorTail.lowerTail();
+		return (1 / f) - 1;
 	}
 
 	@Override
@@ -33,6 +34,18 @@ public class BayesianA extends Algorithm{
 		return true;
 	}
 
+	@Override
+	protected double expectedRemainingSamples(double p){
+		/*
+		 * The posterior is about Normal(p, p (1 - p) / n), and the Bayes factor passes the threshold T once
+		 * P(p <= theta) is below 1 / (T + 1), that is from n = (z / (p - theta))^2 p (1 - p) with z the normal
+		 * quantile of T / (T + 1)
+		 */
+		double z = this.computeZ(2 / (this.bayesFactorThreshold + 1));
+		double n = z * z * p * (1 - p) / ((p - this.theta) * (p - this.theta));
+		return Math.max(0.0, n - this.totalSamples);
+	}
+	
 	@Override
 	public Conclusion getConclusion() {
 		if(this.totalSamples == 0) return null;
@@ -11,9 +11,15 @@ public class BayesianB extends Algorithm{
 		this.threshold = threshold;
 	}
 	
+	double getThreshold(){ return this.threshold; }
+	
 	private double computeVariance(){
-		return ((this.alpha + this.trueSamples) * (this.totalSamples - this.trueSamples + this.beta)) /
-		(Math.pow(this.alpha + this.totalSamples + this.beta, 2.0) * (this.alpha + this.totalSamples + this.beta + 1));
+		return this.computeVariance(this.totalSamples, this.trueSamples);
+	}
+	
+	private double computeVariance(int totalSamples, int trueSamples){
+		return ((this.alpha + trueSamples) * (totalSamples - trueSamples + this.beta)) /
+		(Math.pow(this.alpha + totalSamples + this.beta, 2.0) * (this.alpha + totalSamples + this.beta + 1));
 	}
 	
 	@Override
@@ -23,6 +29,27 @@ public class BayesianB extends Algorithm{
 		else return true;//continue sampling
 	}
 
+	@Override
+	protected boolean canStopAfter(int m){
+		/*
+		 * For a given number of samples the variance is lowest at the extremes, m true or m false samples, 
+		 * and both extremes only decrease as m grows
+		 */
+		int n = this.totalSamples + m;
+		return this.computeVariance(n, this.trueSamples) < this.threshold || 
+				this.computeVariance(n, this.trueSamples + m) < this.threshold;
+	}
+
+	@Override
+	protected double expectedRemainingSamples(double p){
+		/*
+		 * With p as the posterior mean the variance is p (1 - p) / (alpha + beta + n + 1), below the threshold from
+		 * n = p (1 - p) / threshold - alpha - beta - 1
+		 */
+		double n = p * (1 - p) / this.threshold - this.alpha - this.beta - 1;
+		return Math.max(0.0, n - this.totalSamples);
+	}
+
 	@Override
 	public Conclusion getConclusion() {
 		if(this.totalSamples == 0) return null;
@@ -0,0 +1,191 @@
+package sequential;
+
+import org.apache.commons.math.special.Gamma;
+
+/*
+ * Cumulative probability of the Beta distribution, i.e. the regularized incomplete beta function
+ *
+ * Same continued fraction as BetaDistributionImpl, evaluated with the modified Lentz method on primitives only,
+ * so it can be called once per sample without allocating.
+ *
+ * An instance tracks both tails at a fixed x of the posterior Beta(k + priorA, n - k + priorB) of a sample path,
+ * the way BinomialTail does for the binomial. A sample moves a or b by one, and
+ *   I(x; a + 1, b) = I(x; a, b) - x^a (1 - x)^b / (a B(a, b)),   I(x; a, b + 1) = I(x; a, b) + x^a (1 - x)^b / (b B(a, b))
+ * so the tails are updated in O(1) instead of evaluating the O(sqrt(n)) continued fraction. Moving k up at the same n,
+ * as OperatingCharacteristic does along a row, uses I(x; a + 1, b - 1) = I(x; a, b) - x^a (1 - x)^(b - 1) / (a B(a, b)).
+ * As with BinomialTail,
+ * they are fully recomputed after a long jump, every MAX_STEPS updates and whenever a tail has dropped by more than
+ * a factor of 2^10 below its largest value since the last full computation.
+ */
+public class BetaTail {
+	//Relative change of the continued fraction at which it has converged
+	private static final double EPSILON = 1e-14;
+	//Smallest magnitude allowed for the Lentz denominators
+	private static final double TINY = 1e-300;
+	//The fraction needs O(sqrt(max(a, b))) terms, so this is only hit on invalid arguments
+	private static final int MAX_ITERATIONS = 1000000;
+	//Longest jump in n that is walked instead of recomputed
+	private static final int MAX_JUMP = 256;
+	//Number of updates before the tails are recomputed from scratch
+	private static final int MAX_STEPS = 1024;
+	//Largest drop of a tail before it is recomputed
+	private static final double MAX_DROP = 1.0 / 1024;
+
+	private final double x;
+	private final double logX;
+	private final double log1mX;//log(1 - x)
+	private final double priorA;
+	private final double priorB;
+	private int n = -1;
+	private int k = -1;
+	private double lower;   //I(x; a, b)
+	private double upper;   //1 - I(x; a, b)
+	private double logTerm; //log(x^a (1 - x)^b / B(a, b))
+	private int steps;      //Updates since the last full computation
+	private double lowerMax;//Largest lower since the last full computation
+	private double upperMax;//Largest upper since the last full computation
+
+	public BetaTail(double x, double priorA, double priorB){
+		this.x = x;
+		this.logX = Math.log(x);
+		this.log1mX = Math.log1p(-x);
+		this.priorA = priorA;
+		this.priorB = priorB;
+	}
+
+	public double lowerTail(){ return this.lower; }
+	public double upperTail(){ return this.upper; }
+
+	public void moveTo(int n, int k){
+		/*
+		 * Set the tails to those of Beta(k + priorA, n - k + priorB)
+		 */
+		if(n == this.n && k == this.k) return;
+		int jump = n - this.n;
+		int trues = k - this.k;
+		if(jump == 0 && this.n >= 0 && this.x > 0.0 && this.x < 1.0 && trues > 0 && trues <= MAX_JUMP &&
+				this.steps + trues <= MAX_STEPS){
+			//Same n, shift samples from false to true
+			for(int i = 0; i < trues; i++){
+				this.shift();
+				if(this.lower > this.lowerMax) this.lowerMax = this.lower;
+				if(this.upper > this.upperMax) this.upperMax = this.upper;
+			}
+		}else if(this.n < 0 || this.x <= 0.0 || this.x >= 1.0 || jump <= 0 || jump > MAX_JUMP ||
+				trues < 0 || trues > jump || this.steps + jump > MAX_STEPS){
+			this.recompute(n, k);
+			return;
+		}else{
+			//Walk any path from (this.n, this.k), true samples first
+			for(int i = 0; i < jump; i++){
+				this.step(i < trues);
+				if(this.lower > this.lowerMax) this.lowerMax = this.lower;
+				if(this.upper > this.upperMax) this.upperMax = this.upper;
+			}
+		}
+		if(!(this.lower >= this.lowerMax * MAX_DROP && this.upper >= this.upperMax * MAX_DROP)){
+			//Also catches NaN
+			this.recompute(n, k);
+		}
+	}
+
+	private void recompute(int n, int k){
+		double a = k + this.priorA;
+		double b = n - k + this.priorB;
+		this.n = n;
+		this.k = k;
+		//Same split as cumulativeProbability, so the lower tail is the same value
+		if(this.x > (a + 1.0) / (a + b + 2.0)){
+			this.upper = cumulativeProbability(1.0 - this.x, b, a);
+			this.lower = 1.0 - this.upper;
+		}else{
+			this.lower = cumulativeProbability(this.x, a, b);
+			this.upper = 1.0 - this.lower;
+		}
+		this.logTerm = a * this.logX + b * this.log1mX - logBeta(a, b);
+		this.steps = 0;
+		this.lowerMax = this.lower;
+		this.upperMax = this.upper;
+	}
+
+	private void step(boolean isTrue){
+		double a = this.k + this.priorA;
+		double b = this.n - this.k + this.priorB;
+		if(isTrue){
+			double change = Math.exp(this.logTerm - Math.log(a));
+			this.lower -= change;
+			this.upper += change;
+			//B(a + 1, b) = B(a, b) a / (a + b)
+			this.logTerm += this.logX + Math.log((a + b) / a);
+			this.k++;
+		}else{
+			double change = Math.exp(this.logTerm - Math.log(b));
+			this.lower += change;
+			this.upper -= change;
+			//B(a, b + 1) = B(a, b) b / (a + b)
+			this.logTerm += this.log1mX + Math.log((a + b) / b);
+		}
+		this.n++;
+		this.steps++;
+	}
+
+	private void shift(){
+		//One false sample becomes a true one, (a, b) to (a + 1, b - 1)
+		double a = this.k + this.priorA;
+		double b = this.n - this.k + this.priorB;
+		double change = Math.exp(this.logTerm - Math.log(a) - this.log1mX);
+		this.lower -= change;
+		this.upper += change;
+		//B(a + 1, b - 1) = B(a, b) a / (b - 1)
+		this.logTerm += this.logX - this.log1mX + Math.log((b - 1) / a);
+		this.k++;
+		this.steps++;
+	}
+
+	public static double cumulativeProbability(double x, double a, double b){
+		//P(X <= x), X ~ Beta(a, b)
+		if(x <= 0.0) return 0.0;
+		if(x >= 1.0) return 1.0;
+		//The fraction converges quickly below the mean, above it use the symmetry I(x; a, b) = 1 - I(1 - x; b, a)
+		if(x > (a + 1.0) / (a + b + 2.0)) return 1.0 - cumulativeProbability(1.0 - x, b, a);
+		double logFront = a * Math.log(x) + b * Math.log1p(-x) - Math.log(a) - logBeta(a, b);
+		return Math.exp(logFront) * continuedFraction(x, a, b);
+	}
+
+	static double logBeta(double a, double b){
+		return Gamma.logGamma(a) + Gamma.logGamma(b) - Gamma.logGamma(a + b);
+	}
+
+	private static double continuedFraction(double x, double a, double b){
+		/*
+		 * 1 / (1 + d1 / (1 + d2 / (1 + ...))) with
+		 * d(2m + 1) = -(a + m)(a + b + m) x / ((a + 2m)(a + 2m + 1)) and d(2m) = m(b - m) x / ((a + 2m - 1)(a + 2m))
+		 */
+		double c = 1.0;
+		double d = 1.0 - (a + b) * x / (a + 1.0);
+		if(Math.abs(d) < TINY) d = TINY;
+		d = 1.0 / d;
+		double h = d;
+		for(int m = 1; m <= MAX_ITERATIONS; m++){
+			int m2 = 2 * m;
+			double aa = m * (b - m) * x / ((a + m2 - 1.0) * (a + m2));
+			d = 1.0 + aa * d;
+			if(Math.abs(d) < TINY) d = TINY;
+			c = 1.0 + aa / c;
+			if(Math.abs(c) < TINY) c = TINY;
+			d = 1.0 / d;
+			h *= d * c;
+			aa = -(a + m) * (a + b + m) * x / ((a + m2) * (a + m2 + 1.0));
+			d = 1.0 + aa * d;
+			if(Math.abs(d) < TINY) d = TINY;
+			c = 1.0 + aa / c;
+			if(Math.abs(c) < TINY) c = TINY;
+			d = 1.0 / d;
+			double change = d * c;
+			h *= change;
+			if(Math.abs(change - 1.0) < EPSILON) return h;
+		}
+		throw new Error("Continued fraction of the incomplete beta function did not converge. x: " + x +
+				" a: " + a + " b: " + b);
+	}
+}
@@ -0,0 +1,233 @@
+package sequential;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/*
+ * A trace of samples packed one bit per sample, read through a memory mapping
+ *
+ * Layout, little endian:
+ * 	0	8 bytes	magic "MIRABITS"
+ * 	8	int		version
+ * 	12	int		length of the provenance in bytes
+ * 	16	long	number of samples
+ * 	24			provenance in UTF-8, e.g. the model and seed the trace came from, padded with 0 to a multiple of 8
+ * 	then		the samples, sample i being bit (i % 64) of long (i / 64), the unused bits of the last long 0
+ *
+ * replay() gives the samples to a rule straight from the mapping, 64 at a time with updateWord, so only the
+ * pages up to the decision are read and nothing is parsed or copied. The trace also is a SampleSource of one
+ * sample at a time. A text trace of one "true" or "false" per line is 5 to 6 bytes per sample against 1/8.
+ */
+public class BinaryTrace implements SampleSource {
+	private static final byte[] MAGIC = {'M', 'I', 'R', 'A', 'B', 'I', 'T', 'S'};
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 24;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final LongBuffer words;
+	private final int sampleCount;
+	private final String provenance;
+	private final long bodyOffset;
+	private int position = 0;//Next sample
+
+	public BinaryTrace(File file) throws IOException {
+		FileInputStream input = new FileInputStream(file);
+		try{
+			FileChannel channel = input.getChannel();
+			long size = channel.size();
+			if(size < HEADER_SIZE || !isBinaryTrace(file)) throw new IOException("Not a binary trace: " + file);
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			while(header.hasRemaining() && channel.read(header, header.position()) >= 0);
+			int version = header.getInt(8);
+			if(version != VERSION) throw new IOException("Unsupported binary trace version: " + version);
+			int provenanceLength = header.getInt(12);
+			long count = header.getLong(16);
+			if(count < 0 || count > Integer.MAX_VALUE) throw new IOException("Binary trace sample count out of range: " + count);
+			this.sampleCount = (int) count;
+			this.bodyOffset = HEADER_SIZE + padded(provenanceLength);
+			long bodySize = 8 * ((count + 63) / 64);
+			if(provenanceLength < 0 || this.bodyOffset + bodySize > size){
+				throw new IOException("Truncated binary trace: " + file + " size: " + size + " samples: " + count);
+			}
+			//The mapping stays valid once the channel is closed
+			ByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, this.bodyOffset + bodySize);
+			byte[] bytes = new byte[provenanceLength];
+			map.position(HEADER_SIZE);
+			map.get(bytes);
+			this.provenance = new String(bytes, UTF8);
+			map.position((int) this.bodyOffset);
+			this.words = map.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+		}finally{
+			input.close();
+		}
+	}
+
+	public static boolean isBinaryTrace(File file) throws IOException {
+		//TRUE if file starts with the magic of a binary trace
+		FileInputStream input = new FileInputStream(file);
+		try{
+			byte[] magic = new byte[MAGIC.length];
+			int length = 0;
+			int read;
+			while(length < magic.length && (read = input.read(magic, length, magic.length - length)) > 0) length += read;
+			if(length < magic.length) return false;
+			for(int i = 0; i < magic.length; i++){
+				if(magic[i] != MAGIC[i]) return false;
+			}
+			return true;
+		}finally{
+			input.close();
+		}
+	}
+
+	private static long padded(int length){
+		return (length + 7L) & ~7L;
+	}
+
+	public int getSampleCount(){ return this.sampleCount; }
+	public String getProvenance(){ return this.provenance; }
+	public int getPosition(){ return this.position; }
+
+	public long getBytesRead(){
+		//Bytes of the file up to the word of the last sample taken
+		return this.bodyOffset + 8L * ((this.position + 63L) / 64);
+	}
+
+	public void rewind(){
+		//Back to the first sample, e.g. to replay the trace to another rule
+		this.position = 0;
+	}
+
+	public boolean hasNextSample(){
+		return this.position < this.sampleCount;
+	}
+
+	public boolean nextSample(){
+		if(this.position >= this.sampleCount) throw new Error("No more samples in the trace after " + this.sampleCount);
+		boolean isTrue = ((this.words.get(this.position >>> 6) >>> (this.position & 63)) & 1) != 0;
+		this.position++;
+		return isTrue;
+	}
+
+	public int replay(Algorithm rule){
+		/*
+		 * Gives the samples from the current position to rule until it has decided or the trace ends
+		 * Returns the number of samples taken
+		 * As with a loop over hasNextSample() and obtainAnotherSample(), the end of the trace is checked first
+		 */
+		int taken = 0;
+		while(this.position < this.sampleCount){
+			int offset = this.position & 63;
+			int count = Math.min(64 - offset, this.sampleCount - this.position);
+			int used = rule.updateWord(this.words.get(this.position >>> 6) >>> offset, count);
+			this.position += used;
+			taken += used;
+			if(used < count) break;
+		}
+		return taken;
+	}
+
+	public static class Writer implements Closeable {
+		/*
+		 * Writes a binary trace one sample at a time, the sample count is written on close()
+		 */
+		private final RandomAccessFile file;
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+		private long word = 0;
+		private long count = 0;
+
+		public Writer(File file, String provenance) throws IOException {
+			this.file = new RandomAccessFile(file, "rw");
+			this.file.setLength(0);
+			this.channel = this.file.getChannel();
+			byte[] bytes = provenance.getBytes(UTF8);
+			ByteBuffer header = ByteBuffer.allocate((int) (HEADER_SIZE + padded(bytes.length))).order(ByteOrder.LITTLE_ENDIAN);
+			header.put(MAGIC);
+			header.putInt(VERSION);
+			header.putInt(bytes.length);
+			header.putLong(0);//Written on close()
+			header.put(bytes);
+			header.position(0);
+			while(header.hasRemaining()) this.channel.write(header);
+		}
+
+		public long getSampleCount(){ return this.count; }
+
+		public void add(boolean isTrue) throws IOException {
+			if(this.count == Integer.MAX_VALUE) throw new Error("Binary trace can hold at most " + Integer.MAX_VALUE + " samples");
+			if(isTrue) this.word |= 1L << (this.count & 63);
+			this.count++;
+			if((this.count & 63) == 0) this.flushWord();
+		}
+
+		private void flushWord() throws IOException {
+			if(!this.buffer.hasRemaining()) this.drain();
+			this.buffer.putLong(this.word);
+			this.word = 0;
+		}
+
+		private void drain() throws IOException {
+			this.buffer.flip();
+			while(this.buffer.hasRemaining()) this.channel.write(this.buffer);
+			this.buffer.clear();
+		}
+
+		public void close() throws IOException {
+			try{
+				if((this.count & 63) != 0) this.flushWord();
+				this.drain();
+				ByteBuffer count = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+				count.putLong(0, this.count);
+				while(count.hasRemaining()) this.channel.write(count, 16 + count.position());
+			}finally{
+				this.file.close();
+			}
+		}
+	}
+
+	public static long convert(File textFile, File binaryFile, String provenance) throws IOException {
+		/*
+		 * Converts a text trace of one true or false per line, as read by a strict TextTrace
+		 * Returns the number of samples, throws IOException on a line that is neither true nor false
+		 */
+		TextTrace text = new TextTrace(textFile, true);
+		try{
+			Writer writer = new Writer(binaryFile, provenance);
+			try{
+				while(text.hasNextSample()) writer.add(text.nextSample());
+			}finally{
+				writer.close();
+			}
+			return writer.getSampleCount();
+		}catch(UncheckedIOException e){
+			throw e.getCause();
+		}finally{
+			text.close();
+		}
+	}
+
+	public static void main(String[] args){
+		try{
+			if(args.length != 2 && args.length != 3){
+				throw new Error("Need two or three arguments.\n 1) textfile with each line being true or false (String) " +
+						"\n 2) binary trace to write (String) \n 3) optional, provenance of the trace (String)");
+			}
+			File textFile = new File(args[0]);
+			File binaryFile = new File(args[1]);
+			String provenance = args.length == 3 ? args[2] : "Converted from " + textFile.getAbsolutePath();
+			long count = convert(textFile, binaryFile, provenance);
+			System.out.println("Samples: " + count);
+			System.out.println("Bytes: " + textFile.length() + " to " + binaryFile.length());
+		}catch(Exception e){e.printStackTrace();}
+	}
+}
@@ -0,0 +1,191 @@
+package sequential;
+
+import org.apache.commons.math.special.Gamma;
+
+/*
+ * Binomial tail probabilities computed in log space
+ *
+ * Replaces the summation from 0 to c of the binomial pmf. The tail that does not contain the mode is summed
+ * outwards from k, where the terms decrease geometrically, so only O(sqrt(n)) terms are needed in the worst case
+ * and far fewer away from the mode. The sum is kept relative to pmf(k), so nothing underflows for large n.
+ * The other tail is obtained as the complement, which is >= ~0.5 and hence does not lose precision.
+ *
+ * An instance tracks both tails of one (n, k) for a fixed p. Moving along a sample path, i.e. to (n + 1, k) or
+ * (n + 1, k + 1), is an O(1) update of the tails, so querying the p-values after every sample costs O(1) amortized.
+ * Half of the updates subtract from a tail, so the absolute error grows with the largest value the tail had.
+ * Tails are hence fully recomputed after a long jump, every MAX_STEPS updates and whenever a tail has dropped by
+ * more than a factor of 2^10 below its largest value since the last full computation.
+ */
+public class BinomialTail {
+	//Relative contribution below which the remaining terms are ignored
+	private static final double EPSILON = 1e-17;
+	//Longest jump in n that is walked instead of recomputed
+	private static final int MAX_JUMP = 256;
+	//Number of updates before the tails are recomputed from scratch
+	private static final int MAX_STEPS = 1024;
+	//Updates subtract up to a 1 / min(p, 1 - p) fraction of a tail, so extreme p are always recomputed
+	private static final double MIN_WALK_P = 0.001;
+	//Largest drop of a tail, in log, before it is recomputed
+	private static final double MAX_LOG_DROP = 10 * Math.log(2);
+	
+	private final double p;
+	private final double logP;
+	private final double logQ;
+	private int n = -1;
+	private int k = -1;
+	private double logLower;//log P(X <= k)
+	private double logUpper;//log P(X >= k)
+	private double logPmf;  //log P(X = k)
+	private int steps;      //Updates since the last full computation
+	private double logLowerMax;//Largest logLower since the last full computation
+	private double logUpperMax;//Largest logUpper since the last full computation
+	
+	public BinomialTail(double p){
+		this.p = p;
+		this.logP = Math.log(p);
+		this.logQ = Math.log(1 - p);
+	}
+	
+	public double lowerTail(){ return Math.min(1.0, Math.exp(this.logLower)); }
+	public double upperTail(){ return Math.min(1.0, Math.exp(this.logUpper)); }
+	
+	public void moveTo(int n, int k){
+		/*
+		 * Set the tails to those of (n, k)
+		 */
+		if(n == this.n && k == this.k) return;
+		int jump = n - this.n;
+		if(this.n < 0 || Math.min(this.p, 1 - this.p) < MIN_WALK_P || jump <= 0 || jump > MAX_JUMP || 
+				k < this.k || k - this.k > jump || this.steps + jump > MAX_STEPS){
+			this.recompute(n, k);
+			return;
+		}
+		//Walk any path from (this.n, this.k), true samples first
+		int trues = k - this.k;
+		for(int i = 0; i < jump; i++){
+			this.step(i < trues);
+			if(this.logLower > this.logLowerMax) this.logLowerMax = this.logLower;
+			if(this.logUpper > this.logUpperMax) this.logUpperMax = this.logUpper;
+		}
+		if(!(this.logLower >= this.logLowerMax - MAX_LOG_DROP && this.logUpper >= this.logUpperMax - MAX_LOG_DROP)){
+			//Also catches NaN
+			this.recompute(n, k);
+		}
+	}
+	
+	private void recompute(int n, int k){
+		this.n = n;
+		this.k = k;
+		this.logLower = logLowerTail(k, n, this.p);
+		this.logUpper = logUpperTail(k, n, this.p);
+		this.logPmf = logPmf(k, n, this.p);
+		this.steps = 0;
+		this.logLowerMax = this.logLower;
+		this.logUpperMax = this.logUpper;
+	}
+	
+	private void step(boolean isTrue){
+		/*
+		 * Tails and pmf of X + B where X ~ Binomial(n, p) and B ~ Bernoulli(p) is the new sample
+		 * False: P(X + B <= k) = P(X <= k) - p P(X = k),      P(X + B >= k) = P(X >= k) + p P(X = k - 1)
+		 * True:  P(X + B <= k + 1) = P(X <= k) + q P(X = k + 1), P(X + B >= k + 1) = P(X >= k) - q P(X = k)
+		 */
+		int n = this.n;
+		int k = this.k;
+		if(isTrue){
+			double logPmfNext = this.logPmf + Math.log((n - k) / (k + 1.0)) + this.logP - this.logQ;//log P(X = k + 1)
+			if(k < n) this.logLower = logAdd(this.logLower, this.logQ + logPmfNext);
+			this.logUpper = this.logUpper + log1mexp(this.logQ + this.logPmf - this.logUpper);
+			this.logPmf = this.logPmf + Math.log((n + 1.0) / (k + 1.0)) + this.logP;
+			this.k = k + 1;
+		}else{
+			this.logLower = this.logLower + log1mexp(this.logP + this.logPmf - this.logLower);
+			if(k > 0){
+				double logPmfPrevious = this.logPmf + Math.log(k / (n - k + 1.0)) + this.logQ - this.logP;//log P(X = k - 1)
+				this.logUpper = logAdd(this.logUpper, this.logP + logPmfPrevious);
+			}
+			this.logPmf = this.logPmf + Math.log((n + 1.0) / (n + 1.0 - k)) + this.logQ;
+		}
+		this.n = n + 1;
+		this.steps++;
+	}
+
+	public static double lowerTail(int k, int n, double p){
+		//P(X <= k), X ~ Binomial(n, p)
+		return Math.min(1.0, Math.exp(logLowerTail(k, n, p)));
+	}
+
+	public static double upperTail(int k, int n, double p){
+		//P(X >= k), X ~ Binomial(n, p)
+		return Math.min(1.0, Math.exp(logUpperTail(k, n, p)));
+	}
+
+	public static double logPmf(int k, int n, double p){
+		//log P(X = k) for 0 < p < 1
+		return Gamma.logGamma(n + 1) - Gamma.logGamma(k + 1) - Gamma.logGamma(n - k + 1) +
+				k * Math.log(p) + (n - k) * Math.log(1 - p);
+	}
+
+	public static double logLowerTail(int k, int n, double p){
+		//log P(X <= k)
+		if(k < 0) return Double.NEGATIVE_INFINITY;
+		if(k >= n) return 0.0;
+		if(p <= 0.0) return 0.0;
+		if(p >= 1.0) return Double.NEGATIVE_INFINITY;
+		if(k >= mode(n, p)) return log1mexp(logUpperTail(k + 1, n, p));
+		//Sum pmf(i) / pmf(k) from i = k down to 0
+		double qOverP = (1 - p) / p;
+		double sum = 1.0;
+		double term = 1.0;
+		for(int i = k; i > 0; i--){
+			double ratio = i * qOverP / (n - i + 1);//pmf(i - 1) / pmf(i)
+			term *= ratio;
+			sum += term;
+			//Ratios keep decreasing, so the remaining terms are bounded by a geometric series
+			if(ratio < 1.0 && term * ratio / (1.0 - ratio) < EPSILON * sum) break;
+		}
+		return logPmf(k, n, p) + Math.log(sum);
+	}
+
+	public static double logUpperTail(int k, int n, double p){
+		//log P(X >= k)
+		if(k <= 0) return 0.0;
+		if(k > n) return Double.NEGATIVE_INFINITY;
+		if(p <= 0.0) return Double.NEGATIVE_INFINITY;
+		if(p >= 1.0) return 0.0;
+		if(k <= mode(n, p)) return log1mexp(logLowerTail(k - 1, n, p));
+		//Sum pmf(i) / pmf(k) from i = k up to n
+		double pOverQ = p / (1 - p);
+		double sum = 1.0;
+		double term = 1.0;
+		for(int i = k; i < n; i++){
+			double ratio = (n - i) * pOverQ / (i + 1);//pmf(i + 1) / pmf(i)
+			term *= ratio;
+			sum += term;
+			//Ratios keep decreasing, so the remaining terms are bounded by a geometric series
+			if(ratio < 1.0 && term * ratio / (1.0 - ratio) < EPSILON * sum) break;
+		}
+		return logPmf(k, n, p) + Math.log(sum);
+	}
+
+	private static int mode(int n, double p){
+		return (int)Math.min(n, Math.floor((n + 1) * p));
+	}
+
+	private static double logAdd(double x, double y){
+		//log(exp(x) + exp(y))
+		if(x < y){
+			double t = x;
+			x = y;
+			y = t;
+		}
+		if(y == Double.NEGATIVE_INFINITY) return x;
+		return x + Math.log1p(Math.exp(y - x));
+	}
+
+	private static double log1mexp(double x){
+		//log(1 - exp(x)) for x <= 0
+		if(x > -0.693) return Math.log(-Math.expm1(x));
+		else return Math.log1p(-Math.exp(x));
+	}
+}
@@ -0,0 +1,186 @@
+package sequential;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import sequential.Algorithm.Conclusion;
+
+/*
+ * A rule fed by many sampler threads at once, without a lock per sample
+ *
+ * Samples are counted in striped cells, one per group of threads, each padded to its own cache line. Between two
+ * checks of the rule the samples are limited to a budget of minAdditionalSamples(): no outcomes of fewer samples
+ * can make it stop or change state, so they need no check. The budget is split over the cells as quotas, and a
+ * sample is one compare-and-set on the thread's own cell while its quota lasts. A thread whose quota is used up
+ * takes over the quota left in other cells. The thread whose sample uses up the last of the budget sums the cells,
+ * updates the rule and checks it under the lock, so the rule stops at exactly the sample it would stop at if the
+ * samples had come one by one in some order.
+ *
+ * That thread is the only one told that the rule has decided (DECIDED), samples after it are REJECTED.
+ * Rules without a lookahead (canStopAfter) have a budget of one sample and are checked on every sample.
+ */
+public class ConcurrentRule {
+	public static enum Outcome {
+		ACCEPTED, //Counted, the rule needs more samples
+		DECIDED,  //Counted, and the rule decided on it
+		REJECTED  //Not counted, the rule had already decided
+	}
+
+	//Cell layout: quota, used and trues of 18 bits each, then the epoch in the 10 bits left
+	private static final int BITS = 18;
+	private static final long MASK = (1L << BITS) - 1;
+	private static final int USED_SHIFT = BITS;
+	private static final int TRUES_SHIFT = 2 * BITS;
+	private static final int EPOCH_SHIFT = 3 * BITS;
+	private static final long EPOCH_MASK = (1L << (64 - EPOCH_SHIFT)) - 1;
+	//Longs between cells, so that each is on its own cache line
+	private static final int STRIDE = 16;
+
+	private final Algorithm rule;//Only used under the lock
+	private final int stripes;
+	private final AtomicLongArray cells;
+	private volatile boolean isDecided = false;
+	private int epoch = 0;//Guarded by the lock
+	private Conclusion conclusion = null;
+
+	public ConcurrentRule(Algorithm rule){
+		this(rule, 2 * Runtime.getRuntime().availableProcessors());
+	}
+
+	public ConcurrentRule(Algorithm rule, int stripes){
+		/*
+		 * rule belongs to this afterwards, stripes is rounded up to a power of 2
+		 */
+		if(stripes <= 0) throw new Error("stripes MUST be > 0. stripes: " + stripes);
+		int s = 1;
+		while(s < stripes) s = s * 2;
+		this.rule = rule;
+		this.stripes = s;
+		this.cells = new AtomicLongArray(s * STRIDE);
+		synchronized(this){
+			this.nextEpoch();
+		}
+	}
+
+	public boolean isDecided(){ return this.isDecided; }
+
+	public synchronized Conclusion getConclusion(){
+		//null until the rule has decided, and for skipped rules and estimates
+		return this.conclusion;
+	}
+
+	public synchronized int getTotalSamples(){
+		//Samples counted so far
+		int n = this.rule.getTotalSamples();
+		for(int i = 0; i < this.stripes; i++) n += (int) ((this.cells.get(i * STRIDE) >>> USED_SHIFT) & MASK);
+		return n;
+	}
+
+	public synchronized Algorithm getRule(){
+		/*
+		 * The rule has the counts of the last check, which are all the samples once it has decided
+		 */
+		return this.rule;
+	}
+
+	public Outcome update(boolean isTrue){
+		int index = ((int) Thread.currentThread().getId() & (this.stripes - 1)) * STRIDE;
+		long increment = isTrue ? (1L << USED_SHIFT) + (1L << TRUES_SHIFT) : 1L << USED_SHIFT;
+		while(true){
+			if(this.isDecided) return Outcome.REJECTED;
+			long cell = this.cells.get(index);
+			long used = (cell >>> USED_SHIFT) & MASK;
+			long quota = cell & MASK;
+			if(used < quota){
+				if(!this.cells.compareAndSet(index, cell, cell + increment)) continue;
+				if(used + 1 < quota || !this.isExhausted()) return Outcome.ACCEPTED;
+				//Possibly the last sample of the budget
+				return this.check(cell >>> EPOCH_SHIFT) ? Outcome.DECIDED : Outcome.ACCEPTED;
+			}
+			if(!this.steal(index, cell >>> EPOCH_SHIFT)){
+				//The budget is used up and the thread that used it up is checking the rule
+				Thread.yield();
+			}
+		}
+	}
+
+	private boolean steal(int index, long epoch){
+		/*
+		 * Moves half of the quota left in another cell of the same epoch to the cell at index
+		 * Returns FALSE if there was nothing to take
+		 */
+		for(int j = 1; j < this.stripes; j++){
+			int other = (index + j * STRIDE) & (this.stripes * STRIDE - 1);
+			long cell = this.cells.get(other);
+			if((cell >>> EPOCH_SHIFT) != epoch) return true;//A new budget, retry
+			long free = (cell & MASK) - ((cell >>> USED_SHIFT) & MASK);
+			if(free <= 0) continue;
+			long take = (free + 1) / 2;
+			if(!this.cells.compareAndSet(other, cell, cell - take)) return true;
+			while(true){
+				long own = this.cells.get(index);
+				//If a new budget has started meanwhile, the quota is dropped, which only brings the next check forward
+				if((own >>> EPOCH_SHIFT) != epoch) return true;
+				if(this.cells.compareAndSet(index, own, own + take)) return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean isExhausted(){
+		for(int i = 0; i < this.stripes; i++){
+			long cell = this.cells.get(i * STRIDE);
+			if(((cell >>> USED_SHIFT) & MASK) < (cell & MASK)) return false;
+		}
+		return true;
+	}
+
+	private synchronized boolean check(long epoch){
+		/*
+		 * Adds the samples of the budget to the rule and checks it, if no other thread has done so yet
+		 * A quota in flight between two cells may make this run before the whole budget is used, which is only
+		 * an earlier check
+		 * Returns TRUE if the rule decided
+		 */
+		if(this.isDecided || epoch != (this.epoch & EPOCH_MASK) || !this.isExhausted()) return false;
+		/*
+		 * Each cell is swapped for an empty one of the next epoch, so that a sample in flight either is in the
+		 * swapped value or fails its compare-and-set and retries on the next budget
+		 */
+		this.epoch++;
+		long closed = (this.epoch & EPOCH_MASK) << EPOCH_SHIFT;
+		int total = 0;
+		int trues = 0;
+		for(int i = 0; i < this.stripes; i++){
+			long cell = this.cells.getAndSet(i * STRIDE, closed);
+			total += (int) ((cell >>> USED_SHIFT) & MASK);
+			trues += (int) ((cell >>> TRUES_SHIFT) & MASK);
+		}
+		this.rule.update(trues, total);
+		return this.nextEpoch();
+	}
+
+	private boolean nextEpoch(){
+		/*
+		 * Adds the budget of the next samples to the empty cells of the current epoch, or leaves them empty once
+		 * the rule has decided
+		 * The quota is added rather than set, as threads may already move quota between the cells it was added to
+		 * Returns TRUE if the rule decided
+		 */
+		if(!this.rule.obtainAnotherSample()){
+			//Published even if concluding fails, the cells are empty and the other threads would wait for a budget
+			try{
+				this.conclusion = this.rule.getConclusionOrNull();
+			}finally{
+				this.isDecided = true;
+			}
+			return true;
+		}
+		//At most MASK in all, so that no cell can overflow its quota however it is moved around
+		long budget = Math.min(this.rule.minAdditionalSamples(), MASK);
+		for(int i = 0; i < this.stripes; i++){
+			long quota = budget / this.stripes + (i < budget % this.stripes ? 1 : 0);
+			if(quota > 0) this.cells.getAndAdd(i * STRIDE, quota);
+		}
+		return false;
+	}
+}
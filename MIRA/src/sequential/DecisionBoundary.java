@@ -0,0 +1,158 @@
+package sequential;
+
+/*
+ * Integer form of one acceptance test (acceptH0, acceptH1, acceptH0prime, acceptH1prime or the Younes A tests)
+ *
+ * For a fixed number of samples n, the test
+ *   [k * trueLog] + [(n - k) * falseLog] >= (or <=) constant + k * sharedTrueLog + (n - k) * sharedFalseLog
+ * is monotone in the number of true samples k. Hence it holds either for k <= threshold(n) (H1 and H1prime)
+ * or for k >= threshold(n) (H0 and H0prime). The threshold is the root of a line in k, which gives it up to
+ * rounding, and it is then corrected with the same floating point expression as Algorithm.leftHandValue.
+ * Nothing is stored per n, so a boundary takes constant memory however long the run is.
+ * 
+ * The only exception are the ends k = 0 and k = n when a shared log term is infinite, since 0 * log(0) on the 
+ * right hand side is NaN and the test fails there. These ends are excluded from the threshold and checked apart.
+ */
+class DecisionBoundary {
+	private double trueLog;              //Log term for true samples on the left hand side
+	private double falseLog;             //Log term for false samples on the left hand side
+	private final double sharedTrueLog;  //Log term for true samples on the right hand side
+	private final double sharedFalseLog; //Log term for false samples on the right hand side
+	private final double constant;       //Constant on the right hand side
+	private final boolean isGreaterEqual;//TRUE if the test is lhs >= rhs, FALSE if it is lhs <= rhs
+	private final boolean isLowerBound;  //TRUE if the test holds for k <= threshold, FALSE if for k >= threshold
+	private final boolean failsAtNoTrue; //Test is NaN at k = 0
+	private final boolean failsAtAllTrue;//Test is NaN at k = n
+	private double slope;                //lhs - rhs = slope * k + intercept * n - constant
+	private double intercept;
+
+	private int lastN = -1;//n of the latest threshold
+	private int lastThreshold;
+
+	DecisionBoundary(double trueLog, double falseLog, double sharedTrueLog, double sharedFalseLog, double constant,
+			boolean isGreaterEqual, boolean isLowerBound){
+		this.trueLog = trueLog;
+		this.falseLog = falseLog;
+		this.sharedTrueLog = sharedTrueLog;
+		this.sharedFalseLog = sharedFalseLog;
+		this.constant = constant;
+		this.isGreaterEqual = isGreaterEqual;
+		this.isLowerBound = isLowerBound;
+		this.failsAtNoTrue = Double.isInfinite(sharedTrueLog);
+		this.failsAtAllTrue = Double.isInfinite(sharedFalseLog);
+		this.setLeftHandLogs(trueLog, falseLog);
+	}
+
+	void setLeftHandLogs(double trueLog, double falseLog){
+		/*
+		 * Only the left hand side depends on delta, so Mira reuses its boundaries when delta is reduced
+		 */
+		this.trueLog = trueLog;
+		this.falseLog = falseLog;
+		this.slope = (trueLog - this.sharedTrueLog) - (falseLog - this.sharedFalseLog);
+		this.intercept = falseLog - this.sharedFalseLog;
+		this.lastN = -1;
+	}
+
+	double getTrueLog(){ return this.trueLog; }
+	double getFalseLog(){ return this.falseLog; }
+	double getSharedTrueLog(){ return this.sharedTrueLog; }
+	double getSharedFalseLog(){ return this.sharedFalseLog; }
+	double getConstant(){ return this.constant; }
+
+	boolean holds(int n, int k){
+		if(k == 0 && this.failsAtNoTrue) return false;
+		if(k == n && this.failsAtAllTrue) return false;
+		if(this.isLowerBound) return k <= this.threshold(n);
+		else return k >= this.threshold(n);
+	}
+
+	boolean holdsForSome(int n, int kMin, int kMax){
+		/*
+		 * Whether the test holds for some k in [kMin, kMax] at n
+		 * By monotonicity only the k nearest to where the test holds is tested, and no threshold is stored
+		 */
+		if(this.isLowerBound){
+			int k = Math.max(kMin, this.first(n));
+			return k <= Math.min(kMax, this.last(n)) && this.test(n, k);
+		}else{
+			int k = Math.min(kMax, this.last(n));
+			return k >= Math.max(kMin, this.first(n)) && this.test(n, k);
+		}
+	}
+
+	int threshold(int n){
+		/*
+		 * Lower bound: largest k that passes the test, one below the range if none
+		 * Upper bound: smallest k that passes the test, one above the range if none
+		 * The range is [0, n] without the ends that are NaN, see holds
+		 */
+		if(n == this.lastN) return this.lastThreshold;
+		double root = (this.constant - this.intercept * n) / this.slope;
+		int threshold;
+		if(root != root || Double.isInfinite(root)) threshold = this.search(n);//Logs at 0 or 1
+		else threshold = this.walk(n, root);
+		this.lastN = n;
+		this.lastThreshold = threshold;
+		return threshold;
+	}
+
+	boolean test(int n, int k){
+		/*
+		 * Same expression as leftHandValue compared against the accept constant plus the shared constant
+		 */
+		int falseSamples = n - k;
+		double peak_1 = 0.0;
+		if(k > 0) peak_1 = k * this.trueLog;
+		double peak_2 = 0.0;
+		if(falseSamples > 0) peak_2 = falseSamples * this.falseLog;
+		double leftHandValue = peak_1 + peak_2;
+		double rightHandValue = this.constant + (k * this.sharedTrueLog + falseSamples * this.sharedFalseLog);
+		if(this.isGreaterEqual) return leftHandValue >= rightHandValue;
+		else return leftHandValue <= rightHandValue;
+	}
+
+	private int search(int n){
+		//Bisection over [first, last] with sentinels at first - 1 and last + 1
+		int lo = this.first(n) - 1;
+		int hi = this.last(n) + 1;
+		while(hi - lo > 1){
+			int mid = (lo + hi) >>> 1;
+			if(this.test(n, mid) == this.isLowerBound) lo = mid;
+			else hi = mid;
+		}
+		if(this.isLowerBound) return lo;
+		else return hi;
+	}
+
+	private int walk(int n, double root){
+		/*
+		 * The root is off by rounding only, so a few steps from it find the threshold
+		 */
+		int first = this.first(n);
+		int last = this.last(n);
+		if(this.isLowerBound){
+			int k = (int)Math.floor(Math.min(Math.max(root, first - 1), last));
+			while(k < last && this.test(n, k + 1)) k++;
+			while(k >= first && !this.test(n, k)) k--;
+			return k;
+		}else{
+			int k = (int)Math.ceil(Math.min(Math.max(root, first), last + 1));
+			while(k > first && this.test(n, k - 1)) k--;
+			while(k <= last && !this.test(n, k)) k++;
+			return k;
+		}
+	}
+	
+	private int first(int n){
+		//Smallest k that is not NaN
+		if(this.failsAtNoTrue) return 1;
+		else return 0;
+	}
+	
+	private int last(int n){
+		//Largest k that is not NaN
+		if(this.failsAtAllTrue) return n - 1;
+		else return n;
+	}
+}
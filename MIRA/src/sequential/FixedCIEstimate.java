@@ -1,7 +1,5 @@
 package sequential;
 
-import org.apache.commons.math.distribution.NormalDistributionImpl;
-
 public class FixedCIEstimate extends Algorithm{
 	private double ciHalfWidth;
 	
@@ -16,32 +14,64 @@ public class FixedCIEstimate extends Algorithm{
 		this.ciHalfWidth = cihalfWidth;
 	}
 	
+	double getCIHalfWidth(){ return this.ciHalfWidth; }
+	
 	@Override
 	protected boolean obtainAnotherSampleSpecific(){
 		//Delta is used as CI Half Width
-		try{
-			NormalDistributionImpl normal = new NormalDistributionImpl();								
-			double z = normal.inverseCumulativeProbability(this.alpha/2.0) * -1;
-			double mathPowerZ2 = Math.pow(z, 2);
-			return !(this.computeCIHalfWidth(z, mathPowerZ2) <= this.ciHalfWidth);
-		}catch(Exception e){e.printStackTrace(); throw new Error();}
+		//Same z as computeWilsonInterval, so sampling stops once the reported half width is small enough
+		double z = this.computeZ(this.getConfidence());
+		double mathPowerZ2 = Math.pow(z, 2);
+		return !(this.computeCIHalfWidth(z, mathPowerZ2) <= this.ciHalfWidth);
+	}
+	
+	@Override
+	protected boolean canStopAfter(int m){
+		/*
+		 * For a given number of samples the half width is lowest at the extremes, m true or m false samples
+		 * From any (n, k) that stops, adding the more frequent outcome does not increase the half width,
+		 * so once a stop is reachable it stays reachable as m grows
+		 */
+		double z = this.computeZ(this.getConfidence());
+		double mathPowerZ2 = Math.pow(z, 2);
+		int n = this.totalSamples + m;
+		return this.computeCIHalfWidth(n, this.trueSamples, z, mathPowerZ2) <= this.ciHalfWidth || 
+				this.computeCIHalfWidth(n, this.trueSamples + m, z, mathPowerZ2) <= this.ciHalfWidth;
 	}
 	
 	private double computeCIHalfWidth(double z, double mathPowerZ2){
+		return this.computeCIHalfWidth(this.totalSamples, this.trueSamples, z, mathPowerZ2);
+	}
+	
+	private double computeCIHalfWidth(int totalSamples, int trueSamples, double z, double mathPowerZ2){
 		/*
 		 * Compute the Confidence Interval
 		 * Note: Used the Wilson Score Interval (Google it for more information)
 		 */
 		try{					
-			double p = (this.trueSamples + 0.0) / this.totalSamples;
-			double innerLeftHand = (p * (1 - p) / this.totalSamples);
-			double innerRightHand = mathPowerZ2 / (4 * this.totalSamples * this.totalSamples);
+			double p = (trueSamples + 0.0) / totalSamples;
+			double innerLeftHand = (p * (1 - p) / totalSamples);
+			double innerRightHand = mathPowerZ2 / (4 * totalSamples * totalSamples);
 			double rightHandTop = z * Math.sqrt(innerLeftHand + innerRightHand);
-			double rightHandBottom = (1 + (mathPowerZ2 / this.totalSamples));
+			double rightHandBottom = (1 + (mathPowerZ2 / totalSamples));
 			return rightHandTop / rightHandBottom;
 		}catch(Exception e){e.printStackTrace(); throw new Error("Problem with Computing CI Half Width");}
 	}
 	
+	@Override
+	protected double expectedRemainingSamples(double p){
+		/*
+		 * The Wilson half width at n samples of proportion p, z / (n + z^2) * sqrt(n p (1 - p) + z^2 / 4), is the
+		 * target w at the larger root of w^2 n^2 + (2 w^2 z^2 - z^2 p (1 - p)) n + w^2 z^4 - z^4 / 4 = 0
+		 */
+		double z2 = Math.pow(this.computeZ(this.getConfidence()), 2);
+		double w2 = this.ciHalfWidth * this.ciHalfWidth;
+		double b = 2 * w2 * z2 - z2 * p * (1 - p);
+		double c = w2 * z2 * z2 - z2 * z2 / 4;
+		double n = (-b + Math.sqrt(b * b - 4 * w2 * c)) / (2 * w2);
+		return Math.max(0.0, n - this.totalSamples);
+	}
+
 	@Override
 	public Conclusion getConclusion() {
 		throw new Error("Should not call getConclusion for FixedCIEstimate!");
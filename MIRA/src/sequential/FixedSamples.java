@@ -17,6 +17,12 @@ public class FixedSamples extends Algorithm{
 	protected boolean obtainAnotherSampleSpecific(){
 		return true;//continue sampling until max number of samples is reached
 	}
+	
+	@Override
+	protected boolean canStopAfter(int m){
+		//Only maxSamples stops it, which minAdditionalSamples() accounts for
+		return false;
+	}
 
 	@Override
 	public Conclusion getConclusion() {
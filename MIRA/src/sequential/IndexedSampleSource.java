@@ -0,0 +1,10 @@
+package sequential;
+
+/*
+ * A SampleSource whose samples can be drawn out of order by many threads, e.g. a simulator seeded by the index
+ * The outcome of a sample must only depend on its index, so that it does not matter which thread draws it or when
+ */
+public interface IndexedSampleSource {
+	//Draws sample index (0 for the first), TRUE if the property held on it; called from many threads at once
+	public boolean nextSample(int index);
+}
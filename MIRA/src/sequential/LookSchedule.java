@@ -0,0 +1,91 @@
+package sequential;
+
+import java.util.Arrays;
+
+/*
+ * Sample sizes at which a group-sequential rule checks its boundaries, e.g. the ends of the batches a cluster
+ * delivers
+ *
+ * The looks are the given cumulative sample sizes, followed by a look every `every` samples after the last of
+ * them. A rule with a look schedule takes whole groups: obtainAnotherSample() is TRUE between looks, so it never
+ * stops between them except at maxSamples, which is always a look, and minAdditionalSamples() reaches to the next
+ * look at least.
+ */
+public class LookSchedule {
+	private final int[] looks;//Cumulative sample sizes of the first looks, increasing
+	private final int every;  //Samples between the looks after the last of looks
+
+	public LookSchedule(int every, int... looks){
+		if(every <= 0) throw new Error("every MUST be > 0. every: " + every);
+		for(int i = 0; i < looks.length; i++){
+			if(looks[i] <= (i == 0 ? 0 : looks[i - 1])) throw new Error("looks MUST be > 0 and increasing at look " + i + ": " + looks[i]);
+		}
+		this.every = every;
+		this.looks = looks.clone();
+	}
+
+	public static LookSchedule every(int k){
+		//A look every k samples
+		return new LookSchedule(k);
+	}
+
+	public static LookSchedule parse(String schedule){
+		/*
+		 * "k" for a look every k samples, or "n1,n2,...,nj" for looks at n1 < n2 < ... < nj, and then every
+		 * nj - n(j-1) samples
+		 */
+		String[] tokens = schedule.split(",");
+		int[] looks = new int[tokens.length - 1];
+		for(int i = 0; i < looks.length; i++) looks[i] = Integer.parseInt(tokens[i].trim());
+		int last = Integer.parseInt(tokens[tokens.length - 1].trim());
+		if(looks.length == 0) return every(last);
+		return new LookSchedule(last - looks[looks.length - 1], looks);
+	}
+
+	public int getEvery(){ return this.every; }
+	public int[] getLooks(){ return this.looks.clone(); }
+
+	public boolean isLook(int n){
+		return n > 0 && this.nextLook(n) == n;
+	}
+
+	public int nextLook(int n){
+		/*
+		 * Smallest look >= n, or Integer.MAX_VALUE if it is beyond int
+		 */
+		for(int look : this.looks){
+			if(look >= n) return look;
+		}
+		long last = this.looks.length == 0 ? 0 : this.looks[this.looks.length - 1];
+		long next = n <= last ? last + this.every : last + ((n - last + this.every - 1L) / this.every) * this.every;
+		return next > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) next;
+	}
+
+	public int getMinGroupSize(){
+		//Fewest samples between two looks
+		int min = this.every;
+		for(int i = 0; i < this.looks.length; i++) min = Math.min(min, this.looks[i] - (i == 0 ? 0 : this.looks[i - 1]));
+		return min;
+	}
+
+	@Override
+	public boolean equals(Object other){
+		if(!(other instanceof LookSchedule)) return false;
+		LookSchedule schedule = (LookSchedule) other;
+		return this.every == schedule.every && Arrays.equals(this.looks, schedule.looks);
+	}
+
+	@Override
+	public int hashCode(){
+		return 31 * this.every + Arrays.hashCode(this.looks);
+	}
+
+	@Override
+	public String toString(){
+		//In the form read by parse()
+		if(this.looks.length == 0) return Integer.toString(this.every);
+		StringBuilder s = new StringBuilder();
+		for(int look : this.looks) s.append(look).append(',');
+		return s.append((long) this.looks[this.looks.length - 1] + this.every).toString();
+	}
+}
@@ -1,12 +1,6 @@
 package sequential;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
-import java.util.ArrayList;
-import java.util.List;
-
-import org.apache.commons.math.special.Gamma;
 
 public class Mira extends Algorithm{
 	private int minSamples;
@@ -16,8 +10,16 @@ public class Mira extends Algorithm{
 	private double gamma;
 	//H0: p > theta - True probability greater than theta 
 	//H1: p < theta - True probability lesser than theta
-	private Double h0pValue = -1.0;
-	private Double h1pValue = -1.0;
+	private double h0pValue = -1.0;
+	private double h1pValue = -1.0;
+	private int pValueTotalSamples = -1;//totalSamples of the cached p-values
+	private int pValueTrueSamples = -1; //trueSamples of the cached p-values
+	private BinomialTail pValueTail;    //Tails of Binomial(totalSamples, theta) at trueSamples
+	//Integer form of acceptH0, acceptH1, acceptH0prime and acceptH1prime for the current delta
+	private DecisionBoundary h0Boundary;
+	private DecisionBoundary h1Boundary;
+	private DecisionBoundary h0primeBoundary;
+	private DecisionBoundary h1primeBoundary;
 	
 	public double getLowestPValue(){
 		double h0 = this.getH0pValue();
@@ -27,16 +29,12 @@ public class Mira extends Algorithm{
 	}
 	
 	public double getH0pValue(){
-		if(this.h0pValue == -1.0){
-			this.computePValues();
-		}
+		this.computePValues();
 		return this.h0pValue;
 	}
 	
 	public double getH1pValue(){
-		if(this.h1pValue == -1.0){
-			this.computePValues();
-		}
+		this.computePValues();
 		return this.h1pValue;
 	}
 	
@@ -53,6 +51,52 @@ public class Mira extends Algorithm{
 		//Proven Mathematically that Gamma needs to be less than or equal to alpha and beta to ensure error rate of alpha and beta
 		this.gamma = Math.min(alpha, beta);
 		this.adjustAndCheck(this.gamma);
+		this.compileBoundaries();
+	}
+	
+	double getDelta(){ return this.delta; }
+	
+	@Override
+	int getPathState(){
+		//Number of times delta has been halved, delta is exactly 2^-state
+		return -Math.getExponent(this.delta);
+	}
+	
+	@Override
+	void setPathState(int state){
+		this.delta = Math.scalb(1.0, -state);
+		this.compileBoundaries();
+	}
+	double getGamma(){ return this.gamma; }
+	DecisionBoundary getH0Boundary(){ return this.h0Boundary; }
+	DecisionBoundary getH1Boundary(){ return this.h1Boundary; }
+	DecisionBoundary getH0primeBoundary(){ return this.h0primeBoundary; }
+	DecisionBoundary getH1primeBoundary(){ return this.h1primeBoundary; }
+	
+	private void compileBoundaries(){
+		/*
+		 * Recompiled whenever delta is reduced
+		 * theta == 1.0 is handled separately and does not use the boundaries
+		 */
+		if(this.theta == 1.0) return;
+		if(this.h0Boundary != null){
+			//Reused, so that reducing delta does not allocate
+			double trueLog = this.leftHandLog(false, true, this.delta);
+			double falseLog = this.leftHandLog(false, false, this.delta);
+			double trueLogPrime = this.leftHandLog(true, true, this.delta);
+			double falseLogPrime = this.leftHandLog(true, false, this.delta);
+			this.h0Boundary.setLeftHandLogs(trueLog, falseLog);
+			this.h1Boundary.setLeftHandLogs(trueLog, falseLog);
+			this.h0primeBoundary.setLeftHandLogs(trueLogPrime, falseLogPrime);
+			this.h1primeBoundary.setLeftHandLogs(trueLogPrime, falseLogPrime);
+			return;
+		}
+		double sharedTrueLog = Math.log(this.theta);
+		double sharedFalseLog = Math.log(1 - this.theta);
+		this.h0Boundary = this.compileH0(sharedTrueLog, sharedFalseLog, this.delta, this.gamma);
+		this.h1Boundary = this.compileH1(sharedTrueLog, sharedFalseLog, this.delta, this.gamma);
+		this.h0primeBoundary = this.compileH0prime(sharedTrueLog, sharedFalseLog, this.delta, this.gamma);
+		this.h1primeBoundary = this.compileH1prime(sharedTrueLog, sharedFalseLog, this.delta, this.gamma);
 	}
 
 	@Override
@@ -72,34 +116,102 @@ public class Mira extends Algorithm{
 			return true;
 		}
 		
-		double sharedConstant = this.computeSharedConstant();		
-		if((this.acceptH0(sharedConstant, this.delta, this.gamma) && this.acceptH0prime(sharedConstant, this.delta, this.gamma)) || 
-				(this.acceptH1(sharedConstant, this.delta, this.gamma) && this.acceptH1prime(sharedConstant, this.delta, this.gamma))){
-			return false;
-		}else{
-			/*
-			 * This condition imply that "true" value likely to be inside the indifference region					 
-			 */
-			if((this.acceptH0(sharedConstant, this.delta, this.gamma) || this.acceptH1(sharedConstant, this.delta, this.gamma)) && 
-					(this.acceptH0prime(sharedConstant, this.delta, this.gamma) || this.acceptH1prime(sharedConstant, this.delta, this.gamma))){
-				/*
-				 * Reduce delta
-				 * Current reduce strategy is to divide by half
-				 */
-				this.delta = this.delta * 0.5;
-				return obtainAnotherSample();
-			}else{
-				return true;//continue sampling
-			}
-		}
+		int n = this.totalSamples;
+		int k = this.trueSamples;
+		boolean h0 = this.h0Boundary.holds(n, k);
+		boolean h1 = this.h1Boundary.holds(n, k);
+		boolean h0prime = this.h0primeBoundary.holds(n, k);
+		boolean h1prime = this.h1primeBoundary.holds(n, k);
+		if((h0 && h0prime) || (h1 && h1prime)) return false;
+		/*
+		 * This condition imply that "true" value likely to be inside the indifference region					 
+		 */
+		if(!((h0 || h1) && (h0prime || h1prime))) return true;//continue sampling
+		/*
+		 * Reduce delta
+		 * Current reduce strategy is to divide by half, until the condition no longer holds for the current counts
+		 * Only the candidate deltas are evaluated, the boundaries are compiled once for the delta that is kept.
+		 * Delta only decreases, so over a whole run the number of halvings is bounded by the final level, and at
+		 * a small enough delta every accept test fails, which bounds the halvings of a single sample.
+		 */
+		double sharedConstant = k * Math.log(this.theta) + (n - k) * Math.log(1 - this.theta);
+		double delta = this.delta;
+		boolean isDecided;
+		do{
+			delta = delta * 0.5;
+			h0 = this.acceptH0(sharedConstant, delta, this.gamma);
+			h1 = this.acceptH1(sharedConstant, delta, this.gamma);
+			h0prime = this.acceptH0prime(sharedConstant, delta, this.gamma);
+			h1prime = this.acceptH1prime(sharedConstant, delta, this.gamma);
+			isDecided = (h0 && h0prime) || (h1 && h1prime);
+		}while(!isDecided && (h0 || h1) && (h0prime || h1prime));
+		this.delta = delta;
+		this.compileBoundaries();
+		return !isDecided;
 	}
 	
-	private double computeSharedConstant(){
-		if(this.theta == 1.0){
-			return this.trueSamples * Math.log(this.theta) + (this.totalSamples - this.trueSamples) ;
-		}else{
-			return this.trueSamples * Math.log(this.theta) + (this.totalSamples - this.trueSamples) * Math.log(1 - this.theta);
+	@Override
+	protected boolean canStopAfter(int m) {
+		/*
+		 * Mira only stops on H0 && H0prime or H1 && H1prime for some delta <= this.delta
+		 * H0prime needs the likelihood ratio of some p > theta over theta to reach (1 - gamma) / beta and 
+		 * H1 that of some p < theta to reach (1 - gamma) / alpha. The largest of these ratios is at the maximum 
+		 * likelihood estimate, and it only grows along all true (p > theta) or all false (p < theta) samples.
+		 * Delta is also reduced on the samples where (H0 || H1) && (H0prime || H1prime) holds for the current delta,
+		 * so these samples are not skipped either. Each test can only be reached within m samples if it holds 
+		 * at n + m for the true samples between k (all false) and k + m (all true), see YounesA.
+		 */
+		int n = this.totalSamples + m;
+		if(this.minSamples != 0 && n < this.minSamples) return false;
+		if(this.theta == 1.0) return true;
+		//Slack for rounding, since the accept tests are evaluated differently
+		double slack = 1e-9 * (1 + n);
+		double h0primeConstant = Math.log(1 - this.gamma) - Math.log(this.beta);
+		double h1Constant = Math.log(1 - this.gamma) - Math.log(this.alpha);
+		if(this.logMaxLikelihoodRatio(n, this.trueSamples + m, true) >= h0primeConstant - slack || 
+				this.logMaxLikelihoodRatio(n, this.trueSamples, false) >= h1Constant - slack) return true;
+		int kMin = this.trueSamples;
+		int kMax = this.trueSamples + m;
+		return (this.h0Boundary.holdsForSome(n, kMin, kMax) || this.h1Boundary.holdsForSome(n, kMin, kMax)) && 
+				(this.h0primeBoundary.holdsForSome(n, kMin, kMax) || this.h1primeBoundary.holdsForSome(n, kMin, kMax));
+	}
+	
+	private double logMaxLikelihoodRatio(int n, int k, boolean isAbove){
+		/*
+		 * log of the largest likelihood ratio of p over theta for p >= theta (isAbove) or p <= theta
+		 */
+		double p = (k + 0.0) / n;
+		if(isAbove && p <= this.theta) return 0.0;
+		if(!isAbove && p >= this.theta) return 0.0;
+		int falseSamples = n - k;
+		double ratio = 0.0;
+		if(k > 0) ratio += k * Math.log(p / this.theta);
+		if(falseSamples > 0) ratio += falseSamples * Math.log((1 - p) / (1 - this.theta));
+		return ratio;
+	}
+	
+	@Override
+	protected double expectedRemainingSamples(double p){
+		/*
+		 * As YounesB at the current delta
+		 * Mira halves delta while it is unsure, until delta is about as close to theta as p, so delta is taken
+		 * smaller than the current one where p is closer to theta than that
+		 */
+		if(this.theta == 1.0) return Double.NaN;
+		double distance = Math.abs(p - this.theta);
+		if(distance == 0) return Double.POSITIVE_INFINITY;
+		double delta = this.delta;
+		while(delta > distance) delta = delta * 0.5;
+		if(delta == this.delta){
+			return Math.max(this.waldRemainingSamples(this.h1Boundary, this.h0Boundary, p), 
+					this.waldRemainingSamples(this.h0primeBoundary, this.h1primeBoundary, p));
 		}
+		double sharedTrueLog = Math.log(this.theta);
+		double sharedFalseLog = Math.log(1 - this.theta);
+		return Math.max(this.waldRemainingSamples(this.compileH1(sharedTrueLog, sharedFalseLog, delta, this.gamma), 
+				this.compileH0(sharedTrueLog, sharedFalseLog, delta, this.gamma), p), 
+				this.waldRemainingSamples(this.compileH0prime(sharedTrueLog, sharedFalseLog, delta, this.gamma), 
+				this.compileH1prime(sharedTrueLog, sharedFalseLog, delta, this.gamma), p));
 	}
 	
 	public boolean concludeByOSMA(){
@@ -116,97 +228,130 @@ public class Mira extends Algorithm{
 		 * H0: p > theta - True probability greater than theta
 		 * H1: p < theta - True probability lesser than theta 
 		 */
-		double sharedConstant = this.computeSharedConstant();
 		if(this.theta == 1.0){
 			if(this.totalSamples - this.trueSamples > 0) return Conclusion.H1;
 			return decideByPValue();
 		}else{
-			if(this.acceptH0(sharedConstant, this.delta, this.gamma) && this.acceptH0prime(sharedConstant, this.delta, this.gamma)) return Conclusion.H0;
-			if(this.acceptH1(sharedConstant, this.delta, this.gamma) && this.acceptH1prime(sharedConstant, this.delta, this.gamma)) return Conclusion.H1;
+			int n = this.totalSamples;
+			int k = this.trueSamples;
+			if(this.h0Boundary.holds(n, k) && this.h0primeBoundary.holds(n, k)) return Conclusion.H0;
+			if(this.h1Boundary.holds(n, k) && this.h1primeBoundary.holds(n, k)) return Conclusion.H1;
 			return decideByPValue();
 		}
 	}
 	
 	private void computePValues(){
-		List<Double> rArrayList = this.binocdf(this.trueSamples, this.totalSamples, this.theta);
-		Double pValueH0 = 1.0 - rArrayList.get(0);						
-		Double pValueH1;
-		if(rArrayList.size() > 1){
-			pValueH1 = rArrayList.get(1);
-			this.h0pValue = pValueH0;
-			this.h1pValue = pValueH1;
-		}else{
-			throw new Error("Unable to properly compute PValue");
+		/*
+		 * Cached per (totalSamples, trueSamples) since theta is fixed
+		 */
+		if(this.pValueTotalSamples == this.totalSamples && this.pValueTrueSamples == this.trueSamples) return;
+		int c = this.trueSamples;
+		int n = this.totalSamples;
+		if (c < 0 || c > n || n < 1 || this.theta < 0.0 || this.theta > 1.0) {
+			throw new Error("c or n or theta");
 		}
+		if(this.pValueTail == null) this.pValueTail = new BinomialTail(this.theta);
+		this.pValueTail.moveTo(n, c);
+		//P(X >= c), c = 0 keeps the convention of the former binocdf of using P(X >= 1)
+		if(c == 0) this.h0pValue = BinomialTail.upperTail(1, n, this.theta);
+		else this.h0pValue = this.pValueTail.upperTail();
+		//P(X <= c)
+		this.h1pValue = this.pValueTail.lowerTail();
+		this.pValueTotalSamples = n;
+		this.pValueTrueSamples = c;
 	}
 	
 	private Conclusion decideByPValue(){
 		//Decide by PValue
 		this.computePValues();
-		if(this.h1pValue.compareTo(this.h0pValue) < 0) return Conclusion.pValueH1;
-		else if(this.h1pValue.compareTo(this.h0pValue) > 0) return Conclusion.pValueH0;
-		else{
-			System.err.println("Total Samples: " + this.totalSamples);
-			System.err.println("True Samples: " + this.trueSamples);
-			System.err.println("h0pValue: " + this.h0pValue);
-			System.err.println("h1pValue: " + this.h1pValue);
-			throw new Error("Equal PValue - This is rare");
-		}
+		return decideByPValue(this.totalSamples, this.trueSamples, this.theta, this.h0pValue, this.h1pValue);
 	}
 	
-	/* 
-	 * Binomial cumulative distribution function.
-	 * Gotten the pseudo code from Dr Younes via personal communication 
-	 */	
-	private List<Double> binocdf(int c, int n, double theta) {
+	static Conclusion decideByPValue(int totalSamples, int trueSamples, double theta){
+		/*
+		 * Same as decideByPValue() with the p-values computed from scratch, used by RuleBank
+		 * A Mira computes them from scratch too the first time, which is when it is concluded
+		 */
+		int c = trueSamples;
+		int n = totalSamples;
 		if (c < 0 || c > n || n < 1 || theta < 0.0 || theta > 1.0) {
 			throw new Error("c or n or theta");
-		} else {
-			List<Double> rArrayList = new ArrayList<Double>();
-			double q = 1.0 - theta;
-			double lp = Math.log(theta);
-			double lq = Math.log(q);
-			double y = Math.pow(q, n);
-			for (int i = 1; i <= c; i++) {
-				if(i == c){
-					rArrayList.add(Math.min(1.0, y));
-				}
-				double lc = Gamma.logGamma(n + 1) - Gamma.logGamma(n - i + 1) - Gamma.logGamma(i + 1);
-				y += Math.exp(lc + i*lp + (n - i)*lq);
-			}
-			rArrayList.add(Math.min(1.0, y));
-			if(rArrayList.size() == 1){
-				rArrayList.add(rArrayList.get(0).doubleValue());
-			}
-			return rArrayList;
+		}
+		double h0pValue;
+		if(c == 0) h0pValue = BinomialTail.upperTail(1, n, theta);
+		else h0pValue = BinomialTail.upperTail(c, n, theta);
+		double h1pValue = BinomialTail.lowerTail(c, n, theta);
+		return decideByPValue(n, c, theta, h0pValue, h1pValue);
+	}
+	
+	private static Conclusion decideByPValue(int totalSamples, int trueSamples, double theta, 
+			double h0pValue, double h1pValue){
+		if(h1pValue < h0pValue) return Conclusion.pValueH1;
+		else if(h1pValue > h0pValue) return Conclusion.pValueH0;
+		else if(h1pValue == h0pValue){
+			/*
+			 * Exact tie, e.g. theta = 0.5 and trueSamples = totalSamples / 2
+			 * The former summation broke these ties by its rounding error, now they go to pValueH1
+			 */
+			if(theta == 1.0) return Conclusion.pValueH0;//Every sample is true, both p-values are 1
+			return Conclusion.pValueH1;
+		}else{
+			System.err.println("Total Samples: " + totalSamples);
+			System.err.println("True Samples: " + trueSamples);
+			System.err.println("h0pValue: " + h0pValue);
+			System.err.println("h1pValue: " + h1pValue);
+			throw new Error("Unable to compare PValue");
 		}
 	}
 	
 	public static void main(String[] args){
 		try{
-			if(args.length != 4){
-				throw new Error("Need four arguments.\n 1) theta (double) \n 2) alpha (double) \n 3) beta (double) " +
-						"\n 4) textfile with each line being true or false (String)");
+			if(args.length != 4 && args.length != 5){
+				throw new Error("Need four or five arguments.\n 1) theta (double) \n 2) alpha (double) \n 3) beta (double) " +
+						"\n 4) textfile with each line being true or false, or a binary trace written by BinaryTrace (String) " +
+						"\n 5) optional, number of samples in the textfile or fewer to stop there (int)");
 			}
 			double theta = Double.parseDouble(args[0]);
 			double alpha = Double.parseDouble(args[1]);
 			double beta = Double.parseDouble(args[2]);
 			File file = new File(args[3]);
-			
-			String line;
-			List<Boolean> booleanList = new ArrayList<Boolean>();
-			BufferedReader input = new BufferedReader(new FileReader(file));
-			while((line = input.readLine()) != null){
-				booleanList.add(Boolean.parseBoolean(line));
-			}
-			input.close();
-			Mira mira = new Mira(theta, alpha, beta, booleanList.size());
-			for(int i = 0; i < booleanList.size() && mira.obtainAnotherSample(); i++){
-				mira.update(booleanList.get(i));
-			}
+			int maxSamples = args.length == 5 ? Integer.parseInt(args[4]) : 0;
+			Mira mira = new Mira(theta, alpha, beta, maxSamples);
 			System.out.println("Parameters: theta = " + theta + ", alpha = " + alpha + ", beta = " + beta + ", inputFile = " + file.getAbsolutePath());
-			System.out.println("Samples Provided: " + booleanList.size());
+			long bytesRead;
+			if(BinaryTrace.isBinaryTrace(file)){
+				BinaryTrace trace = new BinaryTrace(file);
+				trace.replay(mira);
+				bytesRead = trace.getBytesRead();
+				System.out.println("Provenance: " + trace.getProvenance());
+				System.out.println("Samples Provided: " + trace.getSampleCount());
+			}else{
+				/*
+				 * The trace is read as the samples are needed, so a long trace costs no more memory than a short one
+				 * and is not read past the decision. The end of the trace stops the test as maxSamples would.
+				 */
+				TextTrace trace = new TextTrace(file);
+				boolean isEnd = false;
+				try{
+					while(true){
+						//The end is checked first, as before the last sample was not followed by obtainAnotherSample()
+						if(!trace.hasNextSample()){
+							isEnd = true;
+							break;
+						}
+						if(!mira.obtainAnotherSample()) break;
+						mira.update(trace.nextSample());
+					}
+				}finally{
+					trace.close();
+				}
+				bytesRead = trace.getBytesRead();
+				if(isEnd) System.out.println("Samples Provided: " + trace.getSamplesRead());
+				else if(args.length == 5) System.out.println("Samples Provided: " + maxSamples);
+				else System.out.println("Samples Provided: more than " + trace.getSamplesRead() + ", the rest were not read");
+			}
 			System.out.println("Samples Used: " + mira.getTotalSamples());
+			System.out.println("Bytes Read: " + bytesRead + " of " + file.length());
 			System.out.println("Conclusion: " + mira.getConclusion());
 		}catch(Exception e){e.printStackTrace();}
 	}
@@ -0,0 +1,195 @@
+package sequential;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import sequential.Algorithm.Conclusion;
+
+/*
+ * Exact operating characteristic (probability of each conclusion) and average sample number of a rule for a
+ * given true probability p, in place of Monte Carlo repeats
+ *
+ * The decisions of every algorithm depend only on (totalSamples, trueSamples), and for Mira also on how often delta
+ * has been halved (Algorithm.getPathState). The probability of being at each such state without having stopped is
+ * propagated row by row over n: from (n, k) a true sample leads to (n + 1, k + 1) with probability p and a false
+ * one to (n + 1, k) with probability 1 - p. Mass that stops is added to the rule's conclusion at that state.
+ *
+ * The rows only hold the states that carry at least PRUNE_FACTOR * tolerance, the rest is counted as truncated,
+ * and the propagation ends once the mass that has not stopped is below tolerance. getTruncatedProbability() bounds
+ * the error of every probability, and the average sample number is exact up to the truncated paths.
+ */
+public class OperatingCharacteristic {
+	//States with less mass than this fraction of the tolerance are dropped
+	private static final double PRUNE_FACTOR = 1e-12;
+
+	private final double p;
+	private final double[] conclusionProbability = new double[Conclusion.values().length];
+	private double stoppedProbability = 0.0;
+	private double truncatedProbability = 0.0;
+	private double expectedSamples = 0.0;
+	private int lastN = 0;//Largest n propagated
+
+	public double getP(){ return this.p; }
+	public double getProbability(Conclusion conclusion){ return this.conclusionProbability[conclusion.ordinal()]; }
+	public double getStoppedProbability(){ return this.stoppedProbability; }
+	public double getTruncatedProbability(){ return this.truncatedProbability; }
+	public int getLastN(){ return this.lastN; }
+
+	public double getExpectedSamples(){
+		/*
+		 * Average sample number, where truncated paths count with the n they were truncated at
+		 * Hence exact when nothing is truncated and a lower bound otherwise
+		 */
+		return this.expectedSamples;
+	}
+
+	private OperatingCharacteristic(double p){
+		this.p = p;
+	}
+
+	public static OperatingCharacteristic compute(Algorithm rule, double p, double tolerance){
+		return compute(rule, p, tolerance, Integer.MAX_VALUE);
+	}
+
+	public static OperatingCharacteristic compute(Algorithm rule, double p, double tolerance, int maxN){
+		/*
+		 * rule should not have been sampled yet and is used as a probe of its own decisions
+		 * Its counts and path state are restored afterwards
+		 * Estimates (Operator.QUESTION) have no conclusion, for them only the sample numbers are computed
+		 * Propagation ends at maxN at the latest, any mass left there is truncated
+		 * Rules without maxSamples may stop only very slowly at p = theta (BayesianA for one), bound them with maxN
+		 */
+		if(p < 0.0 || p > 1.0) throw new Error("p MUST be >= 0 and <= 1. p: " + p);
+		if(tolerance <= 0.0 || tolerance >= 1.0) throw new Error("tolerance MUST be > 0 and < 1. tolerance: " + tolerance);
+		int totalSamples = rule.totalSamples;
+		int trueSamples = rule.trueSamples;
+		int pathState = rule.getPathState();
+		OperatingCharacteristic result = new OperatingCharacteristic(p);
+		try{
+			result.propagate(rule, tolerance, maxN);
+		}finally{
+			rule.totalSamples = totalSamples;
+			rule.trueSamples = trueSamples;
+			rule.setPathState(pathState);
+		}
+		return result;
+	}
+
+	private void propagate(Algorithm rule, double tolerance, int maxN){
+		double q = 1 - this.p;
+		double prune = tolerance * PRUNE_FACTOR;
+		boolean hasConclusion = rule.hasConclusion();
+		List<Segment> row = new ArrayList<Segment>();
+		Segment start = new Segment(rule.getPathState(), 0, 0);
+		start.mass[0] = 1.0;
+		row.add(start);
+		for(int n = 0; ; n++){
+			this.lastN = n;
+			//Keyed by path state
+			Map<Integer, Segment> next = new HashMap<Integer, Segment>();
+			double remaining = 0.0;
+			for(Segment segment : row){
+				rule.setPathState(segment.state);
+				for(int k = segment.lo; k <= segment.hi; k++){
+					double mass = segment.mass[k - segment.lo];
+					if(mass == 0.0) continue;
+					if(mass < prune){
+						this.truncate(mass, n);
+						continue;
+					}
+					if(rule.getPathState() != segment.state) rule.setPathState(segment.state);
+					rule.totalSamples = n;
+					rule.trueSamples = k;
+					if(!rule.obtainAnotherSample()){
+						this.stoppedProbability += mass;
+						this.expectedSamples += mass * n;
+						if(hasConclusion) this.conclusionProbability[rule.getConclusion().ordinal()] += mass;
+						continue;
+					}
+					if(n == maxN){
+						this.truncate(mass, n);
+						continue;
+					}
+					//obtainAnotherSample may have moved Mira to a smaller delta
+					int state = rule.getPathState();
+					Segment target = next.get(state);
+					if(target == null){
+						target = new Segment(state, segment.lo, segment.hi + 1);
+						next.put(state, target);
+					}else{
+						target.include(segment.lo, segment.hi + 1);
+					}
+					target.mass[k - target.lo] += mass * q;
+					target.mass[k + 1 - target.lo] += mass * this.p;
+					remaining += mass;
+				}
+			}
+			if(remaining < tolerance){
+				for(Segment segment : next.values()){
+					for(int i = 0; i < segment.mass.length; i++) this.truncate(segment.mass[i], n + 1);
+				}
+				return;
+			}
+			row.clear();
+			for(Segment segment : next.values()){
+				if(this.trim(segment, prune, n + 1)) row.add(segment);
+			}
+		}
+	}
+
+	private boolean trim(Segment segment, double prune, int n){
+		/*
+		 * Truncates the states at either end with less than prune, so that rows only grow as wide as the mass
+		 * Returns FALSE if nothing is left
+		 */
+		int first = 0;
+		while(first < segment.mass.length && segment.mass[first] < prune) this.truncate(segment.mass[first++], n);
+		if(first == segment.mass.length) return false;
+		int last = segment.mass.length - 1;
+		while(segment.mass[last] < prune) this.truncate(segment.mass[last--], n);
+		if(first > 0 || last < segment.mass.length - 1){
+			double[] trimmed = new double[last - first + 1];
+			System.arraycopy(segment.mass, first, trimmed, 0, trimmed.length);
+			segment.hi = segment.lo + last;
+			segment.lo = segment.lo + first;
+			segment.mass = trimmed;
+		}
+		return true;
+	}
+
+	private void truncate(double mass, int n){
+		this.truncatedProbability += mass;
+		this.expectedSamples += mass * n;
+	}
+
+	private static class Segment {
+		/*
+		 * Mass of the states (n, k, state) for k in [lo, hi] of one row
+		 */
+		final int state;
+		int lo;
+		int hi;
+		double[] mass;
+
+		Segment(int state, int lo, int hi){
+			this.state = state;
+			this.lo = lo;
+			this.hi = hi;
+			this.mass = new double[hi - lo + 1];
+		}
+
+		void include(int lo, int hi){
+			//Widen to [min(lo), max(hi)]
+			if(lo >= this.lo && hi <= this.hi) return;
+			int newLo = Math.min(lo, this.lo);
+			int newHi = Math.max(hi, this.hi);
+			double[] widened = new double[newHi - newLo + 1];
+			System.arraycopy(this.mass, 0, widened, this.lo - newLo, this.mass.length);
+			this.lo = newLo;
+			this.hi = newHi;
+			this.mass = widened;
+		}
+	}
+}
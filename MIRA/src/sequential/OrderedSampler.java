@@ -0,0 +1,198 @@
+package sequential;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import sequential.Algorithm.Conclusion;
+
+/*
+ * One rule fed by many worker threads, with the samples given to the rule strictly in index order
+ *
+ * Taking the samples in the order they complete would bias the test towards the outcomes that are fast to
+ * simulate, and break its alpha and beta. Here the workers draw sample indices from a counter and put the
+ * outcomes in a reorder buffer, a ring of capacity slots, from which the calling thread gives them to the rule in
+ * index order. The rule sees the same samples in the same order as it would from one thread.
+ *
+ * Workers only draw indices below consumed + window, where consumed is the number of samples given to the rule
+ * and the window is minAdditionalSamples() of the rule, at least one per worker and at most the capacity. The
+ * samples in flight thus follow the need the rule predicts, and few are drawn past a decision. Once the rule has
+ * decided the workers are cancelled, interrupting samples in progress.
+ */
+public class OrderedSampler {
+	private final Algorithm rule;
+	private final IndexedSampleSource source;
+	private final int mask;
+	private final boolean[] outcomes;//Ring of the reorder buffer, by index & mask
+	private final int[] ready;       //index + 1 once outcomes holds sample index
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition workAvailable = this.lock.newCondition();
+	private final Condition outcomeReady = this.lock.newCondition();
+	//Guarded by lock
+	private int consumed = 0;    //Samples given to the rule
+	private int dispatched = 0;  //Indices handed to workers
+	private int limit = 0;       //Indices below limit may be handed out
+	private boolean isDone = false;
+	private Throwable failure = null;
+
+	public OrderedSampler(Algorithm rule, IndexedSampleSource source, int capacity){
+		/*
+		 * capacity is rounded up to a power of 2
+		 * Sample index i is given to rule as its (getTotalSamples() at the start + i)-th sample
+		 */
+		if(capacity <= 0) throw new Error("capacity MUST be > 0. capacity: " + capacity);
+		int c = 1;
+		while(c < capacity) c = c * 2;
+		this.rule = rule;
+		this.source = source;
+		this.mask = c - 1;
+		this.outcomes = new boolean[c];
+		this.ready = new int[c];
+	}
+
+	public Algorithm getRule(){ return this.rule; }
+
+	public int getSamplesDispatched(){
+		//Samples handed to workers, of which getSamplesDispatched() - getRule().getTotalSamples() were not needed
+		this.lock.lock();
+		try{
+			return this.dispatched;
+		}finally{
+			this.lock.unlock();
+		}
+	}
+
+	public Conclusion run(int workers){
+		/*
+		 * Runs the rule to its decision on a pool of its own
+		 */
+		ExecutorService executor = Executors.newFixedThreadPool(workers);
+		try{
+			return this.run(executor, workers);
+		}finally{
+			executor.shutdownNow();
+		}
+	}
+
+	public Conclusion run(ExecutorService executor, int workers){
+		/*
+		 * Runs the rule to its decision with workers tasks on executor, and returns its conclusion, null for
+		 * estimates (Operator.QUESTION) and skipped rules, read the rule instead
+		 * A sampler is run once
+		 */
+		if(workers <= 0) throw new Error("workers MUST be > 0. workers: " + workers);
+		if(workers > this.outcomes.length){
+			throw new Error("workers MUST be <= capacity. workers: " + workers + " capacity: " + this.outcomes.length);
+		}
+		if(!this.rule.obtainAnotherSample()) return this.rule.getConclusionOrNull();
+		this.lock.lock();
+		try{
+			if(this.dispatched > 0 || this.isDone) throw new Error("OrderedSampler can only be run once");
+			this.limit = this.window(workers);
+		}finally{
+			this.lock.unlock();
+		}
+		List<Future<?>> futures = new ArrayList<Future<?>>(workers);
+		try{
+			for(int i = 0; i < workers; i++){
+				futures.add(executor.submit(new Runnable(){
+					public void run(){
+						OrderedSampler.this.work();
+					}
+				}));
+			}
+			this.consume(workers);
+		}finally{
+			this.lock.lock();
+			try{
+				this.isDone = true;
+				this.workAvailable.signalAll();
+			}finally{
+				this.lock.unlock();
+			}
+			for(Future<?> future : futures) future.cancel(true);
+		}
+		return this.rule.getConclusionOrNull();
+	}
+
+	private int window(int workers){
+		return Math.max(workers, Math.min(this.outcomes.length, this.rule.minAdditionalSamples()));
+	}
+
+	private void consume(int workers){
+		while(true){
+			int from;
+			int to;
+			this.lock.lock();
+			try{
+				from = this.consumed;
+				while(this.ready[from & this.mask] != from + 1){
+					if(this.failure != null) throw new Error("Sampling failed", this.failure);
+					this.outcomeReady.awaitUninterruptibly();
+				}
+				to = from + 1;
+				while(to < this.dispatched && this.ready[to & this.mask] == to + 1) to++;
+			}finally{
+				this.lock.unlock();
+			}
+			//The slots [from, to) are not written again until limit moves past them
+			boolean isDecided = false;
+			for(int i = from; i < to && !isDecided; i++){
+				this.rule.update(this.outcomes[i & this.mask]);
+				isDecided = !this.rule.obtainAnotherSample();
+			}
+			if(isDecided) return;
+			this.lock.lock();
+			try{
+				this.consumed = to;
+				int limit = to + this.window(workers);
+				if(limit > this.limit){
+					this.limit = limit;
+					this.workAvailable.signalAll();
+				}
+			}finally{
+				this.lock.unlock();
+			}
+		}
+	}
+
+	private void work(){
+		try{
+			while(true){
+				int index;
+				this.lock.lock();
+				try{
+					while(!this.isDone && this.dispatched >= this.limit) this.workAvailable.await();
+					if(this.isDone) return;
+					index = this.dispatched++;
+				}finally{
+					this.lock.unlock();
+				}
+				boolean outcome = this.source.nextSample(index);
+				this.lock.lock();
+				try{
+					if(this.isDone) return;
+					this.outcomes[index & this.mask] = outcome;
+					this.ready[index & this.mask] = index + 1;
+					if(index == this.consumed) this.outcomeReady.signal();
+				}finally{
+					this.lock.unlock();
+				}
+			}
+		}catch(InterruptedException e){
+			//Cancelled once the rule has decided
+		}catch(Throwable e){
+			this.lock.lock();
+			try{
+				if(this.failure == null) this.failure = e;
+				this.outcomeReady.signal();
+			}finally{
+				this.lock.unlock();
+			}
+		}
+	}
+}
@@ -0,0 +1,326 @@
+package sequential;
+
+import sequential.Algorithm.Conclusion;
+
+/*
+ * Many YounesA, YounesB, Mira and BayesianB rules kept in primitive parallel arrays
+ *
+ * Each rule is added as a copy of an Algorithm, including its samples so far, and then decides exactly as the
+ * Algorithm would: the accept tests are the compiled DecisionBoundary tests, evaluated with the same floating
+ * point expression, and the Mira delta reduction and p-values use the same code as Mira.
+ *
+ * update(outcomes) gives one sample to every rule that still needs one and decides it in the same pass, so
+ * thousands of rules cost one loop over contiguous arrays instead of a method call chain per object. Rules that
+ * have stopped are dropped from the active list and cost nothing after that.
+ */
+public class RuleBank {
+	public static enum Type {
+		YOUNES_A, YOUNES_B, MIRA, BAYESIAN_B
+	}
+
+	//Accept tests, in the order of the test arrays
+	private static final int H0 = 0;     //lhs <= rhs
+	private static final int H1 = 1;     //lhs >= rhs
+	private static final int H0PRIME = 2;//lhs >= rhs
+	private static final int H1PRIME = 3;//lhs <= rhs
+
+	private static final byte SAMPLING = 0;
+	private static final byte STOPPED = 1;
+	private static final byte SKIPPED = 2;
+
+	private int size = 0;
+	private byte[] type = new byte[16];      //Type ordinal
+	private byte[] status = new byte[16];    //SAMPLING, STOPPED or SKIPPED
+	private int[] totalSamples = new int[16];
+	private int[] trueSamples = new int[16];
+	private int[] maxSamples = new int[16];
+	private double[] theta = new double[16];
+	private double[] delta = new double[16]; //Current delta of Mira, delta of YounesA and YounesB
+	private double[] alpha = new double[16];
+	private double[] beta = new double[16];
+	private double[] gamma = new double[16];
+	private double[] threshold = new double[16];//Variance threshold of BayesianB
+	//Terms of the accept tests, see DecisionBoundary.test
+	private double[] sharedTrueLog = new double[16];
+	private double[] sharedFalseLog = new double[16];
+	private double[][] trueLog = new double[4][16];
+	private double[][] falseLog = new double[4][16];
+	private double[][] constant = new double[4][16];
+	//Rules with status SAMPLING, in the order they were added
+	private int[] active = new int[16];
+	private int activeCount = 0;
+
+	public int size(){ return this.size; }
+	public Type getType(int rule){ return Type.values()[this.type[rule]]; }
+	public int getTotalSamples(int rule){ return this.totalSamples[rule]; }
+	public int getTrueSamples(int rule){ return this.trueSamples[rule]; }
+	public double getTheta(int rule){ return this.theta[rule]; }
+	public double getDelta(int rule){ return this.delta[rule]; }
+	public boolean getSkipRule(int rule){ return this.status[rule] == SKIPPED; }
+	public int getActiveCount(){ return this.activeCount; }
+	public int getActiveRule(int index){ return this.active[index]; }
+
+	public int add(Algorithm rule){
+		/*
+		 * Adds a copy of the rule and returns its index
+		 * The rule itself is not changed or referenced afterwards
+		 */
+		if(rule.getLookSchedule() != null) throw new Error("RuleBank checks after every sample, it cannot hold group-sequential rules");
+		if(this.size == this.type.length) this.grow();
+		int i = this.size;
+		this.totalSamples[i] = rule.totalSamples;
+		this.trueSamples[i] = rule.trueSamples;
+		this.maxSamples[i] = rule.maxSamples;
+		this.theta[i] = rule.theta;
+		this.alpha[i] = rule.alpha;
+		this.beta[i] = rule.beta;
+		if(rule instanceof YounesA){
+			YounesA younesA = (YounesA) rule;
+			this.type[i] = (byte) Type.YOUNES_A.ordinal();
+			this.store(i, H0, younesA.getH0Boundary());
+			this.store(i, H1, younesA.getH1Boundary());
+			//YounesA stops on H0 || H1, which is (H0 || H1) && (H0prime || H1prime) with these copies
+			this.store(i, H0PRIME, younesA.getH1Boundary());
+			this.store(i, H1PRIME, younesA.getH0Boundary());
+		}else if(rule instanceof YounesB){
+			YounesB younesB = (YounesB) rule;
+			this.type[i] = (byte) Type.YOUNES_B.ordinal();
+			this.gamma[i] = younesB.getGamma();
+			this.store(i, H0, younesB.getH0Boundary());
+			this.store(i, H1, younesB.getH1Boundary());
+			this.store(i, H0PRIME, younesB.getH0primeBoundary());
+			this.store(i, H1PRIME, younesB.getH1primeBoundary());
+		}else if(rule instanceof Mira){
+			Mira mira = (Mira) rule;
+			this.type[i] = (byte) Type.MIRA.ordinal();
+			this.delta[i] = mira.getDelta();
+			this.gamma[i] = mira.getGamma();
+			if(rule.theta != 1.0){
+				this.store(i, H0, mira.getH0Boundary());
+				this.store(i, H1, mira.getH1Boundary());
+				this.store(i, H0PRIME, mira.getH0primeBoundary());
+				this.store(i, H1PRIME, mira.getH1primeBoundary());
+			}
+		}else if(rule instanceof BayesianB){
+			this.type[i] = (byte) Type.BAYESIAN_B.ordinal();
+			this.threshold[i] = ((BayesianB) rule).getThreshold();
+		}else{
+			throw new Error("RuleBank only holds YounesA, YounesB, Mira and BayesianB rules: " +
+					rule.getClass().getName());
+		}
+		this.size++;
+		if(rule.getSkipRule()){
+			this.status[i] = SKIPPED;
+		}else if(this.obtainAnotherSample(i, rule.totalSamples, rule.trueSamples)){
+			this.status[i] = SAMPLING;
+			this.active[this.activeCount++] = i;
+		}else{
+			this.status[i] = STOPPED;
+		}
+		return i;
+	}
+
+	private void store(int i, int test, DecisionBoundary boundary){
+		this.sharedTrueLog[i] = boundary.getSharedTrueLog();
+		this.sharedFalseLog[i] = boundary.getSharedFalseLog();
+		this.trueLog[test][i] = boundary.getTrueLog();
+		this.falseLog[test][i] = boundary.getFalseLog();
+		this.constant[test][i] = boundary.getConstant();
+	}
+
+	public void skipRule(int rule){
+		//Takes effect at the next update
+		this.status[rule] = SKIPPED;
+	}
+
+	public boolean obtainAnotherSample(int rule){
+		return this.status[rule] == SAMPLING;
+	}
+
+	public int update(boolean[] outcomes){
+		/*
+		 * outcomes[i] is the next sample of rule i, it is ignored unless obtainAnotherSample(i)
+		 * Returns the number of rules that need another sample
+		 */
+		int[] active = this.active;
+		int[] totalSamples = this.totalSamples;
+		int[] trueSamples = this.trueSamples;
+		int kept = 0;
+		for(int j = 0; j < this.activeCount; j++){
+			int i = active[j];
+			if(this.status[i] != SAMPLING) continue;//Skipped since the last update
+			int n = totalSamples[i] + 1;
+			int k = trueSamples[i];
+			if(outcomes[i]) k++;
+			totalSamples[i] = n;
+			trueSamples[i] = k;
+			if(this.obtainAnotherSample(i, n, k)) active[kept++] = i;
+			else this.status[i] = STOPPED;
+		}
+		this.activeCount = kept;
+		return kept;
+	}
+
+	private boolean obtainAnotherSample(int i, int n, int k){
+		/*
+		 * Same as Algorithm.obtainAnotherSample() for a rule that is not skipped
+		 */
+		if(n == 0) return true;
+		if(this.maxSamples[i] > 0 && n >= this.maxSamples[i]) return false;
+		if(this.type[i] == Type.BAYESIAN_B.ordinal()) return this.computeVariance(i, n, k) >= this.threshold[i];
+		if(this.type[i] == Type.MIRA.ordinal() && this.theta[i] == 1.0) return n - k == 0;
+		//Accept tests, the right hand side as in DecisionBoundary.test
+		int f = n - k;
+		double shared = k * this.sharedTrueLog[i] + f * this.sharedFalseLog[i];
+		boolean h0 = leftHandValue(k, f, this.trueLog[H0][i], this.falseLog[H0][i]) <= this.constant[H0][i] + shared;
+		boolean h1 = leftHandValue(k, f, this.trueLog[H1][i], this.falseLog[H1][i]) >= this.constant[H1][i] + shared;
+		boolean h0prime = leftHandValue(k, f, this.trueLog[H0PRIME][i], this.falseLog[H0PRIME][i]) >=
+				this.constant[H0PRIME][i] + shared;
+		boolean h1prime = leftHandValue(k, f, this.trueLog[H1PRIME][i], this.falseLog[H1PRIME][i]) <=
+				this.constant[H1PRIME][i] + shared;
+		boolean isUndecided = (h0 || h1) && (h0prime || h1prime);
+		if(this.type[i] != Type.MIRA.ordinal()) return !isUndecided;
+		if((h0 && h0prime) || (h1 && h1prime)) return false;
+		if(!isUndecided) return true;
+		return this.reduceDelta(i, n, k);
+	}
+
+	private boolean reduceDelta(int i, int n, int k){
+		/*
+		 * Same as the delta reduction of Mira.obtainAnotherSampleSpecific
+		 */
+		double theta = this.theta[i];
+		double gamma = this.gamma[i];
+		int f = n - k;
+		double sharedConstant = k * Math.log(theta) + f * Math.log(1 - theta);
+		double delta = this.delta[i];
+		boolean h0, h1, h0prime, h1prime, isDecided;
+		do{
+			delta = delta * 0.5;
+			double lhs = leftHandValue(k, f, Algorithm.leftHandLog(theta, false, true, delta),
+					Algorithm.leftHandLog(theta, false, false, delta));
+			double lhsPrime = leftHandValue(k, f, Algorithm.leftHandLog(theta, true, true, delta),
+					Algorithm.leftHandLog(theta, true, false, delta));
+			h0 = lhs <= this.constant[H0][i] + sharedConstant;
+			h1 = lhs >= this.constant[H1][i] + sharedConstant;
+			h0prime = lhsPrime >= this.constant[H0PRIME][i] + sharedConstant;
+			h1prime = lhsPrime <= this.constant[H1PRIME][i] + sharedConstant;
+			isDecided = (h0 && h0prime) || (h1 && h1prime);
+		}while(!isDecided && (h0 || h1) && (h0prime || h1prime));
+		this.delta[i] = delta;
+		this.trueLog[H0][i] = Algorithm.leftHandLog(theta, false, true, delta);
+		this.falseLog[H0][i] = Algorithm.leftHandLog(theta, false, false, delta);
+		this.trueLog[H1][i] = this.trueLog[H0][i];
+		this.falseLog[H1][i] = this.falseLog[H0][i];
+		this.trueLog[H0PRIME][i] = Algorithm.leftHandLog(theta, true, true, delta);
+		this.falseLog[H0PRIME][i] = Algorithm.leftHandLog(theta, true, false, delta);
+		this.trueLog[H1PRIME][i] = this.trueLog[H0PRIME][i];
+		this.falseLog[H1PRIME][i] = this.falseLog[H0PRIME][i];
+		return !isDecided;
+	}
+
+	private static double leftHandValue(int trueSamples, int falseSamples, double trueLog, double falseLog){
+		//Same as Algorithm.leftHandValue
+		double peak_1 = 0.0;
+		if(trueSamples > 0) peak_1 = trueSamples * trueLog;
+		double peak_2 = 0.0;
+		if(falseSamples > 0) peak_2 = falseSamples * falseLog;
+		return peak_1 + peak_2;
+	}
+
+	private boolean holds(int i, int test, int n, int k){
+		int f = n - k;
+		double leftHandValue = leftHandValue(k, f, this.trueLog[test][i], this.falseLog[test][i]);
+		double rightHandValue = this.constant[test][i] + (k * this.sharedTrueLog[i] + f * this.sharedFalseLog[i]);
+		if(test == H1 || test == H0PRIME) return leftHandValue >= rightHandValue;
+		else return leftHandValue <= rightHandValue;
+	}
+
+	private double computeVariance(int i, int n, int k){
+		//Same as BayesianB.computeVariance
+		double alpha = this.alpha[i];
+		double beta = this.beta[i];
+		return ((alpha + k) * (n - k + beta)) / (Math.pow(alpha + n + beta, 2.0) * (alpha + n + beta + 1));
+	}
+
+	public Conclusion getConclusion(int rule){
+		/*
+		 * Same as getConclusion() of the rule's Algorithm
+		 */
+		int i = rule;
+		int n = this.totalSamples[i];
+		int k = this.trueSamples[i];
+		switch(this.getType(i)){
+		case YOUNES_A:
+			if(this.holds(i, H1, n, k)) return Conclusion.H1;
+			if(this.holds(i, H0, n, k)) return Conclusion.H0;
+			if(this.maxSamples[i] == n) return Conclusion.MAXSAMPLESIZE;
+			throw new Error("Unhandled Conclusion: " + this.maxSamples[i] + "\t" + n);
+		case YOUNES_B:
+			if(this.holds(i, H0, n, k) && this.holds(i, H0PRIME, n, k)) return Conclusion.H0;
+			if(this.holds(i, H1, n, k) && this.holds(i, H1PRIME, n, k)) return Conclusion.H1;
+			if(this.maxSamples[i] == n) return Conclusion.MAXSAMPLESIZE;
+			return Conclusion.UNDECIDED;
+		case MIRA:
+			if(this.theta[i] == 1.0){
+				if(n - k > 0) return Conclusion.H1;
+			}else{
+				if(this.holds(i, H0, n, k) && this.holds(i, H0PRIME, n, k)) return Conclusion.H0;
+				if(this.holds(i, H1, n, k) && this.holds(i, H1PRIME, n, k)) return Conclusion.H1;
+			}
+			return Mira.decideByPValue(n, k, this.theta[i]);
+		case BAYESIAN_B:
+			if(n == 0) return null;
+			if(this.computeVariance(i, n, k) < this.threshold[i]){
+				//Estimate
+				double p = (k + this.alpha[i]) / (this.alpha[i] + this.beta[i] + n);
+				if(p >= this.theta[i]) return Conclusion.H0;
+				else return Conclusion.H1;
+			}else if(n == this.maxSamples[i]){
+				return Conclusion.MAXSAMPLESIZE;
+			}else throw new Error("Unhandled Conclusion");
+		default: throw new Error("Unhandled type: " + this.getType(i));
+		}
+	}
+
+	private void grow(){
+		int length = this.type.length * 2;
+		this.type = grow(this.type, length);
+		this.status = grow(this.status, length);
+		this.totalSamples = grow(this.totalSamples, length);
+		this.trueSamples = grow(this.trueSamples, length);
+		this.maxSamples = grow(this.maxSamples, length);
+		this.active = grow(this.active, length);
+		this.theta = grow(this.theta, length);
+		this.delta = grow(this.delta, length);
+		this.alpha = grow(this.alpha, length);
+		this.beta = grow(this.beta, length);
+		this.gamma = grow(this.gamma, length);
+		this.threshold = grow(this.threshold, length);
+		this.sharedTrueLog = grow(this.sharedTrueLog, length);
+		this.sharedFalseLog = grow(this.sharedFalseLog, length);
+		for(int test = 0; test < 4; test++){
+			this.trueLog[test] = grow(this.trueLog[test], length);
+			this.falseLog[test] = grow(this.falseLog[test], length);
+			this.constant[test] = grow(this.constant[test], length);
+		}
+	}
+
+	private static byte[] grow(byte[] array, int length){
+		byte[] grown = new byte[length];
+		System.arraycopy(array, 0, grown, 0, array.length);
+		return grown;
+	}
+
+	private static int[] grow(int[] array, int length){
+		int[] grown = new int[length];
+		System.arraycopy(array, 0, grown, 0, array.length);
+		return grown;
+	}
+
+	private static double[] grow(double[] array, int length){
+		double[] grown = new double[length];
+		System.arraycopy(array, 0, grown, 0, array.length);
+		return grown;
+	}
+}
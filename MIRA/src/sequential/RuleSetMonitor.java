@@ -0,0 +1,117 @@
+package sequential;
+
+import java.util.List;
+
+import sequential.Algorithm.Conclusion;
+
+/*
+ * Many rules checked on one stream of samples
+ *
+ * Every sample drawn from the source goes to each rule that still needs one, in the order the rules were given,
+ * after which the rule is asked whether it needs another. Rules that have decided, and rules skipped with
+ * skipRule(), are dropped from the active index, and no sample is drawn once the index is empty, so an
+ * expensive source is never run for rules that are already decided.
+ */
+public class RuleSetMonitor {
+	private final SampleSource source;
+	private final Algorithm[] rules;
+	private final int[] active;//Rules that still need samples, in the order they were given
+	private int activeCount = 0;
+	private int samplesDrawn = 0;
+
+	public RuleSetMonitor(SampleSource source, List<? extends Algorithm> rules){
+		this(source, rules.toArray(new Algorithm[rules.size()]));
+	}
+
+	public RuleSetMonitor(SampleSource source, Algorithm... rules){
+		this.source = source;
+		this.rules = rules.clone();
+		this.active = new int[rules.length];
+		for(int i = 0; i < rules.length; i++){
+			if(rules[i].obtainAnotherSample()) this.active[this.activeCount++] = i;
+		}
+	}
+
+	public int size(){ return this.rules.length; }
+	public Algorithm getRule(int rule){ return this.rules[rule]; }
+	public int getTotalSamples(int rule){ return this.rules[rule].getTotalSamples(); }
+	public int getTrueSamples(int rule){ return this.rules[rule].getTrueSamples(); }
+	public int getSamplesDrawn(){ return this.samplesDrawn; }
+	public int getActiveCount(){ return this.activeCount; }
+	public int getActiveRule(int index){ return this.active[index]; }
+
+	public boolean isActive(int rule){
+		for(int j = 0; j < this.activeCount; j++){
+			if(this.active[j] == rule) return true;
+		}
+		return false;
+	}
+
+	public void skipRule(int rule){
+		//Takes effect before the next sample is drawn
+		this.rules[rule].skipRule();
+	}
+
+	public Conclusion getConclusion(int rule){
+		/*
+		 * Conclusion of a rule that has decided, null while it still needs samples, if it was skipped or if it
+		 * is an estimate (Operator.QUESTION)
+		 */
+		Algorithm r = this.rules[rule];
+		if(r.obtainAnotherSample()) return null;
+		return r.getConclusionOrNull();
+	}
+
+	public boolean obtainAnotherSample(){
+		/*
+		 * Is another sample needed by any rule? Drops the rules skipped since the last sample
+		 */
+		int kept = 0;
+		for(int j = 0; j < this.activeCount; j++){
+			int i = this.active[j];
+			if(!this.rules[i].getSkipRule()) this.active[kept++] = i;
+		}
+		this.activeCount = kept;
+		return kept > 0;
+	}
+
+	public boolean step(){
+		/*
+		 * Draws one sample for the active rules, if any
+		 * Returns whether another sample is needed
+		 */
+		if(!this.obtainAnotherSample()) return false;
+		this.draw();
+		return this.activeCount > 0;
+	}
+
+	private void draw(){
+		boolean isTrue = this.source.nextSample();
+		this.samplesDrawn++;
+		int kept = 0;
+		for(int j = 0; j < this.activeCount; j++){
+			Algorithm rule = this.rules[this.active[j]];
+			rule.update(isTrue);
+			if(rule.obtainAnotherSample()) this.active[kept++] = this.active[j];
+		}
+		this.activeCount = kept;
+	}
+
+	public int run(){
+		/*
+		 * Draws samples until every rule has decided or was skipped
+		 * Returns the number of samples drawn
+		 */
+		return this.run(Integer.MAX_VALUE);
+	}
+
+	public int run(int maxDraws){
+		//As run(), drawing at most maxDraws samples
+		int drawn = 0;
+		while(drawn < maxDraws && this.obtainAnotherSample()){
+			this.draw();
+			drawn++;
+		}
+		return drawn;
+	}
+}
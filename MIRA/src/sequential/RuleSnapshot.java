@@ -0,0 +1,264 @@
+package sequential;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import sequential.Algorithm.Operator;
+import sequential.Algorithm.RuleStatus;
+
+/*
+ * The state of a rule as a compact binary snapshot, for rules verified in shards on many machines
+ *
+ * A snapshot holds the parameters of the rule, its counts, its path state (the current delta of Mira), its last
+ * status and whether it was skipped, and toRule() gives back a rule in the same state. Snapshots of the same
+ * rule merge by adding their counts, so a coordinator can combine the samples of its shards at synchronization
+ * points: shards send snapshots of the samples they took since the last point, the coordinator merges them into
+ * the rule and checks it once.
+ *
+ * The look schedule of a group-sequential rule is part of its parameters. Snapshots of version 1, from before
+ * look schedules, are still read.
+ *
+ * Checking only at the synchronization points is a check after a batch of samples. A batch of up to
+ * minAdditionalSamples() of the merged rule cannot skip over a decision, so a coordinator that splits that many
+ * samples over its shards stops at exactly the sample the rule would stop at on one machine. ShardCoordinator does
+ * so with the looks of a group-sequential rule as the synchronization points, so that batches do not shrink to a
+ * sample near a decision.
+ */
+public class RuleSnapshot {
+	private static final int MAGIC = 0x4d525353;//MRSS
+	private static final int VERSION = 2;
+
+	private static enum Kind {
+		YOUNES_A, YOUNES_B, MIRA, BAYESIAN_A, BAYESIAN_B, FIXED_CI_ESTIMATE, FIXED_SAMPLES
+	}
+
+	private final Kind kind;
+	private final String syntax;
+	private final Operator operator;
+	private final double theta;
+	private final double alpha;
+	private final double beta;
+	private final double first; //delta of Younes, threshold of Bayesian, confidence of estimates
+	private final double second;//gamma of YounesB, CI half width of FixedCIEstimate
+	private final int maxSamples;
+	private final LookSchedule lookSchedule;//null if not group-sequential
+	private final int totalSamples;
+	private final int trueSamples;
+	private final int pathState;
+	private final RuleStatus lastStatus;//null if never updated
+	private final boolean skipRule;
+
+	private RuleSnapshot(Kind kind, String syntax, Operator operator, double theta, double alpha, double beta,
+			double first, double second, int maxSamples, LookSchedule lookSchedule, int totalSamples, int trueSamples,
+			int pathState, RuleStatus lastStatus, boolean skipRule){
+		this.kind = kind;
+		this.syntax = syntax;
+		this.operator = operator;
+		this.theta = theta;
+		this.alpha = alpha;
+		this.beta = beta;
+		this.first = first;
+		this.second = second;
+		this.maxSamples = maxSamples;
+		this.lookSchedule = lookSchedule;
+		this.totalSamples = totalSamples;
+		this.trueSamples = trueSamples;
+		this.pathState = pathState;
+		this.lastStatus = lastStatus;
+		this.skipRule = skipRule;
+	}
+
+	public static RuleSnapshot of(Algorithm rule){
+		Kind kind;
+		double first = 0;
+		double second = 0;
+		if(rule instanceof YounesA){
+			kind = Kind.YOUNES_A;
+			first = ((YounesA) rule).getDelta();
+		}else if(rule instanceof YounesB){
+			kind = Kind.YOUNES_B;
+			first = ((YounesB) rule).getDelta();
+			second = ((YounesB) rule).getGamma();
+		}else if(rule instanceof Mira){
+			kind = Kind.MIRA;
+		}else if(rule instanceof BayesianA){
+			kind = Kind.BAYESIAN_A;
+			first = ((BayesianA) rule).getBayesFactorThreshold();
+		}else if(rule instanceof BayesianB){
+			kind = Kind.BAYESIAN_B;
+			first = ((BayesianB) rule).getThreshold();
+		}else if(rule instanceof FixedCIEstimate){
+			kind = Kind.FIXED_CI_ESTIMATE;
+			first = rule.getConfidence();
+			second = ((FixedCIEstimate) rule).getCIHalfWidth();
+		}else if(rule instanceof FixedSamples){
+			kind = Kind.FIXED_SAMPLES;
+			first = rule.getConfidence();
+		}else{
+			throw new Error("No snapshot for " + rule.getClass().getName());
+		}
+		return new RuleSnapshot(kind, rule.getSyntax(), rule.getOperator(), rule.theta, rule.alpha, rule.beta,
+				first, second, rule.maxSamples, rule.getLookSchedule(), rule.totalSamples, rule.trueSamples, rule.getPathState(),
+				rule.getLastStatus(), rule.getSkipRule());
+	}
+
+	public int getTotalSamples(){ return this.totalSamples; }
+	public int getTrueSamples(){ return this.trueSamples; }
+	public RuleStatus getLastStatus(){ return this.lastStatus; }
+
+	public Algorithm toRule(){
+		/*
+		 * A new rule in the state of the snapshot
+		 */
+		Algorithm rule;
+		switch(this.kind){
+		case YOUNES_A:
+			rule = new YounesA(this.syntax, this.operator, this.theta, this.first, this.alpha, this.beta, this.maxSamples);
+			break;
+		case YOUNES_B:
+			rule = new YounesB(this.syntax, this.operator, this.theta, this.first, this.alpha, this.beta, this.second,
+					this.maxSamples);
+			break;
+		case MIRA:
+			rule = new Mira(this.syntax, this.operator, this.theta, this.alpha, this.beta, this.maxSamples);
+			break;
+		case BAYESIAN_A:
+			rule = new BayesianA(this.syntax, this.operator, this.theta, this.alpha, this.beta, this.first, this.maxSamples);
+			break;
+		case BAYESIAN_B:
+			rule = new BayesianB(this.syntax, this.operator, this.theta, this.alpha, this.beta, this.first, this.maxSamples);
+			break;
+		case FIXED_CI_ESTIMATE:
+			rule = new FixedCIEstimate(this.syntax, this.first, this.second, this.maxSamples);
+			break;
+		case FIXED_SAMPLES:
+			rule = new FixedSamples(this.syntax, this.first, this.maxSamples);
+			break;
+		default: throw new Error("Unhandled case: " + this.kind);
+		}
+		if(this.lookSchedule != null) rule.setLookSchedule(this.lookSchedule);
+		rule.setPathState(this.pathState);
+		if(this.lastStatus != null) rule.update(this.trueSamples, this.totalSamples, this.lastStatus);
+		else if(this.totalSamples > 0) throw new Error("Snapshot with samples MUST have a lastStatus");
+		if(this.skipRule) rule.skipRule();
+		return rule;
+	}
+
+	public RuleSnapshot merge(RuleSnapshot other){
+		/*
+		 * Counts of both, of the same rule
+		 * Delta only decreases, so the path state is the further of the two. lastStatus is that of other, the
+		 * later snapshot, unless other has none, and the rule is skipped if either is
+		 */
+		if(!this.isSameRule(other)) throw new Error("Only snapshots of the same rule can be merged: " + this.syntax + " " + other.syntax);
+		long total = (long) this.totalSamples + other.totalSamples;
+		if(total > Integer.MAX_VALUE) throw new Error("Merged snapshot has too many samples: " + total);
+		return new RuleSnapshot(this.kind, this.syntax, this.operator, this.theta, this.alpha, this.beta, this.first,
+				this.second, this.maxSamples, this.lookSchedule, (int) total, this.trueSamples + other.trueSamples,
+				Math.max(this.pathState, other.pathState), other.lastStatus != null ? other.lastStatus : this.lastStatus,
+				this.skipRule || other.skipRule);
+	}
+
+	private boolean isSameRule(RuleSnapshot other){
+		return this.kind == other.kind && this.syntax.equals(other.syntax) && this.operator == other.operator &&
+				this.theta == other.theta && this.alpha == other.alpha && this.beta == other.beta &&
+				this.first == other.first && this.second == other.second && this.maxSamples == other.maxSamples &&
+				(this.lookSchedule == null ? other.lookSchedule == null : this.lookSchedule.equals(other.lookSchedule));
+	}
+
+	public void writeTo(DataOutput out) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeByte(VERSION);
+		out.writeByte(this.kind.ordinal());
+		out.writeUTF(this.syntax);
+		out.writeByte(this.operator.ordinal());
+		out.writeDouble(this.theta);
+		out.writeDouble(this.alpha);
+		out.writeDouble(this.beta);
+		out.writeDouble(this.first);
+		out.writeDouble(this.second);
+		out.writeInt(this.maxSamples);
+		out.writeInt(this.totalSamples);
+		out.writeInt(this.trueSamples);
+		out.writeInt(this.pathState);
+		out.writeByte(this.lastStatus == null ? -1 : this.lastStatus.ordinal());
+		out.writeBoolean(this.skipRule);
+		//Looks as their count, the looks and every, or -1 if not group-sequential
+		if(this.lookSchedule == null){
+			out.writeInt(-1);
+		}else{
+			int[] looks = this.lookSchedule.getLooks();
+			out.writeInt(looks.length);
+			for(int look : looks) out.writeInt(look);
+			out.writeInt(this.lookSchedule.getEvery());
+		}
+	}
+
+	public static RuleSnapshot readFrom(DataInput in) throws IOException {
+		/*
+		 * IOException if the input is not a snapshot this version can read
+		 */
+		if(in.readInt() != MAGIC) throw new IOException("Not a rule snapshot");
+		int version = in.readByte();
+		if(version != VERSION && version != 1) throw new IOException("Unsupported rule snapshot version: " + version);
+		Kind kind = Kind.values()[readIndex(in, Kind.values().length, "kind")];
+		String syntax = in.readUTF();
+		Operator operator = Operator.values()[readIndex(in, Operator.values().length, "operator")];
+		double theta = in.readDouble();
+		double alpha = in.readDouble();
+		double beta = in.readDouble();
+		double first = in.readDouble();
+		double second = in.readDouble();
+		int maxSamples = in.readInt();
+		int totalSamples = in.readInt();
+		int trueSamples = in.readInt();
+		int pathState = in.readInt();
+		int status = in.readByte();
+		RuleStatus lastStatus = null;
+		if(status >= RuleStatus.values().length) throw new IOException("Corrupt rule snapshot. status: " + status);
+		if(status >= 0) lastStatus = RuleStatus.values()[status];
+		boolean skipRule = in.readBoolean();
+		LookSchedule lookSchedule = null;
+		int lookCount = version == 1 ? -1 : in.readInt();
+		if(lookCount >= 0){
+			int[] looks = new int[lookCount];
+			for(int i = 0; i < lookCount; i++) looks[i] = in.readInt();
+			lookSchedule = new LookSchedule(in.readInt(), looks);
+		}
+		if(trueSamples < 0 || totalSamples < trueSamples){
+			throw new IOException("Corrupt rule snapshot. trueSamples: " + trueSamples + " totalSamples: " + totalSamples);
+		}
+		return new RuleSnapshot(kind, syntax, operator, theta, alpha, beta, first, second, maxSamples, lookSchedule,
+				totalSamples, trueSamples, pathState, lastStatus, skipRule);
+	}
+
+	private static int readIndex(DataInput in, int count, String field) throws IOException {
+		//A byte that has to be an index into the count constants of an enum
+		int index = in.readByte();
+		if(index < 0 || index >= count) throw new IOException("Corrupt rule snapshot. " + field + ": " + index);
+		return index;
+	}
+
+	public byte[] toBytes(){
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+		try{
+			this.writeTo(new DataOutputStream(bytes));
+		}catch(IOException e){
+			throw new Error(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	public static RuleSnapshot fromBytes(byte[] bytes){
+		try{
+			return readFrom(new DataInputStream(new ByteArrayInputStream(bytes)));
+		}catch(IOException e){
+			throw new Error(e);
+		}
+	}
+}
@@ -0,0 +1,154 @@
+package sequential;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import sequential.Algorithm.Operator;
+
+/*
+ * A rule given by a line of a rule specification file, from which a new rule is created per trace
+ *
+ * Each line is a name, an algorithm, an operator and theta, then the parameters as key=value, e.g.
+ * 	above30		Mira		>=	0.3	alpha=0.01 beta=0.01
+ * 	tight		YounesB		<	0.1	delta=0.01 alpha=0.01 beta=0.01 gamma=0.01 maxSamples=100000
+ * 	bayes		BayesianB	>	0.5	alpha=1 beta=1 varianceThreshold=0.0001
+ * 	rate		FixedCIEstimate	=?	confidence=0.05 ciHalfWidth=0.01
+ * Estimates (=?) have no theta. Blank lines and lines starting with # are ignored.
+ *
+ * Parameters by algorithm, maxSamples is optional everywhere (0, no limit, by default), and so is lookEvery, a look
+ * schedule of one look every lookEvery samples (see LookSchedule)
+ * 	YounesA			delta alpha beta
+ * 	YounesB			delta alpha beta gamma, gamma being min(alpha, beta) by default
+ * 	Mira			alpha beta
+ * 	BayesianA		alpha beta (the priors) bayesFactor
+ * 	BayesianB		alpha beta (the priors) varianceThreshold
+ * 	FixedCIEstimate	confidence ciHalfWidth
+ * 	FixedSamples	confidence maxSamples
+ */
+public class RuleSpec {
+	private final String name;
+	private final String algorithm;
+	private final Operator operator;
+	private final double theta;
+	private final Map<String, Double> parameters;
+	private final String syntax;//The line, as the syntax of the rule
+
+	public RuleSpec(String line){
+		String[] tokens = line.trim().split("\\s+");
+		if(tokens.length < 3) throw new Error("Rule MUST have a name, an algorithm and an operator: " + line);
+		this.name = tokens[0];
+		this.algorithm = tokens[1];
+		this.operator = parseOperator(tokens[2]);
+		int next = 3;
+		if(this.operator == Operator.QUESTION){
+			this.theta = 0;
+		}else{
+			if(tokens.length < 4) throw new Error("Rule MUST have a theta: " + line);
+			this.theta = Double.parseDouble(tokens[next++]);
+		}
+		this.parameters = new HashMap<String, Double>();
+		for(; next < tokens.length; next++){
+			int equals = tokens[next].indexOf('=');
+			if(equals <= 0) throw new Error("Parameter MUST be key=value: " + tokens[next] + " in " + line);
+			this.parameters.put(tokens[next].substring(0, equals), Double.parseDouble(tokens[next].substring(equals + 1)));
+		}
+		this.syntax = line.trim();
+		//Fails on a bad line now rather than on the first trace
+		this.create();
+	}
+
+	public static List<RuleSpec> read(File file) throws IOException {
+		List<RuleSpec> specs = new ArrayList<RuleSpec>();
+		BufferedReader input = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+		try{
+			String line;
+			int lineNumber = 0;
+			while((line = input.readLine()) != null){
+				lineNumber++;
+				String trimmed = line.trim();
+				if(trimmed.length() == 0 || trimmed.startsWith("#")) continue;
+				try{
+					specs.add(new RuleSpec(trimmed));
+				}catch(RuntimeException e){
+					throw new Error(file + " line " + lineNumber + ": " + e.getMessage(), e);
+				}catch(Error e){
+					throw new Error(file + " line " + lineNumber + ": " + e.getMessage(), e);
+				}
+			}
+		}finally{
+			input.close();
+		}
+		return specs;
+	}
+
+	private static Operator parseOperator(String token){
+		if(token.equals(">=")) return Operator.GREATER_EQUAL;
+		if(token.equals(">")) return Operator.GREATER;
+		if(token.equals("<=")) return Operator.LESSER_EQUAL;
+		if(token.equals("<")) return Operator.LESSER;
+		if(token.equals("=?")) return Operator.QUESTION;
+		throw new Error("Unknown operator: " + token + ", expected one of >= > <= < =?");
+	}
+
+	public String getName(){ return this.name; }
+	public String getAlgorithm(){ return this.algorithm; }
+
+	public Algorithm create(){
+		/*
+		 * A new rule with no samples
+		 */
+		Map<String, Double> unused = new HashMap<String, Double>(this.parameters);
+		int maxSamples = (int) this.optional(unused, "maxSamples", 0);
+		int lookEvery = (int) this.optional(unused, "lookEvery", 0);
+		Algorithm rule;
+		if(this.algorithm.equals("FixedCIEstimate") || this.algorithm.equals("FixedSamples")){
+			if(this.operator != Operator.QUESTION) throw new Error(this.algorithm + " MUST have the operator =?");
+			double confidence = this.required(unused, "confidence");
+			if(this.algorithm.equals("FixedCIEstimate")){
+				rule = new FixedCIEstimate(this.syntax, confidence, this.required(unused, "ciHalfWidth"), maxSamples);
+			}else{
+				rule = new FixedSamples(this.syntax, confidence, maxSamples);
+			}
+		}else{
+			if(this.operator == Operator.QUESTION) throw new Error(this.algorithm + " MUST have one of the operators >= > <= <");
+			double alpha = this.required(unused, "alpha");
+			double beta = this.required(unused, "beta");
+			if(this.algorithm.equals("YounesA")){
+				rule = new YounesA(this.syntax, this.operator, this.theta, this.required(unused, "delta"), alpha, beta, maxSamples);
+			}else if(this.algorithm.equals("YounesB")){
+				double delta = this.required(unused, "delta");
+				double gamma = this.optional(unused, "gamma", Math.min(alpha, beta));
+				rule = new YounesB(this.syntax, this.operator, this.theta, delta, alpha, beta, gamma, maxSamples);
+			}else if(this.algorithm.equals("Mira")){
+				rule = new Mira(this.syntax, this.operator, this.theta, alpha, beta, maxSamples);
+			}else if(this.algorithm.equals("BayesianA")){
+				rule = new BayesianA(this.syntax, this.operator, this.theta, alpha, beta, this.required(unused, "bayesFactor"), maxSamples);
+			}else if(this.algorithm.equals("BayesianB")){
+				rule = new BayesianB(this.syntax, this.operator, this.theta, alpha, beta, this.required(unused, "varianceThreshold"), maxSamples);
+			}else{
+				throw new Error("Unknown algorithm: " + this.algorithm);
+			}
+		}
+		if(!unused.isEmpty()) throw new Error("Unknown parameters for " + this.algorithm + ": " + unused.keySet());
+		if(lookEvery != 0) rule.setLookSchedule(LookSchedule.every(lookEvery));
+		return rule;
+	}
+
+	private double required(Map<String, Double> unused, String key){
+		Double value = unused.remove(key);
+		if(value == null) throw new Error(this.algorithm + " needs the parameter " + key);
+		return value;
+	}
+
+	private double optional(Map<String, Double> unused, String key, double defaultValue){
+		Double value = unused.remove(key);
+		return value == null ? defaultValue : value;
+	}
+}
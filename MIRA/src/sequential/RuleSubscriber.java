@@ -0,0 +1,214 @@
+package sequential;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+import sequential.Algorithm.Conclusion;
+import sequential.Algorithm.RuleStatus;
+
+/*
+ * A rule as a Flow.Subscriber of its samples, and a Flow.Publisher of its result
+ *
+ * The samples are requested in chunks of minAdditionalSamples() of the rule, at most maxChunk at a time, so that a
+ * publisher never produces a sample the rule will not use: the rule cannot stop before it has taken all it has
+ * requested. More are requested when half of the last request is left. The subscription is cancelled on the
+ * sample after which obtainAnotherSample() turns FALSE, and samples that still arrive are ignored.
+ *
+ * Then, or when the samples end first, the rule publishes one Result to each of its subscribers, followed by
+ * onComplete. A failure of the samples is passed on with onError.
+ *
+ * These are the JDK's java.util.concurrent.Flow interfaces, so this class is compiled for Java 9 (see pom.xml).
+ */
+public class RuleSubscriber implements Flow.Subscriber<Boolean>, Flow.Publisher<RuleSubscriber.Result> {
+	private final Algorithm rule;
+	private final int maxChunk;
+	//Signals from upstream are serial, these are only touched by them
+	private Flow.Subscription subscription = null;
+	private long outstanding = 0;//Requested and not yet received
+	private long refillAt = 0;   //More are requested when outstanding falls to this
+	private boolean isStopped = false;//obtainAnotherSample() of the rule turned FALSE
+	//Guarded by this
+	private final List<Downstream> subscribers = new ArrayList<Downstream>();
+	private boolean isDone = false;
+	private Result result = null;
+	private Throwable failure = null;
+
+	public RuleSubscriber(Algorithm rule, int maxChunk){
+		if(maxChunk <= 0) throw new Error("maxChunk MUST be > 0. maxChunk: " + maxChunk);
+		this.rule = rule;
+		this.maxChunk = maxChunk;
+	}
+
+	public Algorithm getRule(){ return this.rule; }
+
+	public static class Result {
+		/*
+		 * The rule once it has stopped, conclusion and status are null for estimates (Operator.QUESTION) and
+		 * skipped rules, and UNDECIDED and UNKNOWN for a rule whose samples ended first
+		 */
+		private final Conclusion conclusion;
+		private final RuleStatus status;
+		private final int totalSamples;
+		private final int trueSamples;
+
+		Result(Algorithm rule, boolean isStopped){
+			if(!rule.hasConclusion()){
+				this.conclusion = null;
+				this.status = null;
+			}else if(!isStopped){
+				//Not every algorithm has a conclusion before it stops
+				this.conclusion = Conclusion.UNDECIDED;
+				this.status = RuleStatus.UNKNOWN;
+			}else{
+				this.conclusion = rule.getConclusion();
+				this.status = rule.getConclusionInRuleStatus();
+			}
+			this.totalSamples = rule.getTotalSamples();
+			this.trueSamples = rule.getTrueSamples();
+		}
+
+		public Conclusion getConclusion(){ return this.conclusion; }
+		public RuleStatus getStatus(){ return this.status; }
+		public int getTotalSamples(){ return this.totalSamples; }
+		public int getTrueSamples(){ return this.trueSamples; }
+
+		public String toString(){
+			return "Result [conclusion=" + this.conclusion + ", status=" + this.status + ", totalSamples=" +
+					this.totalSamples + ", trueSamples=" + this.trueSamples + "]";
+		}
+	}
+
+	public void onSubscribe(Flow.Subscription subscription){
+		if(this.subscription != null || this.isFinished()){
+			//One source of samples only
+			subscription.cancel();
+			return;
+		}
+		this.subscription = subscription;
+		if(!this.rule.obtainAnotherSample()){
+			this.isStopped = true;
+			subscription.cancel();
+			this.finish(null);
+			return;
+		}
+		this.refill();
+	}
+
+	public void onNext(Boolean isTrue){
+		if(this.isFinished()) return;
+		this.outstanding--;
+		this.rule.update(isTrue);
+		if(!this.rule.obtainAnotherSample()){
+			this.isStopped = true;
+			this.subscription.cancel();
+			this.finish(null);
+		}else if(this.outstanding <= this.refillAt){
+			this.refill();
+		}
+	}
+
+	public void onError(Throwable failure){
+		if(this.isFinished()) return;
+		this.finish(failure);
+	}
+
+	public void onComplete(){
+		//The samples ended before the rule stopped, the result is UNDECIDED and UNKNOWN with the samples so far
+		if(this.isFinished()) return;
+		this.finish(null);
+	}
+
+	private void refill(){
+		/*
+		 * Tops up the demand to minAdditionalSamples(), all of which the rule will take
+		 * The outstanding samples are the first of them
+		 */
+		long chunk = Math.max(1, Math.min(this.maxChunk, this.rule.minAdditionalSamples()));
+		if(chunk > this.outstanding){
+			long n = chunk - this.outstanding;
+			this.outstanding = chunk;
+			this.refillAt = chunk / 2;
+			this.subscription.request(n);
+		}else{
+			this.refillAt = this.outstanding / 2;
+		}
+	}
+
+	private synchronized boolean isFinished(){
+		return this.isDone;
+	}
+
+	private void finish(Throwable failure){
+		List<Downstream> subscribers;
+		synchronized(this){
+			this.isDone = true;
+			this.failure = failure;
+			if(failure == null) this.result = new Result(this.rule, this.isStopped);
+			subscribers = new ArrayList<Downstream>(this.subscribers);
+		}
+		for(Downstream subscriber : subscribers) subscriber.deliver();
+	}
+
+	public void subscribe(Flow.Subscriber<? super Result> subscriber){
+		Downstream downstream = new Downstream(subscriber);
+		synchronized(this){
+			this.subscribers.add(downstream);
+		}
+		subscriber.onSubscribe(downstream);
+		downstream.deliver();
+	}
+
+	private class Downstream implements Flow.Subscription {
+		private final Flow.Subscriber<? super Result> subscriber;
+		//Guarded by this
+		private boolean isRequested = false;
+		private boolean isClosed = false;//Cancelled, or every signal is sent
+
+		Downstream(Flow.Subscriber<? super Result> subscriber){
+			this.subscriber = subscriber;
+		}
+
+		public void request(long n){
+			synchronized(this){
+				if(this.isClosed) return;
+				if(n <= 0){
+					this.isClosed = true;
+					this.subscriber.onError(new IllegalArgumentException("request MUST be > 0. n: " + n));
+					return;
+				}
+				this.isRequested = true;
+			}
+			this.deliver();
+		}
+
+		public void cancel(){
+			synchronized(this){
+				this.isClosed = true;
+			}
+			synchronized(RuleSubscriber.this){
+				RuleSubscriber.this.subscribers.remove(this);
+			}
+		}
+
+		synchronized void deliver(){
+			//Sends the result once there is one and it is requested, a failure as soon as there is one
+			if(this.isClosed) return;
+			Result result;
+			Throwable failure;
+			synchronized(RuleSubscriber.this){
+				if(!RuleSubscriber.this.isDone) return;
+				result = RuleSubscriber.this.result;
+				failure = RuleSubscriber.this.failure;
+			}
+			if(failure != null){
+				this.isClosed = true;
+				this.subscriber.onError(failure);
+			}else if(this.isRequested){
+				this.isClosed = true;
+				this.subscriber.onNext(result);
+				this.subscriber.onComplete();
+			}
+		}
+	}
+}
@@ -0,0 +1,30 @@
+package sequential;
+
+/*
+ * Estimate of the number of samples a rule still needs to decide, with a band around it
+ *
+ * See Algorithm.estimateRemainingSamples(). The band is the range of the estimate over the plausible values of
+ * the true probability, so it says how sure the estimate is, it is not a bound. Values are whole samples, and
+ * Double.POSITIVE_INFINITY if the rule may never decide, e.g. at p = theta without maxSamples.
+ */
+public class SampleEstimate {
+	private final double expected;
+	private final double lower;
+	private final double upper;
+
+	SampleEstimate(double expected, double lower, double upper){
+		if(!(lower <= expected && expected <= upper)) throw new Error("MUST have lower <= expected <= upper: " + lower + " " + expected + " " + upper);
+		this.expected = expected;
+		this.lower = lower;
+		this.upper = upper;
+	}
+
+	public double getExpected(){ return this.expected; }
+	public double getLower(){ return this.lower; }
+	public double getUpper(){ return this.upper; }
+
+	@Override
+	public String toString(){
+		return this.expected + " [" + this.lower + ", " + this.upper + "]";
+	}
+}
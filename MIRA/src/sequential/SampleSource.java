@@ -0,0 +1,10 @@
+package sequential;
+
+/*
+ * Where the samples of a rule come from, e.g. a simulator run or a replayed trace
+ * Each call to nextSample() may be expensive, so callers only draw samples that some rule still needs
+ */
+public interface SampleSource {
+	//Draws the next sample, TRUE if the property held on it
+	public boolean nextSample();
+}
@@ -0,0 +1,15 @@
+package sequential;
+
+import java.io.IOException;
+
+/*
+ * One machine or process sampling a rule for a ShardCoordinator, e.g. over a socket (see ShardCoordinator.StreamShard)
+ * The shard holds the rule with no samples, and answers each quota with a snapshot of only the samples it took for it
+ */
+public interface Shard {
+	//Asks for quota more samples; must not wait for them, so that all shards of a round sample at once
+	public void request(int quota) throws IOException;
+
+	//Snapshot of the samples of the last request, waiting for them
+	public RuleSnapshot collect() throws IOException;
+}
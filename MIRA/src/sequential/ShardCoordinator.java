@@ -0,0 +1,94 @@
+package sequential;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/*
+ * One group-sequential rule verified across shards, whose samples are merged at the looks of the rule
+ *
+ * The looks of the rule's LookSchedule are the synchronization points. Each round asks the shards for
+ * minAdditionalSamples() of the merged rule, which reaches to a look and past every look at which the rule cannot
+ * stop yet, split evenly over the shards. Their snapshots are merged into the rule (see RuleSnapshot), which is
+ * then checked once. The rule thus stops at exactly the look it would stop at on one machine fed the same samples,
+ * and rounds never get smaller than a group, as they would for a rule that checks after every sample.
+ */
+public class ShardCoordinator {
+	private final Shard[] shards;
+	private Algorithm rule;
+	private int rounds = 0;
+
+	public ShardCoordinator(Algorithm rule, Shard[] shards){
+		/*
+		 * The shards have to hold rule with no samples, and rule belongs to the coordinator afterwards
+		 */
+		if(rule.getLookSchedule() == null) throw new Error("ShardCoordinator rules MUST be group-sequential, the looks are the synchronization points");
+		if(shards.length == 0) throw new Error("ShardCoordinator needs at least one shard");
+		this.rule = rule;
+		this.shards = shards.clone();
+	}
+
+	public Algorithm getRule(){ return this.rule; }
+	public int getRounds(){ return this.rounds; }
+
+	public Algorithm run() throws IOException {
+		/*
+		 * Runs the rule to its decision, and returns it
+		 */
+		while(this.rule.obtainAnotherSample()) this.round();
+		return this.rule;
+	}
+
+	private void round() throws IOException {
+		//A batch of minAdditionalSamples() split over the shards, some of which may get none
+		int budget = this.rule.minAdditionalSamples();
+		int[] quotas = new int[this.shards.length];
+		for(int i = 0; i < this.shards.length; i++){
+			quotas[i] = budget / this.shards.length + (i < budget % this.shards.length ? 1 : 0);
+			this.shards[i].request(quotas[i]);
+		}
+		//The state after the last check is kept, so that Mira's delta carries on
+		RuleSnapshot state = RuleSnapshot.of(this.rule);
+		for(int i = 0; i < this.shards.length; i++){
+			RuleSnapshot batch = this.shards[i].collect();
+			if(batch.getTotalSamples() != quotas[i]){
+				throw new IOException("Shard " + i + " took " + batch.getTotalSamples() + " samples for a quota of " + quotas[i]);
+			}
+			state = state.merge(batch);
+		}
+		this.rule = state.toRule();
+		this.rounds++;
+	}
+
+	public static class StreamShard implements Shard {
+		/*
+		 * A shard at the other end of a pair of streams, e.g. of a socket
+		 *
+		 * A request is the quota as an int, answered by the snapshot of the samples taken for it. close() sends a
+		 * negative quota, which ends the shard. Sending the shard its rule and any seed beforehand is up to the caller.
+		 */
+		private final DataInputStream in;
+		private final DataOutputStream out;
+
+		public StreamShard(DataInputStream in, DataOutputStream out){
+			this.in = in;
+			this.out = out;
+		}
+
+		@Override
+		public void request(int quota) throws IOException {
+			this.out.writeInt(quota);
+			this.out.flush();
+		}
+
+		@Override
+		public RuleSnapshot collect() throws IOException {
+			return RuleSnapshot.readFrom(this.in);
+		}
+
+		public void close() throws IOException {
+			this.out.writeInt(-1);
+			this.out.flush();
+		}
+	}
+}
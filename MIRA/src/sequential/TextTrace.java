@@ -0,0 +1,117 @@
+package sequential;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/*
+ * A trace of samples in a text file, each line being true or false, read lazily
+ *
+ * Lines are parsed straight from a large byte buffer as they are asked for, so nothing past the samples the
+ * rule needs is parsed and at most one buffer past them is read. A line is TRUE if it is "true" in any case and
+ * FALSE otherwise, as with Boolean.parseBoolean, and lines end as with BufferedReader.readLine.
+ *
+ * A strict trace only takes "true" and "false", in any case, and any other line is a format error, so that a file
+ * that is not a trace is not read as all FALSE. Format and read errors are thrown as UncheckedIOException, as
+ * nextSample() cannot throw IOException.
+ */
+public class TextTrace implements SampleSource, Closeable {
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+	private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+
+	private final InputStream input;
+	private final boolean isStrict;
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	private int position = 0;
+	private int limit = 0;
+	private long bytesRead = 0;
+	private int samplesRead = 0;
+	private boolean isEnd = false;
+	private boolean skipLineFeed = false;//The last line ended with '\r', so a '\n' next is part of it
+
+	public TextTrace(File file) throws IOException {
+		this(file, false);
+	}
+
+	public TextTrace(File file, boolean isStrict) throws IOException {
+		this(new FileInputStream(file), isStrict);
+	}
+
+	public TextTrace(InputStream input){
+		this(input, false);
+	}
+
+	public TextTrace(InputStream input, boolean isStrict){
+		this.input = input;
+		this.isStrict = isStrict;
+	}
+
+	public long getBytesRead(){ return this.bytesRead; }
+	public int getSamplesRead(){ return this.samplesRead; }
+
+	public boolean hasNextSample(){
+		if(this.skipLineFeed){
+			if(!this.fill()) return false;
+			if(this.buffer[this.position] == '\n') this.position++;
+			this.skipLineFeed = false;
+		}
+		return this.fill();
+	}
+
+	public boolean nextSample(){
+		/*
+		 * Parses the next line, only call when hasNextSample() is TRUE
+		 */
+		if(!this.hasNextSample()) throw new Error("No more samples in the trace after " + this.samplesRead);
+		int length = 0;
+		boolean isTrue = true;
+		boolean isFalse = true;
+		while(this.fill()){
+			byte b = this.buffer[this.position++];
+			if(b == '\n') break;
+			if(b == '\r'){
+				this.skipLineFeed = true;
+				break;
+			}
+			//ASCII lower case, other bytes never match
+			if(length >= TRUE.length || (b | 0x20) != TRUE[length]) isTrue = false;
+			if(length >= FALSE.length || (b | 0x20) != FALSE[length]) isFalse = false;
+			length++;
+		}
+		this.samplesRead++;
+		if(isTrue && length == TRUE.length) return true;
+		if(this.isStrict && !(isFalse && length == FALSE.length)){
+			throw new UncheckedIOException(new IOException("Line " + this.samplesRead + " of the trace is neither true nor false"));
+		}
+		return false;
+	}
+
+	private boolean fill(){
+		//FALSE at the end of the input
+		while(this.position == this.limit){
+			if(this.isEnd) return false;
+			int read;
+			try{
+				read = this.input.read(this.buffer);
+			}catch(IOException e){
+				throw new UncheckedIOException(e);
+			}
+			if(read < 0){
+				this.isEnd = true;
+				return false;
+			}
+			this.position = 0;
+			this.limit = read;
+			this.bytesRead += read;
+		}
+		return true;
+	}
+
+	public void close() throws IOException {
+		this.input.close();
+	}
+}
@@ -0,0 +1,237 @@
+package sequential;
+
+import sequential.Algorithm.Conclusion;
+
+/*
+ * One stream of samples tested against a sorted grid of thetas, e.g. SLA tiers, instead of one run per theta
+ *
+ * The rules are all YounesA, all YounesB or all Mira, sorted by theta, and every rule ends with the same samples,
+ * stop and conclusion it would have on its own. The counts are kept once for the whole grid.
+ *
+ * For YounesA and YounesB the left hand side of H0 and H0prime falls and that of H1 and H1prime rises with
+ * theta at fixed counts, for the same delta, alpha, beta and gamma. Hence at every (n, k) H0 and H0prime hold for
+ * a prefix of the grid and H1 and H1prime for a suffix, and only the rules at the four ends, the frontier, are
+ * tested per sample as the ends move. Rules that stop are set to the counts they stopped at.
+ *
+ * Mira halves delta along the way, so its rules do not share boundaries. They are checked only at the sample
+ * given by minAdditionalSamples() instead, in a heap ordered by that sample.
+ */
+public class ThresholdSweep {
+	private final Algorithm[] rules;
+	private final Conclusion[] conclusions;//null while undecided
+	private final boolean isMira;
+	private int totalSamples = 0;
+	private int trueSamples = 0;
+	private int undecidedCount;
+	//YounesA and YounesB
+	private DecisionBoundary[] h0Boundary;
+	private DecisionBoundary[] h1Boundary;
+	private DecisionBoundary[] h0primeBoundary;//null for YounesA
+	private DecisionBoundary[] h1primeBoundary;//null for YounesA
+	private int maxSamples;
+	private int h0End;     //H0 holds for [0, h0End)
+	private int h0primeEnd;//H0prime holds for [0, h0primeEnd)
+	private int h1Start;   //H1 holds for [h1Start, length)
+	private int h1primeStart;//H1prime holds for [h1primeStart, length)
+	private int[] next;    //Next undecided rule at or after i, when compressed
+	//Mira
+	private int[] heap;    //Undecided rules by due
+	private int heapSize;
+	private int[] due;     //totalSamples at which the rule has to be checked
+
+	public ThresholdSweep(Algorithm[] rules){
+		/*
+		 * rules should not have been sampled yet and belong to the sweep afterwards
+		 */
+		this.rules = rules.clone();
+		this.conclusions = new Conclusion[rules.length];
+		this.undecidedCount = rules.length;
+		this.isMira = rules.length > 0 && rules[0] instanceof Mira;
+		for(int i = 0; i < rules.length; i++){
+			Algorithm rule = rules[i];
+			if(rule.getClass() != rules[0].getClass()){
+				throw new Error("ThresholdSweep rules MUST be all YounesA, all YounesB or all Mira: " + rule.getClass().getName());
+			}
+			if(rule.totalSamples != 0 || rule.getSkipRule()) throw new Error("ThresholdSweep rules MUST not be sampled or skipped");
+			if(rule.getLookSchedule() != null) throw new Error("ThresholdSweep rules MUST not be group-sequential");
+			if(i > 0 && rule.theta < rules[i - 1].theta){
+				throw new Error("ThresholdSweep thetas MUST be sorted. theta: " + rules[i - 1].theta + " > " + rule.theta);
+			}
+		}
+		if(rules.length == 0) return;
+		if(this.isMira){
+			this.heap = new int[rules.length];
+			this.due = new int[rules.length];
+			for(int i = 0; i < rules.length; i++){
+				this.due[i] = 1;
+				this.heap[this.heapSize++] = i;
+			}
+		}else if(rules[0] instanceof YounesA || rules[0] instanceof YounesB){
+			this.compileBoundaries();
+		}else{
+			throw new Error("ThresholdSweep only holds YounesA, YounesB and Mira rules: " + rules[0].getClass().getName());
+		}
+	}
+
+	private void compileBoundaries(){
+		int length = this.rules.length;
+		this.h0Boundary = new DecisionBoundary[length];
+		this.h1Boundary = new DecisionBoundary[length];
+		boolean isYounesB = this.rules[0] instanceof YounesB;
+		if(isYounesB){
+			this.h0primeBoundary = new DecisionBoundary[length];
+			this.h1primeBoundary = new DecisionBoundary[length];
+		}
+		Algorithm first = this.rules[0];
+		this.maxSamples = first.maxSamples;
+		for(int i = 0; i < length; i++){
+			Algorithm rule = this.rules[i];
+			double delta;
+			boolean isSame = rule.alpha == first.alpha && rule.beta == first.beta && rule.maxSamples == first.maxSamples;
+			if(isYounesB){
+				YounesB younesB = (YounesB) rule;
+				delta = younesB.getDelta();
+				isSame = isSame && delta == ((YounesB) first).getDelta() && younesB.getGamma() == ((YounesB) first).getGamma();
+				this.h0Boundary[i] = younesB.getH0Boundary();
+				this.h1Boundary[i] = younesB.getH1Boundary();
+				this.h0primeBoundary[i] = younesB.getH0primeBoundary();
+				this.h1primeBoundary[i] = younesB.getH1primeBoundary();
+			}else{
+				YounesA younesA = (YounesA) rule;
+				delta = younesA.getDelta();
+				isSame = isSame && delta == ((YounesA) first).getDelta();
+				this.h0Boundary[i] = younesA.getH0Boundary();
+				this.h1Boundary[i] = younesA.getH1Boundary();
+			}
+			//The frontier relies on the tests being monotone in theta, which needs the rest to be the same
+			if(!isSame) throw new Error("ThresholdSweep rules MUST only differ in theta. theta: " + rule.theta);
+		}
+		//Nothing holds before the first sample
+		this.h0End = 0;
+		this.h0primeEnd = isYounesB ? 0 : length;
+		this.h1Start = length;
+		this.h1primeStart = isYounesB ? length : 0;
+		this.next = new int[length + 1];
+		for(int i = 0; i <= length; i++) this.next[i] = i;
+	}
+
+	public int size(){ return this.rules.length; }
+	public Algorithm getRule(int i){ return this.rules[i]; }
+	public double getTheta(int i){ return this.rules[i].theta; }
+	public int getTotalSamples(){ return this.totalSamples; }
+	public int getTrueSamples(){ return this.trueSamples; }
+	public int getUndecidedCount(){ return this.undecidedCount; }
+
+	public Conclusion getConclusion(int i){
+		//null while rule i still needs samples
+		return this.conclusions[i];
+	}
+
+	public boolean obtainAnotherSample(){
+		return this.undecidedCount > 0;
+	}
+
+	public void update(boolean isTrue){
+		/*
+		 * Gives the next sample to every undecided rule and decides them
+		 */
+		this.totalSamples++;
+		if(isTrue) this.trueSamples++;
+		if(this.undecidedCount == 0) return;
+		if(this.isMira) this.checkDue();
+		else this.moveFrontier();
+	}
+
+	private void moveFrontier(){
+		int n = this.totalSamples;
+		int k = this.trueSamples;
+		int length = this.rules.length;
+		if(this.maxSamples > 0 && n >= this.maxSamples){
+			this.stop(0, length);
+			return;
+		}
+		this.h0End = prefixEnd(this.h0Boundary, this.h0End, n, k);
+		this.h1Start = suffixStart(this.h1Boundary, this.h1Start, n, k);
+		if(this.h0primeBoundary != null){
+			this.h0primeEnd = prefixEnd(this.h0primeBoundary, this.h0primeEnd, n, k);
+			this.h1primeStart = suffixStart(this.h1primeBoundary, this.h1primeStart, n, k);
+		}
+		/*
+		 * A rule stops on (H0 || H1) && (H0prime || H1prime), i.e. on the intersection of two unions of a prefix
+		 * and a suffix. YounesA has H0prime everywhere and H1prime nowhere, so only the first two remain.
+		 */
+		this.stop(0, Math.min(this.h0End, this.h0primeEnd));
+		this.stop(Math.max(this.h1Start, this.h1primeStart), length);
+		this.stop(this.h1primeStart, this.h0End);
+		this.stop(this.h1Start, this.h0primeEnd);
+	}
+
+	private static int prefixEnd(DecisionBoundary[] boundary, int end, int n, int k){
+		while(end < boundary.length && boundary[end].holds(n, k)) end++;
+		while(end > 0 && !boundary[end - 1].holds(n, k)) end--;
+		return end;
+	}
+
+	private static int suffixStart(DecisionBoundary[] boundary, int start, int n, int k){
+		while(start > 0 && boundary[start - 1].holds(n, k)) start--;
+		while(start < boundary.length && !boundary[start].holds(n, k)) start++;
+		return start;
+	}
+
+	private void stop(int from, int to){
+		//Stops the undecided rules in [from, to), skipping over the decided ones
+		for(int i = this.findUndecided(from); i < to; i = this.findUndecided(i + 1)){
+			this.conclude(i);
+			this.next[i] = i + 1;
+		}
+	}
+
+	private int findUndecided(int i){
+		int root = i;
+		while(this.next[root] != root) root = this.next[root];
+		while(this.next[i] != root){
+			int parent = this.next[i];
+			this.next[i] = root;
+			i = parent;
+		}
+		return root;
+	}
+
+	private void conclude(int i){
+		Algorithm rule = this.rules[i];
+		rule.update(this.trueSamples - rule.trueSamples, this.totalSamples - rule.totalSamples);
+		this.conclusions[i] = rule.getConclusionOrNull();
+		this.undecidedCount--;
+	}
+
+	private void checkDue(){
+		while(this.heapSize > 0 && this.due[this.heap[0]] <= this.totalSamples){
+			int i = this.heap[0];
+			Algorithm rule = this.rules[i];
+			rule.update(this.trueSamples - rule.trueSamples, this.totalSamples - rule.totalSamples);
+			if(rule.obtainAnotherSample()){
+				//Reschedule at the first sample after which it may stop or halve delta
+				this.due[i] = this.totalSamples + rule.minAdditionalSamples();
+				this.siftDown(0);
+			}else{
+				this.conclusions[i] = rule.getConclusionOrNull();
+				this.undecidedCount--;
+				this.heap[0] = this.heap[--this.heapSize];
+				this.siftDown(0);
+			}
+		}
+	}
+
+	private void siftDown(int position){
+		int i = this.heap[position];
+		while(true){
+			int child = 2 * position + 1;
+			if(child >= this.heapSize) break;
+			if(child + 1 < this.heapSize && this.due[this.heap[child + 1]] < this.due[this.heap[child]]) child++;
+			if(this.due[this.heap[child]] >= this.due[i]) break;
+			this.heap[position] = this.heap[child];
+			position = child;
+		}
+		this.heap[position] = i;
+	}
+}
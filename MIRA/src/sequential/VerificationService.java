@@ -0,0 +1,226 @@
+package sequential;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import sequential.Algorithm.Conclusion;
+
+/*
+ * Runs many rules at once, each drawing its samples from a blocking SampleSource on a thread of its own
+ *
+ * A rule whose samples come from blocking I/O, such as reads of recorded runs or a simulator in a subprocess, holds
+ * its thread while it waits, so a pool of one thread per processor would leave the processors idle. Here every
+ * rule is a task of its own and the executor, a cached pool by default, has as many threads as there are rules
+ * running. On a JVM with virtual threads, Executors.newVirtualThreadPerTaskExecutor() may be given instead, and
+ * the threads then cost next to nothing while they wait.
+ *
+ * What limits the concurrency is the sample sources: a rule may be given a Semaphore shared by all the rules
+ * drawing from one resource, e.g. as many permits as the database has connections, and holds a permit for each
+ * call to nextSample(). Rules with no limit draw as soon as they need a sample.
+ *
+ * The tasks are structured: a task draws samples only while obtainAnotherSample() of its rule is TRUE, so it ends
+ * as soon as the rule decides or is skipped, and cancelling a verification interrupts the sample it waits for.
+ * close() cancels every verification still running and waits for their tasks to end, so that no task outlives
+ * the service. The throughput of all the rules together is counted as they run.
+ */
+public class VerificationService implements AutoCloseable {
+	private final ExecutorService executor;
+	private final boolean isOwned;//The executor is shut down on close()
+	private final long startTime = System.nanoTime();
+	private final AtomicLong samples = new AtomicLong();
+	private final AtomicInteger completed = new AtomicInteger();
+	private final AtomicInteger failed = new AtomicInteger();
+	//Guarded by this
+	private final Set<Verification> verifications = new HashSet<Verification>();//Not yet complete
+	private int submitted = 0;
+	private int running = 0;//Tasks in the sampling loop of their rule
+	private Throwable failure = null;//First failure of a verification
+	private boolean isClosed = false;
+	private long endTime = -1;
+
+	public VerificationService(){
+		this(Executors.newCachedThreadPool(new ThreadFactory(){
+			private final AtomicInteger count = new AtomicInteger();
+			public Thread newThread(Runnable task){
+				Thread thread = new Thread(task, "verification-" + this.count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		}), true);
+	}
+
+	public VerificationService(ExecutorService executor){
+		//executor is not shut down on close(), it MUST start a task without waiting for another to end
+		this(executor, false);
+	}
+
+	private VerificationService(ExecutorService executor, boolean isOwned){
+		this.executor = executor;
+		this.isOwned = isOwned;
+	}
+
+	public Future<Conclusion> submit(Algorithm rule, SampleSource source){
+		return this.submit(rule, source, null);
+	}
+
+	public Future<Conclusion> submit(final Algorithm rule, final SampleSource source, final Semaphore limit){
+		/*
+		 * Runs rule on its own task until it decides or is skipped, drawing its samples from source
+		 * limit, if not null, is held for each call to source.nextSample()
+		 * The future completes with the conclusion of the rule, null for estimates (Operator.QUESTION) and skipped
+		 * rules, read the rule instead. rule MUST not be updated elsewhere until it completes, nor, if it is
+		 * cancelled, until close() returns, as the task may still be giving it the sample it was drawing.
+		 */
+		Verification verification = new Verification(new Callable<Conclusion>(){
+			public Conclusion call() throws Exception {
+				return VerificationService.this.verify(rule, source, limit);
+			}
+		});
+		synchronized(this){
+			if(this.isClosed) throw new Error("VerificationService is closed");
+			this.verifications.add(verification);
+			this.submitted++;
+		}
+		this.executor.execute(verification);
+		return verification;
+	}
+
+	private Conclusion verify(Algorithm rule, SampleSource source, Semaphore limit) throws InterruptedException {
+		synchronized(this){
+			//A task that starts after close() never samples, close() may already have stopped waiting for it
+			if(this.isClosed) throw new InterruptedException("VerificationService is closed");
+			this.running++;
+		}
+		try{
+			while(rule.obtainAnotherSample()){
+				if(Thread.interrupted()) throw new InterruptedException("Verification cancelled");
+				boolean isTrue;
+				if(limit == null){
+					isTrue = source.nextSample();
+				}else{
+					limit.acquire();
+					try{
+						isTrue = source.nextSample();
+					}finally{
+						limit.release();
+					}
+				}
+				rule.update(isTrue);
+				this.samples.incrementAndGet();
+			}
+			this.completed.incrementAndGet();
+			return rule.getConclusionOrNull();
+		}finally{
+			synchronized(this){
+				this.running--;
+				if(this.running == 0) this.notifyAll();
+			}
+		}
+	}
+
+	public long getSamplesTaken(){ return this.samples.get(); }
+	public int getRulesCompleted(){ return this.completed.get(); }
+	public int getRulesFailed(){ return this.failed.get(); }
+	public synchronized int getRulesSubmitted(){ return this.submitted; }
+	public synchronized int getRulesRunning(){ return this.running; }
+
+	public synchronized double getSeconds(){
+		//Since the service was created, until close()
+		return ((this.endTime < 0 ? System.nanoTime() : this.endTime) - this.startTime) / 1e9;
+	}
+
+	public double getSamplesPerSecond(){
+		//Samples taken by all the rules together, per second of getSeconds()
+		double seconds = this.getSeconds();
+		return seconds > 0 ? this.getSamplesTaken() / seconds : 0;
+	}
+
+	public void awaitAll() throws InterruptedException {
+		/*
+		 * Waits until every verification submitted completes or is cancelled
+		 * As soon as one fails, the others are cancelled and the failure is thrown as an Error
+		 */
+		Throwable failure;
+		synchronized(this){
+			while(!this.verifications.isEmpty() && this.failure == null) this.wait();
+			failure = this.failure;
+		}
+		if(failure != null){
+			this.cancelAll();
+			throw new Error("Verification failed", failure);
+		}
+	}
+
+	public void cancelAll(){
+		/*
+		 * Cancels every verification still running, interrupting the samples they wait for
+		 * The rules keep the samples taken so far
+		 */
+		List<Verification> verifications;
+		synchronized(this){
+			verifications = new ArrayList<Verification>(this.verifications);
+		}
+		for(Verification verification : verifications) verification.cancel(true);
+	}
+
+	public void close(){
+		/*
+		 * Cancels every verification still running and waits for their tasks to end
+		 * Call awaitAll() first to let them decide
+		 * An interrupt does not cut the wait short, as no task may outlive the service, it is kept for the caller
+		 */
+		synchronized(this){
+			if(this.isClosed) return;
+			this.isClosed = true;
+		}
+		this.cancelAll();
+		boolean isInterrupted = false;
+		synchronized(this){
+			while(this.running > 0){
+				try{
+					this.wait();
+				}catch(InterruptedException e){
+					isInterrupted = true;
+				}
+			}
+			this.endTime = System.nanoTime();
+		}
+		if(this.isOwned) this.executor.shutdownNow();
+		if(isInterrupted) Thread.currentThread().interrupt();
+	}
+
+	private class Verification extends FutureTask<Conclusion> {
+		Verification(Callable<Conclusion> task){
+			super(task);
+		}
+
+		protected void setException(Throwable failure){
+			//Failures of cancelled verifications, such as an interrupted read, are not counted
+			if(!this.isCancelled()){
+				VerificationService.this.failed.incrementAndGet();
+				synchronized(VerificationService.this){
+					if(VerificationService.this.failure == null) VerificationService.this.failure = failure;
+				}
+			}
+			super.setException(failure);
+		}
+
+		protected void done(){
+			synchronized(VerificationService.this){
+				VerificationService.this.verifications.remove(this);
+				VerificationService.this.notifyAll();
+			}
+		}
+	}
+}
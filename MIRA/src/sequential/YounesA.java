@@ -3,6 +3,9 @@ package sequential;
 
 public class YounesA extends Algorithm{
 	private double delta;//Half-width or half indifference Region
+	//Integer form of acceptH1ForYounesA and acceptH0ForYounesA
+	private DecisionBoundary h1Boundary;
+	private DecisionBoundary h0Boundary;
 	
 	public YounesA(Operator operator, double theta, double delta, double alpha, double beta, int maxSamples) {
 		this("", operator, theta, delta, alpha, beta, maxSamples);
@@ -12,8 +15,43 @@ public class YounesA extends Algorithm{
 		super(syntax, operator, theta, alpha, beta, maxSamples);
 		this.delta = delta;
 		this.adjustAndCheck(-1);
+		this.compileBoundaries();
+	}
+	
+	private void compileBoundaries(){
+		/*
+		 * Both tests depend only on (totalSamples, trueSamples), so compile them into per-n thresholds on trueSamples
+		 */
+		double a = this.theta + this.delta;
+		if(a > 1.0) a = 1.0;
+		double b = 1 - this.theta - this.delta;
+		if(b < 0.0) b = 0.0;
+		double sharedTrueLog = Math.log(a);
+		double sharedFalseLog = Math.log(b);
+		double trueLog = this.leftHandLog(false, true, this.delta);
+		double falseLog = this.leftHandLog(false, false, this.delta);
+		this.h1Boundary = new DecisionBoundary(trueLog, falseLog, sharedTrueLog, sharedFalseLog, 
+				this.lookAdjusted(Math.log(1 - this.beta) - Math.log(this.alpha), trueLog, falseLog, sharedTrueLog, sharedFalseLog), 
+				true, true);
+		this.h0Boundary = new DecisionBoundary(trueLog, falseLog, sharedTrueLog, sharedFalseLog, 
+				this.lookAdjusted(Math.log(this.beta) - Math.log(1 - this.alpha), trueLog, falseLog, sharedTrueLog, sharedFalseLog), 
+				false, false);
+	}
+	
+	@Override
+	protected void compileLookSchedule(){
+		this.calibrateLooks(this.delta, "delta=" + this.delta);
+	}
+	
+	@Override
+	protected void compileLookBoundaries(){
+		this.compileBoundaries();
 	}
 
+	double getDelta(){ return this.delta; }
+	DecisionBoundary getH0Boundary(){ return this.h0Boundary; }
+	DecisionBoundary getH1Boundary(){ return this.h1Boundary; }
+
 	@Override
 	protected boolean obtainAnotherSampleSpecific() {
 		/* 
@@ -21,20 +59,31 @@ public class YounesA extends Algorithm{
 		 * Given indifference region && Without Undecided Results
 		 * Note: gamma should be -1
 		 */				
-		double leftHandSide = this.computeLeftHandSide();
-		double sharedRightHand = this.computeSharedRightHandSide();
-		
-		if(this.acceptH0ForYounesA(leftHandSide, sharedRightHand) || this.acceptH1ForYounesA(leftHandSide, sharedRightHand)) return false;
-		else return true;	
+		return !(this.h0Boundary.holds(this.totalSamples, this.trueSamples) || 
+				this.h1Boundary.holds(this.totalSamples, this.trueSamples));
+	}
+	
+	@Override
+	protected boolean canStopAfter(int m) {
+		/*
+		 * H1 is easiest to reach with m false samples and H0 with m true samples, 
+		 * and both stay reachable as m grows
+		 */
+		int n = this.totalSamples + m;
+		int k = this.trueSamples;
+		return this.h1Boundary.holdsForSome(n, k, k + m) || this.h0Boundary.holdsForSome(n, k, k + m);
+	}
+	
+	@Override
+	protected double expectedRemainingSamples(double p){
+		//Wald's approximation, H1 and H0 are the two boundaries of one test
+		return this.waldRemainingSamples(this.h1Boundary, this.h0Boundary, p);
 	}
 	
 	@Override
 	public Conclusion getConclusion() {
-		double leftHandSide = this.computeLeftHandSide();
-		double sharedRightHand = this.computeSharedRightHandSide();
-		
-		if(this.acceptH1ForYounesA(leftHandSide, sharedRightHand)) return Conclusion.H1;
-		if(this.acceptH0ForYounesA(leftHandSide, sharedRightHand)) return Conclusion.H0;
+		if(this.h1Boundary.holds(this.totalSamples, this.trueSamples)) return Conclusion.H1;
+		if(this.h0Boundary.holds(this.totalSamples, this.trueSamples)) return Conclusion.H0;
 		//Max Sample Size Reached
 		if(this.maxSamples == this.totalSamples) return Conclusion.MAXSAMPLESIZE;
 		else{
@@ -42,29 +91,4 @@ public class YounesA extends Algorithm{
 			throw new Error("Unhandled Conclusion: " + this.maxSamples + "\t" + this.totalSamples);
 		}
 	}
-	
-	private double computeLeftHandSide(){
-		//return this.trueSamples * Math.log(this.theta - this.delta) + (this.totalSamples - this.trueSamples) * Math.log(1 - this.theta + this.delta);
-		return this.leftHandValue(false, this.delta);
-	}
-	
-	private double computeSharedRightHandSide(){
-		double a = this.theta + this.delta;
-		if(a > 1.0) a = 1.0;
-		double b = 1 - this.theta - this.delta;
-		if(b < 0.0) b = 0.0;
-		return this.trueSamples * Math.log(a) + (this.totalSamples - this.trueSamples) * Math.log(b);
-	}
-	
-	private boolean acceptH1ForYounesA(double leftHandSide, double sharedRightHand){		
-		//This method is for Younes A
-		double h1Constant = Math.log(1 - this.beta) - Math.log(this.alpha) + sharedRightHand;
-		return leftHandSide >= h1Constant;
-	}
-	
-	private boolean acceptH0ForYounesA(double leftHandSide, double sharedRightHand){
-		//This method is for Younes A
-		double h0Constant = Math.log(this.beta) - Math.log(1 - this.alpha) + sharedRightHand;
-		return leftHandSide <= h0Constant;
-	}
 }
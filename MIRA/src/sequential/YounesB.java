@@ -4,6 +4,11 @@ package sequential;
 public class YounesB extends Algorithm {
 	private double delta;
 	private double gamma;
+	//Integer form of acceptH0, acceptH1, acceptH0prime and acceptH1prime
+	private DecisionBoundary h0Boundary;
+	private DecisionBoundary h1Boundary;
+	private DecisionBoundary h0primeBoundary;
+	private DecisionBoundary h1primeBoundary;
 	
 	public YounesB(String syntax, Operator operator, double theta, double delta, double alpha, double beta, double gamma, int maxSamples){
 		/*
@@ -14,32 +19,79 @@ public class YounesB extends Algorithm {
 		this.delta = delta;
 		this.gamma = gamma;
 		this.adjustAndCheck(this.gamma);
+		this.compileBoundaries();
+	}
+	
+	private void compileBoundaries(){
+		double sharedTrueLog = Math.log(this.theta);
+		double sharedFalseLog = Math.log(1 - this.theta);
+		this.h0Boundary = this.compileH0(sharedTrueLog, sharedFalseLog, this.delta, this.gamma);
+		this.h1Boundary = this.compileH1(sharedTrueLog, sharedFalseLog, this.delta, this.gamma);
+		this.h0primeBoundary = this.compileH0prime(sharedTrueLog, sharedFalseLog, this.delta, this.gamma);
+		this.h1primeBoundary = this.compileH1prime(sharedTrueLog, sharedFalseLog, this.delta, this.gamma);
+	}
+	
+	@Override
+	protected void compileLookSchedule(){
+		this.calibrateLooks(this.delta, "delta=" + this.delta + " gamma=" + this.gamma);
+	}
+	
+	@Override
+	protected void compileLookBoundaries(){
+		this.compileBoundaries();
 	}
 
+	double getDelta(){ return this.delta; }
+	double getGamma(){ return this.gamma; }
+	DecisionBoundary getH0Boundary(){ return this.h0Boundary; }
+	DecisionBoundary getH1Boundary(){ return this.h1Boundary; }
+	DecisionBoundary getH0primeBoundary(){ return this.h0primeBoundary; }
+	DecisionBoundary getH1primeBoundary(){ return this.h1primeBoundary; }
+
 	@Override
 	protected boolean obtainAnotherSampleSpecific() {
 		/*
 		 * Younes Algorithm B
 		 * Given indifference Region && With Undecided Results
 		 * Note: this.dynamicDelta is false
+		 * 
+		 * Sampling stops (decided or undecided results) once (H0 || H1) && (H0prime || H1prime)
+		 */
+		int n = this.totalSamples;
+		int k = this.trueSamples;
+		return !((this.h0Boundary.holds(n, k) || this.h1Boundary.holds(n, k)) && 
+				(this.h0primeBoundary.holds(n, k) || this.h1primeBoundary.holds(n, k)));
+	}
+
+	@Override
+	protected boolean canStopAfter(int m) {
+		/*
+		 * Each test is easiest to reach along all false (H1 and H1prime) or all true (H0 and H0prime) samples, 
+		 * and stays reachable as m grows. Requiring (H0 || H1) and (H0prime || H1prime) separately may 
+		 * only err towards TRUE.
+		 */
+		int n = this.totalSamples + m;
+		int k = this.trueSamples;
+		return (this.h0Boundary.holdsForSome(n, k, k + m) || this.h1Boundary.holdsForSome(n, k, k + m)) && 
+				(this.h0primeBoundary.holdsForSome(n, k, k + m) || this.h1primeBoundary.holdsForSome(n, k, k + m));
+	}
+
+	@Override
+	protected double expectedRemainingSamples(double p){
+		/*
+		 * Sampling stops once both tests have decided, of which Wald's approximation gives the longer
+		 * As the expected maximum of two stopping times is at least the maximum of their expectations, this errs low
 		 */
-		double sharedConstant = this.trueSamples * Math.log(this.theta) + (this.totalSamples - this.trueSamples) * Math.log(1 - this.theta);
-		if((this.acceptH0(sharedConstant, this.delta, this.gamma) && this.acceptH0prime(sharedConstant, this.delta, this.gamma)) || 
-				(this.acceptH1(sharedConstant, this.delta, this.gamma) && this.acceptH1prime(sharedConstant, this.delta, this.gamma))){
-			return false;//decided results
-		}else if((this.acceptH0(sharedConstant, this.delta, this.gamma) || this.acceptH1(sharedConstant, this.delta, this.gamma)) && 
-				(this.acceptH0prime(sharedConstant, this.delta, this.gamma) || this.acceptH1prime(sharedConstant, this.delta, this.gamma))){
-			return false;//undecided results
-		}else{
-			return true;//continue sampling
-		}
+		return Math.max(this.waldRemainingSamples(this.h1Boundary, this.h0Boundary, p), 
+				this.waldRemainingSamples(this.h0primeBoundary, this.h1primeBoundary, p));
 	}
 
 	@Override
 	public Conclusion getConclusion() {
-		double sharedConstant = this.trueSamples * Math.log(this.theta) + (this.totalSamples - this.trueSamples) * Math.log(1 - this.theta);
-		if(this.acceptH0(sharedConstant, this.delta, this.gamma) && this.acceptH0prime(sharedConstant, this.delta, this.gamma)) return Conclusion.H0;
-		if(this.acceptH1(sharedConstant, this.delta, this.gamma) && this.acceptH1prime(sharedConstant, this.delta, this.gamma)) return Conclusion.H1;
+		int n = this.totalSamples;
+		int k = this.trueSamples;
+		if(this.h0Boundary.holds(n, k) && this.h0primeBoundary.holds(n, k)) return Conclusion.H0;
+		if(this.h1Boundary.holds(n, k) && this.h1primeBoundary.holds(n, k)) return Conclusion.H1;
 		if(this.maxSamples == this.totalSamples) return Conclusion.MAXSAMPLESIZE;
 		return Conclusion.UNDECIDED;//Undecided
 	}	
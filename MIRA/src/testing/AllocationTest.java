@@ -0,0 +1,155 @@
+package testing;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import sequential.Algorithm;
+import sequential.BayesianA;
+import sequential.BayesianB;
+import sequential.FixedCIEstimate;
+import sequential.FixedSamples;
+import sequential.Mira;
+import sequential.RuleBank;
+import sequential.YounesA;
+import sequential.YounesB;
+
+public class AllocationTest {
+	/*
+	 * The update/decide loop of every algorithm must not allocate, so that high rate monitors cause no GC
+	 * Allocations are counted per thread by the HotSpot ThreadMXBean, the tests are skipped on JVMs without it
+	 *
+	 * The JIT allocates on the thread it compiles for, e.g. on-stack replacement of a loop, so a measured run may
+	 * allocate while the loop is still being compiled, however long it was warmed up. Hence the same run is
+	 * repeated, on fresh rules, until one allocates nothing. An allocation of the loop itself happens in every
+	 * repeat and fails the test after MAX_REPEATS.
+	 */
+	private static final int SAMPLES = 200000;
+	private static final int MAX_REPEATS = 20;
+
+	private static class Counter {
+		//Only loaded once com.sun.management.ThreadMXBean is known to be there
+		private static final com.sun.management.ThreadMXBean BEAN =
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+		static boolean isSupported(){
+			if(!BEAN.isThreadAllocatedMemorySupported()) return false;
+			if(!BEAN.isThreadAllocatedMemoryEnabled()) BEAN.setThreadAllocatedMemoryEnabled(true);
+			return true;
+		}
+
+		static long allocatedBytes(){
+			return BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+	}
+
+	@Before
+	public void assumeCounter(){
+		boolean isSupported;
+		try{
+			isSupported = Class.forName("com.sun.management.ThreadMXBean").isInstance(ManagementFactory.getThreadMXBean()) &&
+					Counter.isSupported();
+		}catch(ClassNotFoundException e){
+			isSupported = false;
+		}
+		Assume.assumeTrue("Allocations per thread are not counted on this JVM", isSupported);
+	}
+
+	@Test
+	public void updateAndDecideDoNotAllocate(){
+		Random rand = new Random(1);
+		final double theta = 0.3;
+		boolean[] outcomes = new boolean[SAMPLES];
+		for(int i = 0; i < SAMPLES; i++) outcomes[i] = rand.nextDouble() < theta;//At theta, so runs are long
+
+		long overhead = this.countingOverhead();
+		for(int type = 0; type < 7; type++){
+			long allocated = 0;
+			String name = null;
+			for(int repeat = 0; repeat < MAX_REPEATS; repeat++){
+				Algorithm rule = this.createRule(type, theta);
+				name = rule.getClass().getSimpleName();
+				//First sample and decision outside of the count, they fill the caches
+				rule.obtainAnotherSample();
+				rule.update(outcomes[0]);
+				rule.obtainAnotherSample();
+				long before = Counter.allocatedBytes();
+				this.run(rule, outcomes, 1);
+				allocated = Counter.allocatedBytes() - before - overhead;
+				if(allocated <= 0) break;
+			}
+			Assert.assertTrue(name + " allocated " + allocated + " bytes", allocated <= 0);
+		}
+	}
+
+	private void run(Algorithm rule, boolean[] outcomes, int first){
+		for(int i = first; i < outcomes.length && rule.obtainAnotherSample(); i++){
+			rule.update(outcomes[i]);
+		}
+	}
+
+	private Algorithm createRule(int type, double theta){
+		final double delta = 0.01;
+		final double alpha = 0.01;
+		final double beta = alpha;
+		final double gamma = Math.min(alpha, beta);
+		final int maxSamples = SAMPLES;
+		switch(type){
+		case 0: return new YounesA(Algorithm.Operator.GREATER, theta, delta, alpha, beta, maxSamples);
+		case 1: return new YounesB("", Algorithm.Operator.GREATER, theta, delta, alpha, beta, gamma, maxSamples);
+		case 2: return new Mira(theta, alpha, beta, maxSamples);
+		case 3: return new BayesianA("", Algorithm.Operator.GREATER, theta, 1, 1, 1000000, maxSamples);
+		case 4: return new BayesianB("", Algorithm.Operator.GREATER, theta, 1, 1, 1e-7, maxSamples);
+		case 5: return new FixedCIEstimate("", 0.05, 0.001, maxSamples);
+		default: return new FixedSamples("", 0.05, maxSamples);
+		}
+	}
+
+	@Test
+	public void ruleBankDoesNotAllocate(){
+		Random rand = new Random(1);
+		final int rules = 1000;
+		boolean[] outcomes = new boolean[rules];
+		long overhead = this.countingOverhead();
+		long allocated = 0;
+		for(int repeat = 0; repeat < MAX_REPEATS; repeat++){
+			RuleBank bank = this.createBank(rand, rules);
+			this.run(bank, outcomes, rand, 1);
+			long before = Counter.allocatedBytes();
+			this.run(bank, outcomes, rand, 1000);
+			allocated = Counter.allocatedBytes() - before - overhead;
+			if(allocated <= 0) break;
+		}
+		Assert.assertTrue("RuleBank allocated " + allocated + " bytes", allocated <= 0);
+	}
+
+	private void run(RuleBank bank, boolean[] outcomes, Random rand, int rounds){
+		for(int round = 0; round < rounds && bank.getActiveCount() > 0; round++){
+			for(int i = 0; i < outcomes.length; i++) outcomes[i] = rand.nextBoolean();
+			bank.update(outcomes);
+		}
+	}
+
+	private RuleBank createBank(Random rand, int rules){
+		RuleBank bank = new RuleBank();
+		for(int i = 0; i < rules; i++){
+			double theta = 0.05 + 0.9 * rand.nextDouble();
+			switch(i % 4){
+			case 0: bank.add(new YounesA(Algorithm.Operator.GREATER, theta, 0.01, 0.01, 0.01, SAMPLES)); break;
+			case 1: bank.add(new YounesB("", Algorithm.Operator.GREATER, theta, 0.01, 0.01, 0.01, 0.01, SAMPLES)); break;
+			case 2: bank.add(new Mira(theta, 0.01, 0.01, SAMPLES)); break;
+			default: bank.add(new BayesianB("", Algorithm.Operator.GREATER, theta, 1, 1, 1e-6, SAMPLES));
+			}
+		}
+		return bank;
+	}
+
+	private long countingOverhead(){
+		long start = Counter.allocatedBytes();
+		return Counter.allocatedBytes() - start;
+	}
+}
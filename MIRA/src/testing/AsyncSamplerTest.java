@@ -0,0 +1,132 @@
+package testing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import sequential.Algorithm;
+import sequential.Algorithm.Conclusion;
+import sequential.AsyncSampleSource;
+import sequential.AsyncSampler;
+
+public class AsyncSamplerTest {
+	private static final int LENGTH = 1 << 16;
+	private static final boolean[] OUTCOMES = new boolean[LENGTH];
+	static{
+		Random rand = new Random(1);
+		for(int i = 0; i < LENGTH; i++) OUTCOMES[i] = rand.nextDouble() < 0.29;
+	}
+
+	private class DelayedSource implements AsyncSampleSource {
+		/*
+		 * Sample i completes with OUTCOMES[i] after a random delay, longer for true samples, so that they complete
+		 * out of order. Keeps every future it returned.
+		 */
+		final ScheduledExecutorService executor;
+		final Random rand = new Random(2);
+		final List<CompletableFuture<Boolean>> samples = new ArrayList<CompletableFuture<Boolean>>();
+		int maxInFlight = 0;
+
+		DelayedSource(ScheduledExecutorService executor){
+			this.executor = executor;
+		}
+
+		public synchronized CompletableFuture<Boolean> nextSample(){
+			final int index = this.samples.size();
+			final CompletableFuture<Boolean> sample = new CompletableFuture<Boolean>();
+			this.samples.add(sample);
+			int inFlight = 0;
+			for(CompletableFuture<Boolean> s : this.samples) if(!s.isDone()) inFlight++;
+			this.maxInFlight = Math.max(this.maxInFlight, inFlight);
+			long delay = this.rand.nextInt(200) + (OUTCOMES[index] ? 300 : 0);
+			this.executor.schedule(new Runnable(){
+				public void run(){ sample.complete(OUTCOMES[index]); }
+			}, delay, TimeUnit.MICROSECONDS);
+			return sample;
+		}
+	}
+
+	@Test
+	public void sameAsSequential(){
+		/*
+		 * Same samples in the same order as from one thread, whatever order they complete in
+		 * Every sample in flight at the decision is cancelled
+		 */
+		ScheduledExecutorService executor = Executors.newScheduledThreadPool(4);
+		try{
+			for(int type = Rules.YOUNES_A; type <= Rules.MIRA; type++){
+				Algorithm expected = Rules.create(type);
+				int i = 0;
+				while(expected.obtainAnotherSample()) expected.update(OUTCOMES[i++]);
+				DelayedSource source = new DelayedSource(executor);
+				AsyncSampler sampler = new AsyncSampler(Rules.create(type), source, 4, 64);
+				Conclusion conclusion = sampler.start().join();
+				Assert.assertEquals(expected.getConclusion(), conclusion);
+				Assert.assertEquals(expected.getTotalSamples(), sampler.getRule().getTotalSamples());
+				Assert.assertEquals(expected.getTrueSamples(), sampler.getRule().getTrueSamples());
+				Assert.assertEquals(0, sampler.getSamplesInFlight());
+				Assert.assertTrue(source.maxInFlight <= 64);
+				Assert.assertEquals(source.samples.size(), sampler.getSamplesRequested());
+				int cancelled = 0;
+				for(CompletableFuture<Boolean> sample : source.samples){
+					Assert.assertTrue(sample.isDone());
+					if(sample.isCancelled()) cancelled++;
+				}
+				Assert.assertEquals(cancelled, sampler.getSamplesCancelled());
+			}
+		}finally{
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void immediateSamples(){
+		/*
+		 * Samples that are complete when returned are given to the rule without recursion
+		 */
+		final int[] index = {0};
+		AsyncSampler sampler = new AsyncSampler(Rules.create(Rules.MIRA), new AsyncSampleSource(){
+			public CompletableFuture<Boolean> nextSample(){
+				return CompletableFuture.completedFuture(OUTCOMES[index[0]++]);
+			}
+		}, 1, 1000);
+		Conclusion conclusion = sampler.start().join();
+		Algorithm expected = Rules.create(Rules.MIRA);
+		int i = 0;
+		while(expected.obtainAnotherSample()) expected.update(OUTCOMES[i++]);
+		Assert.assertEquals(expected.getConclusion(), conclusion);
+		Assert.assertEquals(expected.getTotalSamples(), sampler.getRule().getTotalSamples());
+	}
+
+	@Test
+	public void failureCompletesExceptionally(){
+		final List<CompletableFuture<Boolean>> samples = new ArrayList<CompletableFuture<Boolean>>();
+		AsyncSampler sampler = new AsyncSampler(Rules.create(Rules.YOUNES_A), new AsyncSampleSource(){
+			public CompletableFuture<Boolean> nextSample(){
+				CompletableFuture<Boolean> sample = new CompletableFuture<Boolean>();
+				samples.add(sample);
+				return sample;
+			}
+		}, 8, 8);
+		CompletableFuture<Conclusion> result = sampler.start();
+		Assert.assertEquals(8, samples.size());
+		samples.get(1).complete(true);
+		samples.get(0).completeExceptionally(new IllegalStateException("simulator crashed"));
+		try{
+			result.join();
+			Assert.fail();
+		}catch(CompletionException e){
+			Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+		for(int i = 2; i < 8; i++) Assert.assertTrue(samples.get(i).isCancelled());
+		Assert.assertEquals(0, sampler.getRule().getTotalSamples());
+	}
+}
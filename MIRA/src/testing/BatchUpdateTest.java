@@ -0,0 +1,138 @@
+package testing;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import sequential.Algorithm;
+import sequential.BayesianA;
+import sequential.BayesianB;
+import sequential.FixedCIEstimate;
+import sequential.FixedSamples;
+import sequential.Mira;
+import sequential.YounesA;
+import sequential.YounesB;
+
+public class BatchUpdateTest {
+	private static final int TYPES = 7;
+	private static final int RUNS = 200;
+
+	private Algorithm createRule(int type, double theta, Random rand){
+		/*
+		 * Random parameters, and maxSamples now and then so that some runs end on it
+		 */
+		double delta = 0.005 + 0.05 * rand.nextDouble();
+		double alpha = 0.005 + 0.1 * rand.nextDouble();
+		double beta = 0.005 + 0.1 * rand.nextDouble();
+		int maxSamples = rand.nextInt(4) == 0 ? 1 + rand.nextInt(3000) : 0;
+		switch(type){
+		case 0: return new YounesA(Algorithm.Operator.GREATER, theta, delta, alpha, beta, maxSamples);
+		case 1: return new YounesB("", Algorithm.Operator.GREATER, theta, delta, alpha, beta, Math.min(alpha, beta), maxSamples);
+		case 2: return new Mira(theta, alpha, beta, maxSamples == 0 ? 20000 : maxSamples);
+		case 3: return new BayesianA("", Algorithm.Operator.GREATER, theta, 1, 1, 10 + 1000 * rand.nextDouble(), maxSamples);
+		case 4: return new BayesianB("", Algorithm.Operator.GREATER, theta, 1, 1, 1e-6 + 1e-4 * rand.nextDouble(), maxSamples);
+		case 5: return new FixedCIEstimate("", 0.01 + 0.1 * rand.nextDouble(), 0.005 + 0.05 * rand.nextDouble(), maxSamples);
+		default: return new FixedSamples("", 0.05, 1 + rand.nextInt(5000));
+		}
+	}
+
+	private boolean[] outcomes(double p, Random rand){
+		boolean[] outcomes = new boolean[20000];
+		for(int i = 0; i < outcomes.length; i++) outcomes[i] = rand.nextDouble() < p;
+		return outcomes;
+	}
+
+	private void perSample(Algorithm rule, boolean[] outcomes){
+		int i = 0;
+		while(i < outcomes.length && rule.obtainAnotherSample()) rule.update(outcomes[i++]);
+	}
+
+	private void batched(Algorithm rule, boolean[] outcomes, Random rand){
+		int i = 0;
+		while(i < outcomes.length && rule.obtainAnotherSample()){
+			int min = rule.minAdditionalSamples();
+			Assert.assertTrue(min >= 1);
+			//Whole blocks, or any shorter one
+			int block = Math.min(outcomes.length - i, rand.nextInt(4) > 0 ? min : 1 + rand.nextInt(min));
+			int trues = 0;
+			for(int j = 0; j < block; j++) if(outcomes[i + j]) trues++;
+			rule.update(trues, block);
+			i += block;
+		}
+	}
+
+	private void packed(Algorithm rule, boolean[] outcomes, Random rand){
+		/*
+		 * Words of up to 64 outcomes, the next word starts where the rule stopped taking samples
+		 */
+		int i = 0;
+		while(i < outcomes.length){
+			int count = Math.min(outcomes.length - i, rand.nextInt(4) > 0 ? 64 : rand.nextInt(65));
+			long word = 0;
+			for(int j = 0; j < count; j++) if(outcomes[i + j]) word |= 1L << j;
+			int totalSamples = rule.getTotalSamples();
+			int used = rule.updateWord(word, count);
+			Assert.assertEquals(rule.getTotalSamples() - totalSamples, used);
+			i += used;
+			if(used < count) break;
+		}
+	}
+
+	private void assertSame(String where, Algorithm expected, Algorithm actual){
+		Assert.assertEquals(where, expected.getTotalSamples(), actual.getTotalSamples());
+		Assert.assertEquals(where, expected.getTrueSamples(), actual.getTrueSamples());
+		Assert.assertEquals(where, expected.obtainAnotherSample(), actual.obtainAnotherSample());
+		if(expected.getOperator() != Algorithm.Operator.QUESTION && !expected.obtainAnotherSample()){
+			Assert.assertEquals(where, expected.getConclusion(), actual.getConclusion());
+		}
+	}
+
+	@Test
+	public void blocksOfMinAdditionalSamplesSameAsPerSample(){
+		/*
+		 * update(trues, total) in blocks of up to minAdditionalSamples() takes the same samples and concludes alike
+		 * as the per-sample loop, with p at, near and away from theta, where Mira reduces delta
+		 */
+		Random rand = new Random(4);
+		for(int type = 0; type < TYPES; type++){
+			for(int run = 0; run < RUNS; run++){
+				double theta = 0.02 + 0.96 * rand.nextDouble();
+				double p = Math.min(1.0, Math.max(0.0, theta + (rand.nextInt(3) - 1) * 0.1 * rand.nextDouble()));
+				long seed = rand.nextLong();
+				boolean[] outcomes = this.outcomes(p, rand);
+				Algorithm expected = this.createRule(type, theta, new Random(seed));
+				this.perSample(expected, outcomes);
+				Algorithm rule = this.createRule(type, theta, new Random(seed));
+				this.batched(rule, outcomes, rand);
+				this.assertSame(rule.getClass().getSimpleName() + " theta=" + theta + " p=" + p + " run=" + run, expected, rule);
+			}
+		}
+	}
+
+	@Test
+	public void updateWordSameAsPerSample(){
+		/*
+		 * updateWord stops at exactly the sample the per-sample loop stops at, and agrees with blocks of 
+		 * minAdditionalSamples() on the same outcomes
+		 */
+		Random rand = new Random(6);
+		for(int type = 0; type < TYPES; type++){
+			for(int run = 0; run < RUNS; run++){
+				double theta = 0.02 + 0.96 * rand.nextDouble();
+				double p = Math.min(1.0, Math.max(0.0, theta + (rand.nextInt(3) - 1) * 0.1 * rand.nextDouble()));
+				long seed = rand.nextLong();
+				boolean[] outcomes = this.outcomes(p, rand);
+				Algorithm expected = this.createRule(type, theta, new Random(seed));
+				this.perSample(expected, outcomes);
+				Algorithm packed = this.createRule(type, theta, new Random(seed));
+				this.packed(packed, outcomes, rand);
+				Algorithm batched = this.createRule(type, theta, new Random(seed));
+				this.batched(batched, outcomes, rand);
+				String where = packed.getClass().getSimpleName() + " theta=" + theta + " p=" + p + " run=" + run;
+				this.assertSame(where, expected, packed);
+				this.assertSame(where, batched, packed);
+			}
+		}
+	}
+}
@@ -0,0 +1,150 @@
+package testing;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import sequential.Algorithm;
+import sequential.BatchVerifier;
+import sequential.BinaryTrace;
+import sequential.RuleSpec;
+import sequential.TextTrace;
+
+public class BatchVerifierTest {
+	private static final String[] RULES = {
+		"above30 Mira >= 0.3 alpha=0.01 beta=0.01",
+		"below40 YounesB < 0.4 delta=0.01 alpha=0.01 beta=0.01 maxSamples=100000",
+		"bayes BayesianB > 0.3 alpha=1 beta=1 varianceThreshold=0.0001",
+		"rate FixedCIEstimate =? confidence=0.05 ciHalfWidth=0.01"
+	};
+
+	private File createTraces() throws IOException {
+		/*
+		 * trace0.txt to trace2.txt, trace3.bin, and notes.md which is not a trace, though its first line is true
+		 */
+		File directory = File.createTempFile("traces", "");
+		directory.delete();
+		directory.mkdir();
+		directory.deleteOnExit();
+		Random rand = new Random(1);
+		double[] p = {0.2, 0.3, 0.45, 0.35};
+		for(int t = 0; t < 4; t++){
+			File file = new File(directory, "trace" + t + ".txt");
+			file.deleteOnExit();
+			FileOutputStream output = new FileOutputStream(file);
+			for(int i = 0; i < 20000 + 1000 * t; i++) output.write((rand.nextDouble() < p[t] ? "true\n" : "false\n").getBytes("UTF-8"));
+			output.close();
+		}
+		File text = new File(directory, "trace3.txt");
+		File binary = new File(directory, "trace3.bin");
+		binary.deleteOnExit();
+		BinaryTrace.convert(text, binary, "trace3");
+		text.delete();
+		File notes = new File(directory, "notes.md");
+		notes.deleteOnExit();
+		FileOutputStream output = new FileOutputStream(notes);
+		output.write("true\nof every run\n".getBytes("UTF-8"));
+		output.close();
+		return directory;
+	}
+
+	private List<RuleSpec> specs(){
+		List<RuleSpec> specs = new ArrayList<RuleSpec>();
+		for(String rule : RULES) specs.add(new RuleSpec(rule));
+		return specs;
+	}
+
+	@Test
+	public void sameAsOneRuleAtATime() throws IOException {
+		File directory = this.createTraces();
+		List<File> traces = BatchVerifier.listTraces(new File(directory, "trace*").getPath());
+		Assert.assertEquals(4, traces.size());
+		Assert.assertEquals(5, BatchVerifier.listTraces(directory.getPath()).size());
+		StringWriter table = new StringWriter();
+		new BatchVerifier(this.specs()).run(traces, 3, new PrintWriter(table));
+		String[] lines = table.toString().split("\n");
+		Assert.assertEquals(BatchVerifier.HEADER, lines[0]);
+		Assert.assertEquals(1 + traces.size() * RULES.length, lines.length);
+		for(int t = 0; t < traces.size(); t++){
+			for(int r = 0; r < RULES.length; r++){
+				String[] row = lines[1 + t * RULES.length + r].split("\t");
+				Assert.assertEquals(traces.get(t).getPath(), row[0]);
+				Assert.assertEquals(this.specs().get(r).getName(), row[1]);
+				//The rule on its own, one sample at a time up to the end of the trace
+				Algorithm rule = this.specs().get(r).create();
+				List<Boolean> outcomes = this.read(traces.get(t));
+				int i = 0;
+				while(i < outcomes.size() && rule.obtainAnotherSample()) rule.update(outcomes.get(i++));
+				Assert.assertEquals("" + rule.getTotalSamples(), row[3]);
+				Assert.assertEquals("" + rule.getTrueSamples(), row[4]);
+				if(rule.getOperator() != Algorithm.Operator.QUESTION){
+					Assert.assertEquals("" + rule.getConclusion(), row[5]);
+					Assert.assertEquals("" + rule.getConclusionInRuleStatus(), row[6]);
+				}
+			}
+		}
+	}
+
+	private List<Boolean> read(File file) throws IOException {
+		List<Boolean> outcomes = new ArrayList<Boolean>();
+		if(BinaryTrace.isBinaryTrace(file)){
+			BinaryTrace trace = new BinaryTrace(file);
+			while(trace.hasNextSample()) outcomes.add(trace.nextSample());
+		}else{
+			TextTrace trace = new TextTrace(file);
+			while(trace.hasNextSample()) outcomes.add(trace.nextSample());
+			trace.close();
+		}
+		return outcomes;
+	}
+
+	@Test
+	public void unreadableTraceIsAnErrorRow() throws IOException {
+		File directory = this.createTraces();
+		File missing = new File(directory, "missing.txt");
+		List<File> traces = new ArrayList<File>();
+		traces.add(missing);
+		StringWriter table = new StringWriter();
+		new BatchVerifier(this.specs()).run(traces, 2, new PrintWriter(table));
+		String[] lines = table.toString().split("\n");
+		Assert.assertEquals(2, lines.length);
+		Assert.assertEquals("ERROR", lines[1].split("\t")[6]);
+	}
+
+	@Test
+	public void otherFilesAreErrorRows() throws IOException {
+		/*
+		 * A file of the directory that is not a trace, or a binary trace cut short, is an error row, not a trace of
+		 * FALSE samples, and the other traces are still verified
+		 */
+		File directory = this.createTraces();
+		RandomAccessFile access = new RandomAccessFile(new File(directory, "trace3.bin"), "rw");
+		access.setLength(access.length() - 8);
+		access.close();
+		StringWriter table = new StringWriter();
+		new BatchVerifier(this.specs()).run(BatchVerifier.listTraces(directory.getPath()), 2, new PrintWriter(table));
+		String[] lines = table.toString().split("\n");
+		Assert.assertEquals(1 + 2 + 3 * RULES.length, lines.length);
+		String[] notes = lines[1].split("\t");
+		Assert.assertTrue(notes[0].endsWith("notes.md"));
+		Assert.assertEquals("ERROR", notes[6]);
+		String[] binary = lines[lines.length - 1].split("\t");
+		Assert.assertTrue(binary[0].endsWith("trace3.bin"));
+		Assert.assertEquals("ERROR", binary[6]);
+		for(int i = 2; i < lines.length - 1; i++) Assert.assertNotEquals("ERROR", lines[i].split("\t")[6]);
+	}
+
+	@Test(expected = Error.class)
+	public void unknownParameter(){
+		new RuleSpec("bad Mira >= 0.3 alpha=0.01 beta=0.01 delta=0.1");
+	}
+}
@@ -0,0 +1,89 @@
+package testing;
+
+import java.util.Random;
+
+import org.apache.commons.math.special.Gamma;
+import org.junit.Assert;
+import org.junit.Test;
+
+import sequential.BetaTail;
+
+public class BetaTailTest {
+	private static final double[] X = {0.001, 0.05, 0.3, 0.5, 0.71, 0.999};
+
+	private static double[] exactTails(double x, int a, int b){
+		/*
+		 * {I(x; a, b), 1 - I(x; a, b)} for integer a and b, from I(x; a, b) = P(Y >= a), Y ~ Binomial(a + b - 1, x)
+		 * Both are summed in log space from their own terms, so neither is taken as a complement
+		 */
+		int n = a + b - 1;
+		double[] logPmfs = new double[n + 1];
+		for(int j = 0; j <= n; j++){
+			logPmfs[j] = Gamma.logGamma(n + 1) - Gamma.logGamma(j + 1) - Gamma.logGamma(n - j + 1) +
+					j * Math.log(x) + (n - j) * Math.log1p(-x);
+		}
+		return new double[]{Math.exp(logSum(logPmfs, a, n)), Math.exp(logSum(logPmfs, 0, a - 1))};
+	}
+
+	private static double logSum(double[] logTerms, int from, int to){
+		double max = Double.NEGATIVE_INFINITY;
+		for(int i = from; i <= to; i++) max = Math.max(max, logTerms[i]);
+		if(max == Double.NEGATIVE_INFINITY) return max;
+		double sum = 0.0;
+		for(int i = from; i <= to; i++) sum += Math.exp(logTerms[i] - max);
+		return max + Math.log(sum);
+	}
+
+	@Test
+	public void cumulativeProbabilityMatchesExactSums(){
+		for(double x : X){
+			for(int a = 1; a <= 300; a += 1 + a / 4){
+				for(int b = 1; b <= 300; b += 1 + b / 4){
+					double[] tails = exactTails(x, a, b);
+					String where = "x=" + x + " a=" + a + " b=" + b;
+					Assert.assertEquals(where, tails[0], BetaTail.cumulativeProbability(x, a, b), 1e-10 * tails[0] + 1e-300);
+					Assert.assertEquals(where, tails[1], 1 - BetaTail.cumulativeProbability(x, a, b), 1e-10 + 1e-300);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void trackedTailsMatchExactSums(){
+		/*
+		 * An instance moved along random paths, by single samples, shifts of k at the same n, long jumps and jumps
+		 * back, with integer priors, against the exact sums
+		 * Updates subtract from the tails, so they are only relatively close to the exact ones
+		 */
+		Random rand = new Random(9);
+		int[][] priors = {{1, 1}, {2, 3}, {5, 1}};
+		for(double x : X){
+			for(int[] prior : priors){
+				BetaTail tail = new BetaTail(x, prior[0], prior[1]);
+				double p = Math.min(0.99, Math.max(0.01, x + 0.05 * rand.nextGaussian()));
+				int n = 0;
+				int k = 0;
+				for(int i = 0; i < 300; i++){
+					int move = rand.nextInt(20);
+					if(move == 0){
+						n += rand.nextInt(300);
+						k = Math.min(n, k + (int) (p * (n - k)));
+					}else if(move == 1){
+						n = Math.max(0, n - 50);
+						k = Math.min(k, n);
+					}else if(move == 2){
+						k = Math.min(n, k + 1 + rand.nextInt(5));
+					}else{
+						n++;
+						if(rand.nextDouble() < p) k++;
+					}
+					tail.moveTo(n, k);
+					double[] tails = exactTails(x, k + prior[0], n - k + prior[1]);
+					String where = "x=" + x + " n=" + n + " k=" + k;
+					Assert.assertEquals(where, tails[0], tail.lowerTail(), 1e-8 * tails[0] + 1e-300);
+					Assert.assertEquals(where, tails[1], tail.upperTail(), 1e-8 * tails[1] + 1e-300);
+				}
+			}
+		}
+	}
+}
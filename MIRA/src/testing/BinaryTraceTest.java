@@ -0,0 +1,114 @@
+package testing;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import sequential.Algorithm;
+import sequential.BinaryTrace;
+
+public class BinaryTraceTest {
+	private File write(boolean[] outcomes, String provenance) throws IOException {
+		File file = File.createTempFile("trace", ".bin");
+		file.deleteOnExit();
+		BinaryTrace.Writer writer = new BinaryTrace.Writer(file, provenance);
+		for(boolean isTrue : outcomes) writer.add(isTrue);
+		writer.close();
+		return file;
+	}
+
+	private boolean[] outcomes(int length, double p, long seed){
+		Random rand = new Random(seed);
+		boolean[] outcomes = new boolean[length];
+		for(int i = 0; i < length; i++) outcomes[i] = rand.nextDouble() < p;
+		return outcomes;
+	}
+
+	@Test
+	public void roundTrip() throws IOException {
+		for(int length : new int[]{0, 1, 63, 64, 65, 1000}){
+			boolean[] outcomes = this.outcomes(length, 0.4, length);
+			String provenance = length == 0 ? "" : "model.sm seed=" + length + " é";
+			BinaryTrace trace = new BinaryTrace(this.write(outcomes, provenance));
+			Assert.assertEquals(length, trace.getSampleCount());
+			Assert.assertEquals(provenance, trace.getProvenance());
+			for(int i = 0; i < length; i++){
+				Assert.assertTrue(trace.hasNextSample());
+				Assert.assertEquals(outcomes[i], trace.nextSample());
+			}
+			Assert.assertFalse(trace.hasNextSample());
+		}
+	}
+
+	@Test
+	public void convertFromText() throws IOException {
+		File text = File.createTempFile("trace", ".txt");
+		text.deleteOnExit();
+		boolean[] outcomes = this.outcomes(777, 0.3, 1);
+		FileOutputStream output = new FileOutputStream(text);
+		for(boolean isTrue : outcomes) output.write((isTrue ? "true\r\n" : "false\r\n").getBytes("UTF-8"));
+		output.close();
+		File binary = File.createTempFile("trace", ".bin");
+		binary.deleteOnExit();
+		Assert.assertEquals(777, BinaryTrace.convert(text, binary, "test"));
+		Assert.assertTrue(BinaryTrace.isBinaryTrace(binary));
+		Assert.assertFalse(BinaryTrace.isBinaryTrace(text));
+		BinaryTrace trace = new BinaryTrace(binary);
+		for(int i = 0; i < outcomes.length; i++) Assert.assertEquals(outcomes[i], trace.nextSample());
+	}
+
+	@Test(expected = IOException.class)
+	public void convertRejectsNonTrace() throws IOException {
+		File text = File.createTempFile("trace", ".txt");
+		text.deleteOnExit();
+		FileOutputStream output = new FileOutputStream(text);
+		output.write("true\nfalse\nmaybe\ntrue\n".getBytes("UTF-8"));
+		output.close();
+		File binary = File.createTempFile("trace", ".bin");
+		binary.deleteOnExit();
+		BinaryTrace.convert(text, binary, "test");
+	}
+
+	@Test
+	public void replaySameAsLoop() throws IOException {
+		boolean[] outcomes = this.outcomes(200000, 0.31, 2);
+		File file = this.write(outcomes, "");
+		for(int type : new int[]{Rules.YOUNES_A, Rules.MIRA, Rules.BAYESIAN_B, Rules.FIXED_SAMPLES}){
+			//From the start, and after a few samples taken one by one, which leaves the words unaligned
+			for(int skip : new int[]{0, 5}){
+				Algorithm rule = this.createRule(type);
+				Algorithm replayed = this.createRule(type);
+				BinaryTrace trace = new BinaryTrace(file);
+				int i = 0;
+				while(i < skip){
+					rule.update(outcomes[i++]);
+					replayed.update(trace.nextSample());
+				}
+				while(i < outcomes.length && rule.obtainAnotherSample()) rule.update(outcomes[i++]);
+				Assert.assertEquals(rule.getTotalSamples() - skip, trace.replay(replayed));
+				Assert.assertEquals(rule.getTotalSamples(), replayed.getTotalSamples());
+				Assert.assertEquals(rule.getTrueSamples(), replayed.getTrueSamples());
+				Assert.assertEquals(rule.getTotalSamples(), trace.getPosition());
+			}
+		}
+	}
+
+	private Algorithm createRule(int type){
+		//Without limits, but FixedSamples runs to the end of the trace
+		return Rules.create(type, 0.3, 0.01, 0.01, type == Rules.FIXED_SAMPLES ? 300000 : 0);
+	}
+
+	@Test(expected = IOException.class)
+	public void truncated() throws IOException {
+		File file = this.write(this.outcomes(1000, 0.5, 3), "");
+		RandomAccessFile access = new RandomAccessFile(file, "rw");
+		access.setLength(access.length() - 8);
+		access.close();
+		new BinaryTrace(file);
+	}
+}
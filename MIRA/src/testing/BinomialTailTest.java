@@ -0,0 +1,87 @@
+package testing;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import sequential.BinomialTail;
+
+public class BinomialTailTest {
+	private static final double[] P = {0.0005, 0.003, 0.05, 0.3, 0.5, 0.77, 0.999};
+	//Longer than the jumps BinomialTail walks
+	private static final int MAX_JUMP = 300;
+
+	private static double logSum(double[] logTerms, int from, int to){
+		//log of the sum of exp(logTerms[i]) for i in [from, to], shifted by the largest term
+		double max = Double.NEGATIVE_INFINITY;
+		for(int i = from; i <= to; i++) max = Math.max(max, logTerms[i]);
+		if(max == Double.NEGATIVE_INFINITY) return max;
+		double sum = 0.0;
+		for(int i = from; i <= to; i++) sum += Math.exp(logTerms[i] - max);
+		return max + Math.log(sum);
+	}
+
+	private static double[] logPmfs(int n, double p){
+		double[] logPmfs = new double[n + 1];
+		for(int i = 0; i <= n; i++) logPmfs[i] = BinomialTail.logPmf(i, n, p);
+		return logPmfs;
+	}
+
+	private static void assertLogClose(String where, double expected, double actual){
+		//Relative error of the probabilities, however small they are
+		if(expected == Double.NEGATIVE_INFINITY) Assert.assertEquals(where, expected, actual, 0.0);
+		else Assert.assertEquals(where, expected, actual, 1e-10 * Math.max(1.0, Math.abs(expected)));
+	}
+
+	@Test
+	public void tailsMatchExactSums(){
+		/*
+		 * Both tails at every k for n up to 2000, against the log-sum-exp of all the terms of the pmf
+		 */
+		int[] sizes = {1, 2, 7, 40, 333, 2000};
+		for(double p : P){
+			for(int n : sizes){
+				double[] logPmfs = logPmfs(n, p);
+				for(int k = 0; k <= n; k++){
+					String where = "p=" + p + " n=" + n + " k=" + k;
+					assertLogClose(where, logSum(logPmfs, 0, k), BinomialTail.logLowerTail(k, n, p));
+					assertLogClose(where, logSum(logPmfs, k, n), BinomialTail.logUpperTail(k, n, p));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void trackedTailsMatchExactSums(){
+		/*
+		 * An instance moved along random paths, by single samples, jumps and jumps back, against the exact sums
+		 * Updates subtract from the tails, so they are only relatively close to the exact ones
+		 */
+		Random rand = new Random(3);
+		for(double p : P){
+			for(double q : new double[]{p, 0.5 * p, Math.min(0.99, 2 * p)}){
+				BinomialTail tail = new BinomialTail(p);
+				int n = 0;
+				int k = 0;
+				for(int i = 0; i < 200; i++){
+					int jump = rand.nextInt(10) == 0 ? rand.nextInt(MAX_JUMP) : 1;
+					if(rand.nextInt(50) == 0) jump = -Math.min(n, 50);
+					n += jump;
+					if(jump > 0){
+						for(int j = 0; j < jump; j++) if(rand.nextDouble() < q) k++;
+					}else{
+						k = Math.min(k, n);
+					}
+					tail.moveTo(n, k);
+					double[] logPmfs = logPmfs(n, p);
+					String where = "p=" + p + " n=" + n + " k=" + k;
+					double lower = Math.exp(logSum(logPmfs, 0, k));
+					double upper = Math.exp(logSum(logPmfs, k, n));
+					Assert.assertEquals(where, lower, tail.lowerTail(), 1e-8 * lower + 1e-300);
+					Assert.assertEquals(where, upper, tail.upperTail(), 1e-8 * upper + 1e-300);
+				}
+			}
+		}
+	}
+}
@@ -3,27 +3,24 @@ package testing;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 
 import org.junit.Test;
 
 import sequential.Algorithm;
 import sequential.Algorithm.Conclusion;
-import sequential.Algorithm.RuleStatus;
 import sequential.BayesianA;
 import sequential.BayesianB;
 import sequential.Mira;
+import sequential.RuleSetMonitor;
+import sequential.SampleSource;
 import sequential.YounesA;
 import sequential.YounesB;
 import afc.basic.datastructure.New;
 import afc.graphing.r.R;
 import afc.graphing.r.RGraph;
 import afc.graphing.r.RPlotGraph;
-import afc.utils.Binning;
 
 public class CompareBetweenAllAlgorithms {
 	
@@ -36,7 +33,8 @@ public class CompareBetweenAllAlgorithms {
 		 * Graph 3 - y = errors, x = theta
 		 * Graph 4 - y = undecided, x = theta
 		 */
-		double binWidth = 0.05; 
+		final double binWidth = 0.05;//Of the p-value histograms
+		final int numOfInterval = (int)((0.5 - binWidth) / binWidth) + 1;
 		final double trueThreshold = 0.25;
 		final double delta = 0.025;//Indifference Region
 		
@@ -54,19 +52,27 @@ public class CompareBetweenAllAlgorithms {
 		final boolean showBayesA = false;
 		final boolean showBayesB = false;
 		final double yaxisLimit = 25000.0; 
+		final long seed = 1;//Same seed and chunk size give the same graphs on any number of threads
+		final int chunkSize = 10;//Repeats per task, small so that the thetas near trueThreshold do not straggle
 		
-		List<Double> thetaList = New.arrayList();
-		int nThreads = Runtime.getRuntime().availableProcessors();//Use all available processors 
-		ExecutorService threadExecutor = Executors.newFixedThreadPool(nThreads);
-		List<Future<Results>> resultList = new ArrayList<Future<Results>>();
-		
+		final List<Double> thetaList = New.arrayList();
 		for(BigDecimal theta = new BigDecimal(thetaStart + ""); theta.doubleValue() <= thetaEnd; theta = theta.add(new BigDecimal(thetaInterval + ""))){
 			if(trueThreshold == theta.doubleValue()) continue;//skip this since mira will not terminate
 			thetaList.add(theta.doubleValue());
-			resultList.add(threadExecutor.submit(new Compute(trueThreshold, theta.doubleValue(), delta, alpha, beta, gamma, repeats, maxSamples,
-					trueThreshold > theta.doubleValue(), bayesFactorThreshold, bayesBThreshold, showBayesA, showBayesB)));
 		}
-		threadExecutor.shutdown();
+		MonteCarlo<Results> monteCarlo = new MonteCarlo<Results>(new MonteCarlo.Experiment<Results>(){
+			public Results run(int point, int firstRepeat, int repeats, SplittableRandom random){
+				double theta = thetaList.get(point);
+				return new Compute(trueThreshold, theta, delta, alpha, beta, gamma, repeats, maxSamples,
+						trueThreshold > theta, bayesFactorThreshold, bayesBThreshold, showBayesA, showBayesB, binWidth, numOfInterval,
+						random).call();
+			}
+			public Results merge(Results first, Results second){
+				return first.merge(second);
+			}
+		}, thetaList.size(), repeats, chunkSize, seed);
+		int nThreads = Runtime.getRuntime().availableProcessors();//Use all available processors 
+		List<Results> resultList = monteCarlo.run(nThreads);
 	
 		try{
 			List<Double> younesATotalSampleList = New.arrayList();
@@ -94,43 +100,48 @@ public class CompareBetweenAllAlgorithms {
 			List<Double> miraBTotalCorrectPValueList = New.arrayList();
 			List<Double> miraBTotalIncorrectPValueList = New.arrayList();
 			
-			//This defers from the above in that it keeps its original values
-			List<Double> miraBCorrectPValueList = New.arrayList();
-			List<Double> miraBIncorrectPValueList = New.arrayList();
+			//This defers from the above in that it keeps the p-values of all thetas
+			Summary miraBCorrectPValues = null;
+			Summary miraBIncorrectPValues = null;
 			
-			for(Future<Results> r:resultList){
-				younesATotalSampleList.add((r.get().getTotalSamples(Results.Algorithm.YOUNESA) + 0.0) / repeats);
-				younesATotalIncorrectList.add((r.get().getTotalIncorrect(Results.Algorithm.YOUNESA) + 0.0) / repeats);
+			for(int i = 0; i < resultList.size(); i++){
+				Results r = resultList.get(i);
+				younesATotalSampleList.add((r.getTotalSamples(Results.Algorithm.YOUNESA) + 0.0) / repeats);
+				younesATotalIncorrectList.add((r.getTotalIncorrect(Results.Algorithm.YOUNESA) + 0.0) / repeats);
 				
-				younesBTotalSampleList.add((r.get().getTotalSamples(Results.Algorithm.YOUNESB) + 0.0) / repeats);
-				younesBTotalIncorrectList.add((r.get().getTotalIncorrect(Results.Algorithm.YOUNESB) + 0.0) / repeats);
-				younesBTotalUndecidedList.add((r.get().getTotalUndecided(Results.Algorithm.YOUNESB) + 0.0) / repeats);
-				younesBTotalIncorrectPlusUndecidedList.add((r.get().getTotalIncorrectPlusUndecided(Results.Algorithm.YOUNESB) + 0.0) / repeats);
+				younesBTotalSampleList.add((r.getTotalSamples(Results.Algorithm.YOUNESB) + 0.0) / repeats);
+				younesBTotalIncorrectList.add((r.getTotalIncorrect(Results.Algorithm.YOUNESB) + 0.0) / repeats);
+				younesBTotalUndecidedList.add((r.getTotalUndecided(Results.Algorithm.YOUNESB) + 0.0) / repeats);
+				younesBTotalIncorrectPlusUndecidedList.add((r.getTotalIncorrectPlusUndecided(Results.Algorithm.YOUNESB) + 0.0) / repeats);
 				
-				miraATotalSampleList.add((r.get().getTotalSamples(Results.Algorithm.MIRAA) + 0.0) / repeats);
-				miraATotalIncorrectList.add((r.get().getTotalIncorrect(Results.Algorithm.MIRAA) + 0.0) / repeats);
-				miraATotalIncorrectSampleSizeList.add((r.get().getTotalIncorrectSampleSize(Results.Algorithm.MIRAA) + 0.0) / 
-						r.get().getTotalIncorrect(Results.Algorithm.MIRAA));
+				miraATotalSampleList.add((r.getTotalSamples(Results.Algorithm.MIRAA) + 0.0) / repeats);
+				miraATotalIncorrectList.add((r.getTotalIncorrect(Results.Algorithm.MIRAA) + 0.0) / repeats);
+				miraATotalIncorrectSampleSizeList.add((r.getTotalIncorrectSampleSize(Results.Algorithm.MIRAA) + 0.0) / 
+						r.getTotalIncorrect(Results.Algorithm.MIRAA));
 				
-				miraBTotalSampleList.add((r.get().getTotalSamples(Results.Algorithm.MIRAB) + 0.0) / repeats);
-				miraBTotalIncorrectList.add((r.get().getTotalIncorrect(Results.Algorithm.MIRAB) + 0.0) / repeats);
-				miraBTotalIncorrectSampleSizeList.add((r.get().getTotalIncorrectSampleSize(Results.Algorithm.MIRAB) + 0.0) /
-						r.get().getTotalIncorrect(Results.Algorithm.MIRAB));
-				miraBTotalIncorrectPlusByPValueList.add((r.get().getTotalIncorrect(Results.Algorithm.MIRAB) + 
-						r.get().getIncorrectByPValue() + 0.0) / repeats);				
-				miraBTotalCorrectPValueList.add((r.get().getCorrectPValue() + 0.0) / r.get().getCorrectByPValue());
-				miraBTotalIncorrectPValueList.add((r.get().getIncorrectPValue() + 0.0) / r.get().getIncorrectByPValue());
-				miraBCorrectPValueList.addAll(r.get().getCorrectPValueList());
-				miraBIncorrectPValueList.addAll(r.get().getIncorrectPValueList());
+				miraBTotalSampleList.add((r.getTotalSamples(Results.Algorithm.MIRAB) + 0.0) / repeats);
+				miraBTotalIncorrectList.add((r.getTotalIncorrect(Results.Algorithm.MIRAB) + 0.0) / repeats);
+				miraBTotalIncorrectSampleSizeList.add((r.getTotalIncorrectSampleSize(Results.Algorithm.MIRAB) + 0.0) /
+						r.getTotalIncorrect(Results.Algorithm.MIRAB));
+				miraBTotalIncorrectPlusByPValueList.add((r.getTotalIncorrect(Results.Algorithm.MIRAB) + 
+						r.getIncorrectByPValue() + 0.0) / repeats);				
+				miraBTotalCorrectPValueList.add((r.getCorrectPValue() + 0.0) / r.getCorrectByPValue());
+				miraBTotalIncorrectPValueList.add((r.getIncorrectPValue() + 0.0) / r.getIncorrectByPValue());
+				miraBCorrectPValues = miraBCorrectPValues == null ? r.getCorrectPValues() : miraBCorrectPValues.merge(r.getCorrectPValues());
+				miraBIncorrectPValues = miraBIncorrectPValues == null ? r.getIncorrectPValues() : miraBIncorrectPValues.merge(r.getIncorrectPValues());
+				Summary sampleSizes = r.getMiraBSampleSizes();
+				System.out.println("theta: " + thetaList.get(i) + " MIRA B sample size mean: " + sampleSizes.getStats().getMean() +
+						" sd: " + sampleSizes.getStats().getStandardDeviation() + " median: " + sampleSizes.getQuantile(0.5) +
+						" 99%: " + sampleSizes.getQuantile(0.99));
 				
 				if(showBayesA){
-					bayesianATotalSampleList.add((r.get().getTotalSamples(Results.Algorithm.BAYESA) + 0.0) / repeats);
-					bayesianATotalIncorrectList.add((r.get().getTotalIncorrect(Results.Algorithm.BAYESA) + 0.0) / repeats);
+					bayesianATotalSampleList.add((r.getTotalSamples(Results.Algorithm.BAYESA) + 0.0) / repeats);
+					bayesianATotalIncorrectList.add((r.getTotalIncorrect(Results.Algorithm.BAYESA) + 0.0) / repeats);
 				}
 				
 				if(showBayesB){
-					bayesianBTotalSampleList.add((r.get().getTotalSamples(Results.Algorithm.BAYESB) + 0.0) / repeats);
-					bayesianBTotalIncorrectList.add((r.get().getTotalIncorrect(Results.Algorithm.BAYESB) + 0.0) / repeats);
+					bayesianBTotalSampleList.add((r.getTotalSamples(Results.Algorithm.BAYESB) + 0.0) / repeats);
+					bayesianBTotalIncorrectList.add((r.getTotalIncorrect(Results.Algorithm.BAYESB) + 0.0) / repeats);
 				}
 			}
 			String younesA = "Younes A";
@@ -177,10 +188,8 @@ public class CompareBetweenAllAlgorithms {
 			graph3.add(graph3_MirachBCorrectPValue);
 			graph3.add(graph3_MirachBIncorrectPValue);
 			
-			int numOfInterval = (int)((0.5 - binWidth) / binWidth) + 1;
-			double min = 0.0;
-			double[][] xyAxisCorrect = Binning.fixedWidthBinning(miraBCorrectPValueList, numOfInterval, binWidth, min);
-			double[][] xyAxisIncorrect = Binning.fixedWidthBinning(miraBIncorrectPValueList, numOfInterval, binWidth, min);
+			double[][] xyAxisCorrect = miraBCorrectPValues.getHistogram().toXY();
+			double[][] xyAxisIncorrect = miraBIncorrectPValues.getHistogram().toXY();
 			RGraph graph4_Correct = RGraph.init(xyAxisCorrect[1], xyAxisCorrect[0]).legendTitle(miraB+"_Correct").xLabel("pValue").yLabel("Frequency").build();
 			RGraph graph4_Incorrect = RGraph.init(xyAxisIncorrect[1], xyAxisIncorrect[0]).legendTitle(miraB+"_Incorrect").xLabel("pValue").yLabel("Frequency").build();
 			List<RGraph> graph4 = New.arrayList();
@@ -260,11 +269,37 @@ class Results{
 	private int miraBTotalH1;
 	private double miraBTotalH0Pvalue;
 	private double miraBTotalH1Pvalue;
-	private List<Double> miraBH0PvalueList;
-	private List<Double> miraBH1PvalueList;
+	private Summary miraBH0Pvalues;
+	private Summary miraBH1Pvalues;
+	private Summary miraBSampleSizes;
 	
 	private boolean isCorrectConclusionH0;
 	
+	public Results merge(Results other){
+		/*
+		 * Totals of this and other, the results of more repeats at the same theta
+		 * The p-values and sample sizes are merged from the summaries of each, so this is the same size for any repeats
+		 */
+		Results r = new Results();
+		r.setYounesA(this.younesATotalSamples + other.younesATotalSamples, this.younesATotalCorrect + other.younesATotalCorrect,
+				this.younesATotalIncorrect + other.younesATotalIncorrect);
+		r.setYounesB(this.younesBTotalSamples + other.younesBTotalSamples, this.younesBTotalCorrect + other.younesBTotalCorrect,
+				this.younesBTotalIncorrect + other.younesBTotalIncorrect, this.younesBTotalUndecided + other.younesBTotalUndecided);
+		r.setBayesA(this.bayesATotalSamples + other.bayesATotalSamples, this.bayesATotalCorrect + other.bayesATotalCorrect,
+				this.bayesATotalIncorrect + other.bayesATotalIncorrect);
+		r.setBayesB(this.bayesBTotalSamples + other.bayesBTotalSamples, this.bayesBTotalCorrect + other.bayesBTotalCorrect,
+				this.bayesBTotalIncorrect + other.bayesBTotalIncorrect);
+		r.setMirachA(this.miraATotalSamples + other.miraATotalSamples, this.miraATotalCorrect + other.miraATotalCorrect,
+				this.miraATotalIncorrect + other.miraATotalIncorrect, this.miraATotalIncorrectSampleSize + other.miraATotalIncorrectSampleSize);
+		r.setMirachB(this.miraBTotalSamples + other.miraBTotalSamples, this.miraBTotalCorrect + other.miraBTotalCorrect,
+				this.miraBTotalIncorrect + other.miraBTotalIncorrect, this.miraBTotalIncorrectSampleSize + other.miraBTotalIncorrectSampleSize,
+				this.miraBTotalH0 + other.miraBTotalH0, this.miraBTotalH1 + other.miraBTotalH1,
+				this.miraBTotalH0Pvalue + other.miraBTotalH0Pvalue, this.miraBTotalH1Pvalue + other.miraBTotalH1Pvalue,
+				this.isCorrectConclusionH0, this.miraBH0Pvalues.merge(other.miraBH0Pvalues),
+				this.miraBH1Pvalues.merge(other.miraBH1Pvalues), this.miraBSampleSizes.merge(other.miraBSampleSizes));
+		return r;
+	}
+	
 	public void setYounesA(int totalSamples, int totalCorrect, int totalIncorrect){
 		this.younesATotalSamples = totalSamples;
 		this.younesATotalCorrect = totalCorrect;
@@ -298,7 +333,8 @@ class Results{
 	}
 	
 	public void setMirachB(int totalSamples, int totalCorrect, int totalIncorrect, int totalIncorrectSampleSize, int totalH0, int totalH1,
-			double totalH0Pvalue, double totalH1Pvalue, boolean isCorrectConclusionH0, List<Double> miraBH0PvalueList, List<Double> miraBH1PvalueList){
+			double totalH0Pvalue, double totalH1Pvalue, boolean isCorrectConclusionH0, Summary h0Pvalues, Summary h1Pvalues,
+			Summary sampleSizes){
 		this.miraBTotalSamples = totalSamples;
 		this.miraBTotalCorrect = totalCorrect;
 		this.miraBTotalIncorrect = totalIncorrect;
@@ -308,8 +344,9 @@ class Results{
 		this.miraBTotalH0Pvalue = totalH0Pvalue;
 		this.miraBTotalH1Pvalue = totalH1Pvalue;
 		this.isCorrectConclusionH0 = isCorrectConclusionH0;
-		this.miraBH0PvalueList = miraBH0PvalueList;
-		this.miraBH1PvalueList = miraBH1PvalueList;
+		this.miraBH0Pvalues = h0Pvalues;
+		this.miraBH1Pvalues = h1Pvalues;
+		this.miraBSampleSizes = sampleSizes;
 	}
 	
 	public int getTotalIncorrectSampleSize(Algorithm a){
@@ -399,15 +436,54 @@ class Results{
 		else return this.miraBTotalH0Pvalue;
 	}
 	
-	public List<Double> getCorrectPValueList(){
-		if(this.isCorrectConclusionH0) return this.miraBH0PvalueList;
-		else return this.miraBH1PvalueList;
+	public Summary getCorrectPValues(){
+		if(this.isCorrectConclusionH0) return this.miraBH0Pvalues;
+		else return this.miraBH1Pvalues;
+	}
+	
+	public Summary getIncorrectPValues(){
+		if(this.isCorrectConclusionH0) return this.miraBH1Pvalues;
+		else return this.miraBH0Pvalues;
+	}
+	
+	public Summary getMiraBSampleSizes(){ return this.miraBSampleSizes; }
+}
+
+class Summary{
+	/*
+	 * Histogram, mean and variance, and quantiles of a stream of values, in the same memory for any number of values
+	 * Each task fills its own and they are merged once at the end
+	 */
+	private static final double RELATIVE_ERROR = 0.01;//Of the quantiles
+	private static final int MAX_BUCKETS = 2048;//Of the quantile sketch, values within 1e17 of the largest keep the error
+	
+	private final Histogram histogram;
+	private final RunningStats stats;
+	private final QuantileSketch sketch;
+	
+	public Summary(double min, double binWidth, int bins){
+		this(new Histogram(min, binWidth, bins), new RunningStats(), new QuantileSketch(RELATIVE_ERROR, MAX_BUCKETS));
+	}
+	
+	private Summary(Histogram histogram, RunningStats stats, QuantileSketch sketch){
+		this.histogram = histogram;
+		this.stats = stats;
+		this.sketch = sketch;
+	}
+	
+	public void add(double value){
+		this.histogram.add(value);
+		this.stats.add(value);
+		this.sketch.add(value);
 	}
 	
-	public List<Double> getIncorrectPValueList(){
-		if(this.isCorrectConclusionH0) return this.miraBH1PvalueList;
-		else return this.miraBH0PvalueList;
+	public Summary merge(Summary other){
+		return new Summary(this.histogram.merge(other.histogram), this.stats.merge(other.stats), this.sketch.merge(other.sketch));
 	}
+	
+	public Histogram getHistogram(){ return this.histogram; }
+	public RunningStats getStats(){ return this.stats; }
+	public double getQuantile(double q){ return this.sketch.getQuantile(q); }
 }
 
 class Compute implements Callable<Results>{
@@ -451,9 +527,13 @@ class Compute implements Callable<Results>{
 	private double bayesBThreshold;
 	private boolean showBayesA;
 	private boolean showBayesB;
+	private double pValueBinWidth;
+	private int pValueBins;
+	private SplittableRandom rand;//Source of all samples, split per chunk of repeats by MonteCarlo
 	
 	public Compute(double trueThreshold, double theta, double delta, double alpha, double beta, double gamma, int repeats, int maxSamples,
-			boolean isCorrectConclusionH0, double bayesianThreshold, double bayesBThreshold, boolean showBayesA, boolean showBayesB){
+			boolean isCorrectConclusionH0, double bayesianThreshold, double bayesBThreshold, boolean showBayesA, boolean showBayesB,
+			double pValueBinWidth, int pValueBins, SplittableRandom rand){
 		this.trueThreshold = trueThreshold;
 		this.theta = theta;
 		this.delta = delta;
@@ -467,9 +547,12 @@ class Compute implements Callable<Results>{
 		this.bayesBThreshold = bayesBThreshold;
 		this.showBayesA = showBayesA;
 		this.showBayesB = showBayesB;
+		this.pValueBinWidth = pValueBinWidth;
+		this.pValueBins = pValueBins;
+		this.rand = rand;
 	}
 
-	public Results call() throws Exception {
+	public Results call() {
 		Conclusion correctConclusion;//H0: p > theta, H1: p < theta
 		if(trueThreshold < theta) correctConclusion = Conclusion.H1;
 		else if(trueThreshold > theta) correctConclusion = Conclusion.H0;
@@ -505,15 +588,15 @@ class Compute implements Callable<Results>{
 		int miraBTotalH1 = 0;
 		double miraBTotalH0pValue = 0.0;
 		double miraBTotalH1pValue = 0.0;
-		List<Double> miraBH0pValueList = new ArrayList<Double>();
-		List<Double> miraBH1pValueList = new ArrayList<Double>();
+		Summary miraBH0pValues = new Summary(0.0, this.pValueBinWidth, this.pValueBins);
+		Summary miraBH1pValues = new Summary(0.0, this.pValueBinWidth, this.pValueBins);
+		//Bins of 1% of the sample limit, MIRA B stops at it
+		Summary miraBSampleSizes = new Summary(0.0, Math.max(1, this.maxSamples / 100), 101);
 		
-		Random rand = new Random();
 		for(int i = 0; i < repeats; i++){
 			/*
 			 * Note that the Rule.Operator is not important in the next three constructor since I base on conclusion directly
 			 */
-			if(i % 100 == 0) System.out.println(this.theta + ": " + i);
 			//Without undecided results - YOUNES Algorithm A
 			YounesA younesARule = new YounesA("", Algorithm.Operator.GREATER, this.theta, this.delta, this.alpha, this.beta, 0);
 			//With undecided results - YOUNES Algorithm B
@@ -529,55 +612,23 @@ class Compute implements Callable<Results>{
 			/*
 			 * Do sampling
 			 */
-			boolean younesABoolean = true;
-			boolean younesBBoolean = true;
-			boolean miraABoolean = true;
-			boolean miraBBoolean = true;
-			boolean bayesABoolean = this.showBayesA;
-			boolean bayesBBoolean = this.showBayesB;
-			
-			int currentMirachASampleSize = 0;
-			int currentMirachBSampleSize = 0;
-			do{
-				boolean isTrue = false;
+			if(!this.showBayesA) bayesARule.skipRule();
+			if(!this.showBayesB) bayesBRule.skipRule();
+			new RuleSetMonitor(new SampleSource(){
 				/*
 				 * Stochastic simulation of true/false based on true threshold
 				 */
-				if(rand.nextDouble() < trueThreshold) isTrue = true; 
-				
-				if(younesABoolean){
-					younesATotalSamples++;
-					younesARule.update(isTrue, RuleStatus.APNOTSATISFIED);
-					younesABoolean = younesARule.obtainAnotherSample();					
-				}
-				if(younesBBoolean){
-					younesBTotalSamples++;
-					younesBRule.update(isTrue, RuleStatus.APNOTSATISFIED);
-					younesBBoolean = younesBRule.obtainAnotherSample();					
-				}			
-				if(bayesABoolean){
-					bayesianATotalSamples++;
-					bayesARule.update(isTrue, RuleStatus.APNOTSATISFIED);
-					bayesABoolean = bayesARule.obtainAnotherSample();
-				}
-				if(bayesBBoolean){
-					bayesianBTotalSamples++;
-					bayesBRule.update(isTrue, RuleStatus.APNOTSATISFIED);
-					bayesBBoolean = bayesBRule.obtainAnotherSample();
-				}
-				if(miraABoolean){
-					currentMirachASampleSize++;
-					miraATotalSamples++;
-					miraARule.update(isTrue, RuleStatus.APNOTSATISFIED);
-					miraABoolean = miraARule.obtainAnotherSample();
-				}				
-				if(miraBBoolean){
-					currentMirachBSampleSize++;
-					miraBTotalSamples++;
-					miraBRule.update(isTrue, RuleStatus.APNOTSATISFIED);
-					miraBBoolean = miraBRule.obtainAnotherSample();
-				}
-			}while(younesABoolean || younesBBoolean || miraABoolean || miraBBoolean || bayesABoolean || bayesBBoolean);
+				public boolean nextSample(){ return Compute.this.rand.nextDouble() < Compute.this.trueThreshold; }
+			}, younesARule, younesBRule, bayesARule, bayesBRule, miraARule, miraBRule).run();
+			younesATotalSamples += younesARule.getTotalSamples();
+			younesBTotalSamples += younesBRule.getTotalSamples();
+			bayesianATotalSamples += bayesARule.getTotalSamples();
+			bayesianBTotalSamples += bayesBRule.getTotalSamples();
+			int currentMirachASampleSize = miraARule.getTotalSamples();
+			int currentMirachBSampleSize = miraBRule.getTotalSamples();
+			miraATotalSamples += currentMirachASampleSize;
+			miraBTotalSamples += currentMirachBSampleSize;
+			miraBSampleSizes.add(currentMirachBSampleSize);
 			
 			/*
 			 * Obtain the conclusion of each algorithm
@@ -620,25 +671,25 @@ class Compute implements Callable<Results>{
 				double pValue = miraBRule.getH0pValue();
 				miraBTotalH0pValue += pValue; 
 				if(pValue > 0.5) pValue = 0.49999;//Need this because the computation of p-value is not super precise
-				miraBH0pValueList.add(pValue);
+				miraBH0pValues.add(pValue);
 			}else if(c == Conclusion.pValueH1){
 				miraBTotalH1++;
 				double pValue = miraBRule.getH1pValue();
 				miraBTotalH1pValue += pValue;
 				if(pValue > 0.5) pValue = 0.49999;//Need this because the computation of p-value is not super precise
-				miraBH1pValueList.add(pValue);
+				miraBH1pValues.add(pValue);
 			}else{
 				miraBTotalIncorrect++;
 				miraBTotalIncorrectSampleSize += currentMirachBSampleSize;
 			}
 		}		
-		System.out.println(this.theta + ": DONE!");
 		Results r = new Results();
 		r.setYounesA(younesATotalSamples, younesATotalCorrect, younesATotalIncorrect);
 		r.setYounesB(younesBTotalSamples, younesBTotalCorrect, younesBTotalIncorrect, younesBTotalUndecided);
 		r.setMirachA(miraATotalSamples, miraATotalCorrect, miraATotalIncorrect, miraATotalIncorrectSampleSize);
 		r.setMirachB(miraBTotalSamples, miraBTotalCorrect, miraBTotalIncorrect, miraBTotalIncorrectSampleSize, miraBTotalH0, 
-				miraBTotalH1, miraBTotalH0pValue, miraBTotalH1pValue, this.isCorrectConclusionH0, miraBH0pValueList, miraBH1pValueList);
+				miraBTotalH1, miraBTotalH0pValue, miraBTotalH1pValue, this.isCorrectConclusionH0, miraBH0pValues, miraBH1pValues,
+				miraBSampleSizes);
 		if(this.showBayesA) r.setBayesA(bayesianATotalSamples, bayesianATotalCorrect, bayesianATotalIncorrect);
 		if(this.showBayesB) r.setBayesB(bayesianBTotalSamples, bayesianBTotalCorrect, bayesianBTotalIncorrect);
 		return r;
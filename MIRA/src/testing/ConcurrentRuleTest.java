@@ -0,0 +1,127 @@
+package testing;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import sequential.Algorithm;
+import sequential.Algorithm.Conclusion;
+import sequential.ConcurrentRule;
+import sequential.YounesA;
+
+public class ConcurrentRuleTest {
+	private static final int THREADS = 8;
+
+	private Algorithm createRule(int type){
+		return Rules.create(type, 0.3, 0.01, 0.01);
+	}
+
+	@Test
+	public void singleThreadSameAsAlgorithm(){
+		for(int type = 0; type < Rules.TYPES; type++){
+			Random rand = new Random(type);
+			boolean[] outcomes = new boolean[1000000];
+			for(int i = 0; i < outcomes.length; i++) outcomes[i] = rand.nextDouble() < 0.32;
+			Algorithm rule = this.createRule(type);
+			while(rule.obtainAnotherSample()) rule.update(outcomes[rule.getTotalSamples()]);
+			ConcurrentRule concurrent = new ConcurrentRule(this.createRule(type), 4);
+			int i = 0;
+			while(concurrent.update(outcomes[i++]) == ConcurrentRule.Outcome.ACCEPTED);
+			Assert.assertEquals(rule.getTotalSamples(), i);
+			Assert.assertEquals(rule.getTotalSamples(), concurrent.getTotalSamples());
+			Assert.assertEquals(rule.getConclusionOrNull(), concurrent.getConclusion());
+			Assert.assertEquals(ConcurrentRule.Outcome.REJECTED, concurrent.update(true));
+		}
+	}
+
+	@Test
+	public void allTrueDecidesAtTheSameSample(){
+		//With a single possible sample path the decision must be at the same sample whatever the threads
+		for(int type = 0; type < Rules.TYPES; type++){
+			Algorithm rule = this.createRule(type);
+			while(rule.obtainAnotherSample()) rule.update(true);
+			int[] counts = this.feed(new ConcurrentRule(this.createRule(type), THREADS), 1.0);
+			Assert.assertEquals(1, counts[ConcurrentRule.Outcome.DECIDED.ordinal()]);
+			Assert.assertEquals(rule.getTotalSamples(), counts[ConcurrentRule.Outcome.ACCEPTED.ordinal()] + 1);
+		}
+	}
+
+	@Test
+	public void oneThreadObservesTheDecision(){
+		for(int type = 0; type < Rules.TYPES; type++){
+			for(int repeat = 0; repeat < 5; repeat++){
+				ConcurrentRule concurrent = new ConcurrentRule(this.createRule(type), THREADS);
+				int[] counts = this.feed(concurrent, 0.32);
+				Assert.assertTrue(concurrent.isDecided());
+				Assert.assertEquals(1, counts[ConcurrentRule.Outcome.DECIDED.ordinal()]);
+				Algorithm rule = concurrent.getRule();
+				Assert.assertEquals(counts[ConcurrentRule.Outcome.ACCEPTED.ordinal()] + 1, rule.getTotalSamples());
+				Assert.assertFalse(rule.obtainAnotherSample());
+				Conclusion conclusion = concurrent.getConclusion();
+				Assert.assertEquals(rule.getConclusionOrNull(), conclusion);
+			}
+		}
+	}
+
+	@Test
+	public void decidedEvenIfConcludingFails(){
+		//The thread that concludes fails, the others are still told that the rule has decided
+		ConcurrentRule concurrent = new ConcurrentRule(new YounesA(Algorithm.Operator.GREATER, 0.3, 0.01, 0.01, 0.01, 0){
+			public Conclusion getConclusion(){
+				throw new IllegalStateException("no conclusion");
+			}
+		}, THREADS);
+		try{
+			while(concurrent.update(true) == ConcurrentRule.Outcome.ACCEPTED);
+			Assert.fail();
+		}catch(IllegalStateException e){
+			//The rule stopped
+		}
+		Assert.assertTrue(concurrent.isDecided());
+		Assert.assertEquals(ConcurrentRule.Outcome.REJECTED, concurrent.update(true));
+	}
+
+	private int[] feed(final ConcurrentRule concurrent, final double p){
+		/*
+		 * Samples from THREADS threads until each of them is told that the rule has decided
+		 * Returns the number of updates by Outcome
+		 */
+		final AtomicInteger[] counts = new AtomicInteger[ConcurrentRule.Outcome.values().length];
+		for(int i = 0; i < counts.length; i++) counts[i] = new AtomicInteger();
+		final CountDownLatch start = new CountDownLatch(1);
+		Thread[] threads = new Thread[THREADS];
+		for(int t = 0; t < THREADS; t++){
+			final long seed = t;
+			threads[t] = new Thread(){
+				public void run(){
+					Random rand = new Random(seed);
+					try{
+						start.await();
+					}catch(InterruptedException e){
+						throw new Error(e);
+					}
+					ConcurrentRule.Outcome outcome;
+					do{
+						outcome = concurrent.update(rand.nextDouble() < p);
+						counts[outcome.ordinal()].incrementAndGet();
+					}while(outcome == ConcurrentRule.Outcome.ACCEPTED);
+				}
+			};
+			threads[t].start();
+		}
+		start.countDown();
+		for(Thread thread : threads){
+			try{
+				thread.join();
+			}catch(InterruptedException e){
+				throw new Error(e);
+			}
+		}
+		int[] r = new int[counts.length];
+		for(int i = 0; i < counts.length; i++) r[i] = counts[i].get();
+		return r;
+	}
+}
@@ -0,0 +1,144 @@
+package testing;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import sequential.Algorithm;
+import sequential.YounesA;
+import sequential.YounesB;
+
+public class DecisionBoundaryTest {
+	private static final int MAX_N = 300;
+
+	private static class BaselineA extends YounesA {
+		/*
+		 * Younes A as it was before DecisionBoundary, from leftHandValue and the shared right hand side
+		 */
+		private final double delta;
+
+		BaselineA(double theta, double delta, double alpha, double beta){
+			super(Algorithm.Operator.GREATER, theta, delta, alpha, beta, 0);
+			this.delta = delta;
+		}
+
+		void at(int n, int k){
+			this.totalSamples = n;
+			this.trueSamples = k;
+		}
+
+		boolean stops(){ return !this.obtainAnotherSampleSpecific(); }
+
+		private double sharedRightHand(){
+			double a = this.theta + this.delta;
+			if(a > 1.0) a = 1.0;
+			double b = 1 - this.theta - this.delta;
+			if(b < 0.0) b = 0.0;
+			return this.trueSamples * Math.log(a) + (this.totalSamples - this.trueSamples) * Math.log(b);
+		}
+
+		boolean baselineH1(){
+			return this.leftHandValue(false, this.delta) >= Math.log(1 - this.beta) - Math.log(this.alpha) + this.sharedRightHand();
+		}
+
+		boolean baselineH0(){
+			return this.leftHandValue(false, this.delta) <= Math.log(this.beta) - Math.log(1 - this.alpha) + this.sharedRightHand();
+		}
+	}
+
+	private static class BaselineB extends YounesB {
+		/*
+		 * Younes B as it was before DecisionBoundary, from the accept methods
+		 */
+		private final double delta;
+		private final double gamma;
+
+		BaselineB(double theta, double delta, double alpha, double beta, double gamma){
+			super("", Algorithm.Operator.GREATER, theta, delta, alpha, beta, gamma, 0);
+			this.delta = delta;
+			this.gamma = gamma;
+		}
+
+		void at(int n, int k){
+			this.totalSamples = n;
+			this.trueSamples = k;
+		}
+
+		boolean stops(){ return !this.obtainAnotherSampleSpecific(); }
+
+		Conclusion baselineConclusion(){
+			double sharedConstant = this.trueSamples * Math.log(this.theta) + (this.totalSamples - this.trueSamples) * Math.log(1 - this.theta);
+			if(this.acceptH0(sharedConstant, this.delta, this.gamma) && this.acceptH0prime(sharedConstant, this.delta, this.gamma)) return Conclusion.H0;
+			if(this.acceptH1(sharedConstant, this.delta, this.gamma) && this.acceptH1prime(sharedConstant, this.delta, this.gamma)) return Conclusion.H1;
+			return Conclusion.UNDECIDED;
+		}
+
+		boolean baselineStops(){
+			double sharedConstant = this.trueSamples * Math.log(this.theta) + (this.totalSamples - this.trueSamples) * Math.log(1 - this.theta);
+			return (this.acceptH0(sharedConstant, this.delta, this.gamma) || this.acceptH1(sharedConstant, this.delta, this.gamma)) &&
+					(this.acceptH0prime(sharedConstant, this.delta, this.gamma) || this.acceptH1prime(sharedConstant, this.delta, this.gamma));
+		}
+	}
+
+	private static double[][] parameters(){
+		/*
+		 * {theta, delta, alpha, beta, gamma}, random ones and ends where theta -/+ delta leaves [0, 1]
+		 */
+		Random rand = new Random(7);
+		double[][] parameters = new double[40][];
+		parameters[0] = new double[]{0.3, 0.05, 0.05, 0.05, 0.05};
+		parameters[1] = new double[]{0.01, 0.02, 0.05, 0.05, 0.05};
+		parameters[2] = new double[]{0.99, 0.02, 0.05, 0.05, 0.05};
+		parameters[3] = new double[]{0.5, 0.5, 0.1, 0.01, 0.1};
+		parameters[4] = new double[]{0.95, 0.05, 0.01, 0.1, 0.01};
+		for(int i = 5; i < parameters.length; i++){
+			double theta = 0.005 + 0.99 * rand.nextDouble();
+			double delta = 0.005 + 0.1 * rand.nextDouble();
+			double alpha = 0.001 + 0.2 * rand.nextDouble();
+			double beta = 0.001 + 0.2 * rand.nextDouble();
+			double gamma = 0.001 + 0.2 * rand.nextDouble();
+			parameters[i] = new double[]{theta, delta, alpha, beta, gamma};
+		}
+		return parameters;
+	}
+
+	@Test
+	public void younesAMatchesLeftHandValue(){
+		/*
+		 * Younes A stops and concludes at the same (n, k) as the leftHandValue form
+		 */
+		for(double[] p : parameters()){
+			BaselineA rule = new BaselineA(p[0], p[1], p[2], p[3]);
+			for(int n = 1; n <= MAX_N; n++){
+				for(int k = 0; k <= n; k++){
+					rule.at(n, k);
+					boolean h1 = rule.baselineH1();
+					boolean h0 = rule.baselineH0();
+					String where = "theta=" + p[0] + " delta=" + p[1] + " n=" + n + " k=" + k;
+					Assert.assertEquals(where, h0 || h1, rule.stops());
+					if(h1) Assert.assertEquals(where, Algorithm.Conclusion.H1, rule.getConclusion());
+					else if(h0) Assert.assertEquals(where, Algorithm.Conclusion.H0, rule.getConclusion());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void younesBMatchesAcceptMethods(){
+		/*
+		 * Younes B stops and concludes at the same (n, k) as the accept methods
+		 */
+		for(double[] p : parameters()){
+			BaselineB rule = new BaselineB(p[0], p[1], p[2], p[3], p[4]);
+			for(int n = 1; n <= MAX_N; n++){
+				for(int k = 0; k <= n; k++){
+					rule.at(n, k);
+					String where = "theta=" + p[0] + " delta=" + p[1] + " n=" + n + " k=" + k;
+					Assert.assertEquals(where, rule.baselineStops(), rule.stops());
+					Assert.assertEquals(where, rule.baselineConclusion(), rule.getConclusion());
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package testing;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import sequential.FixedCIEstimate;
+
+public class FixedCIEstimateTest {
+	//Far past any stop, a rule that never stops ends here and fails
+	private static final int MAX_SAMPLES = 1000000;
+
+	private FixedCIEstimate run(double confidence, double ciHalfWidth, int samples){
+		//30% true samples, in a fixed pattern, up to samples or until the rule stops
+		FixedCIEstimate rule = new FixedCIEstimate("", confidence, ciHalfWidth, MAX_SAMPLES);
+		for(int i = 0; i < samples && rule.obtainAnotherSample(); i++) rule.update(i % 10 < 3);
+		return rule;
+	}
+
+	@Test
+	public void stopsAtTheReportedHalfWidth(){
+		/*
+		 * z comes from the confidence, as in computeWilsonInterval, so the rule stops at the first sample at which
+		 * the half width it reports is within ciHalfWidth
+		 */
+		for(double confidence : new double[]{0.01, 0.05, 0.1}){
+			for(double ciHalfWidth : new double[]{0.01, 0.03, 0.1}){
+				String where = "confidence=" + confidence + " ciHalfWidth=" + ciHalfWidth;
+				FixedCIEstimate rule = this.run(confidence, ciHalfWidth, MAX_SAMPLES);
+				int n = rule.getTotalSamples();
+				Assert.assertTrue(where, n < MAX_SAMPLES);
+				Assert.assertTrue(where, rule.computeWilsonInterval()[1] <= ciHalfWidth);
+				Assert.assertTrue(where, this.run(confidence, ciHalfWidth, n - 1).computeWilsonInterval()[1] > ciHalfWidth);
+			}
+		}
+	}
+
+	@Test
+	public void stoppingPoint(){
+		//z = 1.96 at confidence 0.05, about 0.3 * 0.7 * (1.96 / 0.01)^2 samples
+		Assert.assertEquals(8067, this.run(0.05, 0.01, MAX_SAMPLES).getTotalSamples());
+	}
+}
@@ -0,0 +1,213 @@
+package testing;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import sequential.Algorithm;
+import sequential.Algorithm.Conclusion;
+import sequential.LookSchedule;
+import sequential.OperatingCharacteristic;
+import sequential.RuleSnapshot;
+import sequential.RuleSpec;
+import sequential.YounesA;
+
+public class GroupSequentialTest {
+	private Algorithm createRule(int type, LookSchedule schedule){
+		Algorithm rule = Rules.create(type, 0.3, 0.02, 0.05, type == Rules.MIRA ? 5000 : 0);
+		rule.setLookSchedule(schedule);
+		return rule;
+	}
+
+	@Test
+	public void scheduleLooks(){
+		LookSchedule schedule = new LookSchedule(50, 10, 30);
+		Assert.assertEquals(10, schedule.nextLook(1));
+		Assert.assertEquals(10, schedule.nextLook(10));
+		Assert.assertEquals(30, schedule.nextLook(11));
+		Assert.assertEquals(80, schedule.nextLook(31));
+		Assert.assertEquals(130, schedule.nextLook(81));
+		Assert.assertTrue(schedule.isLook(130));
+		Assert.assertFalse(schedule.isLook(0));
+		Assert.assertFalse(schedule.isLook(100));
+		Assert.assertEquals(10, schedule.getMinGroupSize());
+		Assert.assertEquals("10,30,80", schedule.toString());
+		Assert.assertEquals(schedule, LookSchedule.parse(schedule.toString()));
+		Assert.assertEquals(LookSchedule.every(25), LookSchedule.parse("25"));
+		Assert.assertEquals(75, LookSchedule.every(25).nextLook(51));
+		Assert.assertEquals(Integer.MAX_VALUE, LookSchedule.every(1 << 30).nextLook(Integer.MAX_VALUE - 5));
+	}
+
+	@Test
+	public void stopsOnlyAtLooks(){
+		/*
+		 * Sampled one at a time or in blocks of minAdditionalSamples(), a rule stops at the same look
+		 */
+		Random rand = new Random(1);
+		LookSchedule schedule = new LookSchedule(40, 25, 50);
+		for(int type = Rules.YOUNES_A; type <= Rules.MIRA; type++){
+			for(int repeat = 0; repeat < 100; repeat++){
+				double p = 0.2 + 0.2 * rand.nextDouble();
+				long seed = rand.nextLong();
+				Algorithm single = this.createRule(type, schedule);
+				Random samples = new Random(seed);
+				while(single.obtainAnotherSample()) single.update(samples.nextDouble() < p);
+				Assert.assertTrue(schedule.isLook(single.getTotalSamples()) || single.getTotalSamples() == 5000);
+				Algorithm blocks = this.createRule(type, schedule);
+				samples = new Random(seed);
+				int m;
+				while((m = blocks.minAdditionalSamples()) > 0){
+					Assert.assertTrue(schedule.isLook(blocks.getTotalSamples() + m) || blocks.getTotalSamples() + m == 5000);
+					int trues = 0;
+					for(int i = 0; i < m; i++) if(samples.nextDouble() < p) trues++;
+					blocks.update(trues, m);
+				}
+				Assert.assertEquals(single.getTotalSamples(), blocks.getTotalSamples());
+				Assert.assertEquals(single.getTrueSamples(), blocks.getTrueSamples());
+				Assert.assertEquals(single.getConclusion(), blocks.getConclusion());
+			}
+		}
+	}
+
+	@Test
+	public void errorRatesHoldAtTheLooks(){
+		/*
+		 * Exact error rates of Younes A at the edges of the indifference region, for a grid of theta, delta, alpha,
+		 * beta and group size: at most beta at theta - delta and at most alpha at theta + delta
+		 * The constants are moved towards 0 for the looks only as far as these hold
+		 */
+		for(double theta : new double[]{0.05, 0.1, 0.3, 0.9}){
+			for(double delta : new double[]{0.02, 0.05}){
+				if(theta - delta <= 0 || theta + delta >= 1) continue;
+				for(double[] errors : new double[][]{{0.01, 0.01}, {0.05, 0.05}, {0.1, 0.1}, {0.01, 0.1}, {0.1, 0.01}}){
+					for(int every : new int[]{10, 50, 200}){
+						String name = "theta " + theta + " delta " + delta + " alpha " + errors[0] + " beta " + errors[1] + 
+								" every " + every;
+						double below = this.error(new YounesA(Algorithm.Operator.GREATER, theta, delta, errors[0], errors[1], 0), 
+								LookSchedule.every(every), theta - delta, theta);
+						double above = this.error(new YounesA(Algorithm.Operator.GREATER, theta, delta, errors[0], errors[1], 0), 
+								LookSchedule.every(every), theta + delta, theta);
+						Assert.assertTrue(name + " error " + below, below <= errors[1]);
+						Assert.assertTrue(name + " error " + above, above <= errors[0]);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void calibratedLooksTakeFewerSamples(){
+		/*
+		 * Exact error rates and average sample numbers of Younes A and B at the edges of the indifference region
+		 * Looks at 1 and then every g samples have a smallest group of 1, so they keep the constants of Wald and
+		 * check at about the same samples as looks every g samples, whose constants are moved towards 0. The latter
+		 * keep alpha and beta, and take fewer samples on average.
+		 */
+		double calibrated = 0;
+		double kept = 0;
+		for(int type : new int[]{Rules.YOUNES_A, Rules.YOUNES_B}){
+			for(double theta : new double[]{0.1, 0.5}){
+				for(int every : new int[]{20, 100}){
+					for(double p : new double[]{theta - 0.05, theta + 0.05}){
+						OperatingCharacteristic moved = this.characteristic(type, theta, LookSchedule.every(every), p);
+						OperatingCharacteristic wald = this.characteristic(type, theta, new LookSchedule(every, 1), p);
+						String name = "type " + type + " theta " + theta + " every " + every + " p " + p;
+						Assert.assertTrue(name + " error " + this.error(moved, p, theta), this.error(moved, p, theta) <= 0.05);
+						Assert.assertTrue(name + " samples " + moved.getExpectedSamples() + " > " + wald.getExpectedSamples(), 
+								moved.getExpectedSamples() <= wald.getExpectedSamples());
+						calibrated += moved.getExpectedSamples();
+						kept += wald.getExpectedSamples();
+					}
+				}
+			}
+		}
+		Assert.assertTrue("samples " + calibrated + " of " + kept, calibrated < 0.9 * kept);
+	}
+
+	@Test
+	public void calibratedErrorRatesBySimulation(){
+		/*
+		 * Runs of Younes B looking every 50 samples at the edges of the indifference region, fed in groups
+		 * Errors at most alpha = beta plus three standard errors, and fewer samples than with the constants of Wald
+		 */
+		final int runs = 4000;
+		Random rand = new Random(5);
+		for(double p : new double[]{0.25, 0.35}){
+			int errors = 0;
+			long samples = 0;
+			long waldSamples = 0;
+			for(int run = 0; run < runs; run++){
+				long seed = rand.nextLong();
+				Algorithm rule = this.simulate(LookSchedule.every(50), p, seed);
+				if(rule.getConclusion() == (p < 0.3 ? Conclusion.H0 : Conclusion.H1)) errors++;
+				samples += rule.getTotalSamples();
+				waldSamples += this.simulate(new LookSchedule(50, 1), p, seed).getTotalSamples();
+			}
+			double bound = 0.05 + 3 * Math.sqrt(0.05 * 0.95 / runs);
+			Assert.assertTrue("p " + p + " errors " + errors, errors <= bound * runs);
+			Assert.assertTrue("p " + p + " samples " + samples + " of " + waldSamples, samples < waldSamples);
+		}
+	}
+
+	private Algorithm simulate(LookSchedule schedule, double p, long seed){
+		Algorithm rule = Rules.create(Rules.YOUNES_B, 0.3, 0.05, 0.05);
+		rule.setLookSchedule(schedule);
+		Random samples = new Random(seed);
+		int m;
+		while((m = rule.minAdditionalSamples()) > 0){
+			int trues = 0;
+			for(int i = 0; i < m; i++) if(samples.nextDouble() < p) trues++;
+			rule.update(trues, m);
+		}
+		return rule;
+	}
+
+	private OperatingCharacteristic characteristic(int type, double theta, LookSchedule schedule, double p){
+		Algorithm rule = Rules.create(type, theta, 0.05, 0.05);
+		rule.setLookSchedule(schedule);
+		return OperatingCharacteristic.compute(rule, p, 1e-9);
+	}
+
+	private double error(OperatingCharacteristic oc, double p, double theta){
+		if(p < theta) return oc.getProbability(Conclusion.H0) + oc.getProbability(Conclusion.pValueH0);
+		else return oc.getProbability(Conclusion.H1) + oc.getProbability(Conclusion.pValueH1);
+	}
+
+	@Test
+	public void miraErrorRatesNotAbovePerSample(){
+		/*
+		 * Mira has no indifference region and its errors near theta are above alpha even checked every sample,
+		 * looks only every g samples keep them at or below those
+		 */
+		for(double p : new double[]{0.28, 0.32}){
+			double perSample = this.error(this.createRule(Rules.MIRA, null), p);
+			for(int every : new int[]{10, 100}){
+				double error = this.error(this.createRule(Rules.MIRA, LookSchedule.every(every)), p);
+				Assert.assertTrue("every " + every + " p " + p + " error " + error + " per sample " + perSample, error <= perSample);
+			}
+		}
+	}
+
+	private double error(Algorithm rule, LookSchedule schedule, double p, double theta){
+		rule.setLookSchedule(schedule);
+		return this.error(OperatingCharacteristic.compute(rule, p, 1e-9), p, theta);
+	}
+
+	private double error(Algorithm rule, double p){
+		return this.error(rule, rule.getLookSchedule(), p, 0.3);
+	}
+
+	@Test
+	public void snapshotAndSpecKeepTheSchedule(){
+		LookSchedule schedule = new LookSchedule(40, 25, 50);
+		Algorithm rule = this.createRule(Rules.MIRA, schedule);
+		rule.update(7, 25);
+		Algorithm copy = RuleSnapshot.fromBytes(RuleSnapshot.of(rule).toBytes()).toRule();
+		Assert.assertEquals(schedule, copy.getLookSchedule());
+		Assert.assertEquals(rule.minAdditionalSamples(), copy.minAdditionalSamples());
+		Algorithm fromSpec = new RuleSpec("r YounesA >= 0.3 delta=0.02 alpha=0.05 beta=0.05 lookEvery=64").create();
+		Assert.assertEquals(LookSchedule.every(64), fromSpec.getLookSchedule());
+		Assert.assertEquals(64, fromSpec.minAdditionalSamples());
+	}
+}
@@ -0,0 +1,62 @@
+package testing;
+
+public class Histogram {
+	/*
+	 * Counts in fixed width bins [min + i * width, min + (i + 1) * width), in constant memory whatever the count
+	 * Values below the first bin or from the end of the last are counted apart, as underflow and overflow
+	 */
+	private final double min;
+	private final double width;
+	private final long[] counts;
+	private long underflow = 0;
+	private long overflow = 0;
+
+	public Histogram(double min, double width, int bins){
+		if(!(width > 0)) throw new Error("width MUST be > 0. width: " + width);
+		if(bins <= 0) throw new Error("bins MUST be > 0. bins: " + bins);
+		this.min = min;
+		this.width = width;
+		this.counts = new long[bins];
+	}
+
+	public void add(double value){
+		if(Double.isNaN(value)) throw new Error("Histogram value MUST not be NaN");
+		double bin = Math.floor((value - this.min) / this.width);
+		if(bin < 0) this.underflow++;
+		else if(bin >= this.counts.length) this.overflow++;
+		else this.counts[(int) bin]++;
+	}
+
+	public Histogram merge(Histogram other){
+		//Counts of this and other, which must have the same bins
+		if(other.min != this.min || other.width != this.width || other.counts.length != this.counts.length){
+			throw new Error("Only histograms with the same bins can be merged");
+		}
+		Histogram r = new Histogram(this.min, this.width, this.counts.length);
+		for(int i = 0; i < this.counts.length; i++) r.counts[i] = this.counts[i] + other.counts[i];
+		r.underflow = this.underflow + other.underflow;
+		r.overflow = this.overflow + other.overflow;
+		return r;
+	}
+
+	public int getBins(){ return this.counts.length; }
+	public long getCount(int bin){ return this.counts[bin]; }
+	public long getUnderflow(){ return this.underflow; }
+	public long getOverflow(){ return this.overflow; }
+
+	public long getTotal(){
+		long total = this.underflow + this.overflow;
+		for(long count : this.counts) total += count;
+		return total;
+	}
+
+	public double[][] toXY(){
+		//{lower edge of each bin, its count}, for plotting
+		double[][] xy = new double[2][this.counts.length];
+		for(int i = 0; i < this.counts.length; i++){
+			xy[0][i] = this.min + i * this.width;
+			xy[1][i] = this.counts[i];
+		}
+		return xy;
+	}
+}
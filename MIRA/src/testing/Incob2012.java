@@ -8,7 +8,8 @@ import java.util.Random;
 import org.junit.Test;
 
 import sequential.Algorithm;
-import sequential.Algorithm.RuleStatus;
+import sequential.RuleSetMonitor;
+import sequential.SampleSource;
 import sequential.YounesA;
 import sequential.YounesB;
 import afc.graphing.r.R;
@@ -50,9 +51,7 @@ public class Incob2012 {
 			System.out.println("Theta: " + theta);
 			int[] totalSamples = new int[3];
 			for (int i = 0; i < repeats; i++) {
-				Random rand             = new Random(i);
-				boolean[] anotherSample = {true, true, true};
-				int[] samples           = {0, 0, 0};
+				final Random rand       = new Random(i);
 				Algorithm algorithm[]   = new Algorithm[3];
 				
 				if(isA){
@@ -68,26 +67,13 @@ public class Incob2012 {
 				/*
 				 * Simulation
 				 */
-				boolean continueToLoop = true; 
-				while (continueToLoop) {
-					continueToLoop = false;
-					boolean isTrue = false;
-					
+				new RuleSetMonitor(new SampleSource(){
 					// Sample true/false
-					if(rand.nextDouble() < trueThreshold) isTrue = true; 
-					
-					for (int s = 0; s < anotherSample.length; s++) {
-						if (anotherSample[s]) {
-							samples[s]++;
-							algorithm[s].update(isTrue, RuleStatus.APNOTSATISFIED);
-							anotherSample[s] = algorithm[s].obtainAnotherSample();	
-							if (anotherSample[s]) continueToLoop = true;
-						}
-					}
-				}//End of while loop
+					public boolean nextSample(){ return rand.nextDouble() < trueThreshold; }
+				}, algorithm).run();
 				
-				for(int s = 0; s < samples.length; s++){
-					totalSamples[s] += samples[s];//Sum them
+				for(int s = 0; s < algorithm.length; s++){
+					totalSamples[s] += algorithm[s].getTotalSamples();//Sum them
 				}
 			}//End of for loop
 			for(int s = 0; s < totalSamples.length; s++){
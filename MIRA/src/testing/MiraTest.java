@@ -0,0 +1,138 @@
+package testing;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import sequential.Algorithm;
+import sequential.BinomialTail;
+import sequential.Mira;
+
+public class MiraTest {
+	private static class RecursiveMira extends Algorithm {
+		/*
+		 * Mira as it was before the delta was reduced in a loop: halve, then ask obtainAnotherSample() again
+		 * The p-values are the exact sums of the binomial pmf
+		 */
+		private double delta = 1.0;
+		private final double gamma;
+
+		RecursiveMira(double theta, double alpha, double beta, int maxSamples){
+			super("", Operator.GREATER, theta, alpha, beta, maxSamples);
+			this.gamma = Math.min(alpha, beta);
+			this.adjustAndCheck(this.gamma);
+		}
+
+		private double sharedConstant(){
+			return this.trueSamples * Math.log(this.theta) + (this.totalSamples - this.trueSamples) * Math.log(1 - this.theta);
+		}
+
+		@Override
+		protected boolean obtainAnotherSampleSpecific(){
+			double sharedConstant = this.sharedConstant();
+			boolean h0 = this.acceptH0(sharedConstant, this.delta, this.gamma);
+			boolean h1 = this.acceptH1(sharedConstant, this.delta, this.gamma);
+			boolean h0prime = this.acceptH0prime(sharedConstant, this.delta, this.gamma);
+			boolean h1prime = this.acceptH1prime(sharedConstant, this.delta, this.gamma);
+			if((h0 && h0prime) || (h1 && h1prime)) return false;
+			if((h0 || h1) && (h0prime || h1prime)){
+				this.delta = this.delta * 0.5;
+				return this.obtainAnotherSample();
+			}
+			return true;
+		}
+
+		@Override
+		public Conclusion getConclusion(){
+			double sharedConstant = this.sharedConstant();
+			if(this.acceptH0(sharedConstant, this.delta, this.gamma) && this.acceptH0prime(sharedConstant, this.delta, this.gamma)) return Conclusion.H0;
+			if(this.acceptH1(sharedConstant, this.delta, this.gamma) && this.acceptH1prime(sharedConstant, this.delta, this.gamma)) return Conclusion.H1;
+			return null;//By the p-values, see exactPValues
+		}
+	}
+
+	private static double[] exactPValues(int n, int k, double theta){
+		/*
+		 * {P(X >= max(k, 1)), P(X <= k)} for X ~ Binomial(n, theta), summed in log space from the largest term
+		 */
+		double[] logPmfs = new double[n + 1];
+		double max = Double.NEGATIVE_INFINITY;
+		for(int i = 0; i <= n; i++){
+			logPmfs[i] = BinomialTail.logPmf(i, n, theta);
+			max = Math.max(max, logPmfs[i]);
+		}
+		double upper = 0.0;
+		double lower = 0.0;
+		for(int i = 0; i <= n; i++){
+			double term = Math.exp(logPmfs[i] - max);
+			if(i >= Math.max(k, 1)) upper += term;
+			if(i <= k) lower += term;
+		}
+		return new double[]{Math.min(1.0, Math.exp(max + Math.log(upper))), Math.min(1.0, Math.exp(max + Math.log(lower)))};
+	}
+
+	@Test
+	public void sameDecisionsAsRecursiveDelta(){
+		/*
+		 * Every sample of random runs, at p near theta where delta is halved many times, is taken by both or
+		 * neither, and the runs conclude alike. A run that ends on maxSamples concludes by the exact p-values.
+		 */
+		Random rand = new Random(11);
+		double[] thetas = {0.05, 0.3, 0.5, 0.8};
+		double[] offsets = {0.0, -0.01, 0.01, -0.05, 0.05};
+		int byPValue = 0;
+		for(double theta : thetas){
+			for(double offset : offsets){
+				for(int run = 0; run < 4; run++){
+					double alpha = 0.005 + 0.1 * rand.nextDouble();
+					double beta = 0.005 + 0.1 * rand.nextDouble();
+					Mira mira = new Mira("", Algorithm.Operator.GREATER, theta, alpha, beta, 20000);
+					RecursiveMira expected = new RecursiveMira(theta, alpha, beta, 20000);
+					double p = theta + offset;
+					while(true){
+						boolean isMore = expected.obtainAnotherSample();
+						String where = "theta=" + theta + " p=" + p + " n=" + expected.getTotalSamples();
+						Assert.assertEquals(where, isMore, mira.obtainAnotherSample());
+						if(!isMore) break;
+						boolean isTrue = rand.nextDouble() < p;
+						expected.update(isTrue);
+						mira.update(isTrue);
+					}
+					int n = expected.getTotalSamples();
+					int k = expected.getTrueSamples();
+					String where = "theta=" + theta + " p=" + p + " n=" + n + " k=" + k;
+					Algorithm.Conclusion conclusion = expected.getConclusion();
+					if(conclusion == null){
+						byPValue++;
+						double[] pValues = exactPValues(n, k, theta);
+						if(Math.abs(pValues[0] - pValues[1]) <= 1e-9 * Math.max(pValues[0], pValues[1])) continue;//Tie
+						conclusion = pValues[1] < pValues[0] ? Algorithm.Conclusion.pValueH1 : Algorithm.Conclusion.pValueH0;
+					}
+					Assert.assertEquals(where, conclusion, mira.getConclusion());
+				}
+			}
+		}
+		Assert.assertTrue(byPValue > 0);
+	}
+
+	@Test
+	public void pValuesMatchExactSums(){
+		/*
+		 * The p-values tracked along a run that never stops are the exact tails, at every n up to 50 and every 37th after
+		 */
+		Random rand = new Random(5);
+		for(double theta : new double[]{0.002, 0.1, 0.5, 0.93}){
+			Mira mira = new Mira("", Algorithm.Operator.GREATER, theta, 0.05, 0.05, 0);
+			double p = theta;
+			for(int n = 1; n <= 6000; n++){
+				mira.update(rand.nextDouble() < p);
+				if(n % 37 != 0 && n > 50) continue;
+				double[] pValues = exactPValues(n, mira.getTrueSamples(), theta);
+				String where = "theta=" + theta + " n=" + n + " k=" + mira.getTrueSamples();
+				Assert.assertEquals(where, pValues[0], mira.getH0pValue(), 1e-8 * pValues[0] + 1e-300);
+				Assert.assertEquals(where, pValues[1], mira.getH1pValue(), 1e-8 * pValues[1] + 1e-300);
+			}
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package testing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class MonteCarlo<R> {
+	/*
+	 * Runs the repeats of an experiment at a number of points (e.g. theta values) on a fork-join pool
+	 *
+	 * The work is split into (point, chunk of repeats) tasks rather than one task per point, so that the points that
+	 * need many samples do not straggle on a few threads while the rest of the pool is idle; idle threads steal
+	 * the chunks that are left.
+	 *
+	 * Every chunk has its own SplittableRandom, split from the seed in (point, chunk) order before anything runs,
+	 * and the chunk results of a point are merged in chunk order. Hence the results only depend on the seed and
+	 * the chunk size, not on the number of threads or the order the chunks happen to run in.
+	 */
+	public interface Experiment<R> {
+		//Runs the repeats [firstRepeat, firstRepeat + repeats) at point, drawing all randomness from random
+		public R run(int point, int firstRepeat, int repeats, SplittableRandom random);
+		//Results of first followed by those of second, of the next repeats at the same point
+		public R merge(R first, R second);
+	}
+
+	private final Experiment<R> experiment;
+	private final int points;
+	private final int repeats;
+	private final int chunkSize;
+	private final int chunks;//Chunks per point
+	private final SplittableRandom[] random;//Indexed by point * chunks + chunk
+
+	public MonteCarlo(Experiment<R> experiment, int points, int repeats, int chunkSize, long seed){
+		if(points < 0) throw new Error("points MUST be >= 0. points: " + points);
+		if(repeats <= 0) throw new Error("repeats MUST be > 0. repeats: " + repeats);
+		if(chunkSize <= 0) throw new Error("chunkSize MUST be > 0. chunkSize: " + chunkSize);
+		this.experiment = experiment;
+		this.points = points;
+		this.repeats = repeats;
+		this.chunkSize = chunkSize;
+		this.chunks = (repeats + chunkSize - 1) / chunkSize;
+		this.random = new SplittableRandom[points * this.chunks];
+		SplittableRandom master = new SplittableRandom(seed);
+		for(int point = 0; point < points; point++){
+			SplittableRandom pointRandom = master.split();
+			for(int chunk = 0; chunk < this.chunks; chunk++) this.random[point * this.chunks + chunk] = pointRandom.split();
+		}
+	}
+
+	public List<R> run(int parallelism){
+		//Results by point
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try{
+			return this.run(pool);
+		}finally{
+			pool.shutdown();
+		}
+	}
+
+	public List<R> run(ForkJoinPool pool){
+		List<R> chunkResults = new ArrayList<R>(this.random.length);
+		for(int i = 0; i < this.random.length; i++) chunkResults.add(null);
+		if(this.points > 0) pool.invoke(new Chunks(chunkResults, 0, this.random.length));
+		List<R> results = new ArrayList<R>(this.points);
+		for(int point = 0; point < this.points; point++){
+			R r = chunkResults.get(point * this.chunks);
+			for(int chunk = 1; chunk < this.chunks; chunk++){
+				r = this.experiment.merge(r, chunkResults.get(point * this.chunks + chunk));
+			}
+			results.add(r);
+		}
+		return results;
+	}
+
+	private class Chunks extends RecursiveAction {
+		/*
+		 * Tasks [from, to), halved until a single chunk is left
+		 */
+		private static final long serialVersionUID = 1L;
+		private final List<R> results;
+		private final int from;
+		private final int to;
+
+		Chunks(List<R> results, int from, int to){
+			this.results = results;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute(){
+			if(this.to - this.from > 1){
+				int middle = (this.from + this.to) >>> 1;
+				invokeAll(new Chunks(this.results, this.from, middle), new Chunks(this.results, middle, this.to));
+				return;
+			}
+			int point = this.from / MonteCarlo.this.chunks;
+			int chunk = this.from % MonteCarlo.this.chunks;
+			int firstRepeat = chunk * MonteCarlo.this.chunkSize;
+			int repeats = Math.min(MonteCarlo.this.chunkSize, MonteCarlo.this.repeats - firstRepeat);
+			R r = MonteCarlo.this.experiment.run(point, firstRepeat, repeats, MonteCarlo.this.random[this.from]);
+			//Distinct indices of a list that does not change size, joining publishes the write
+			this.results.set(this.from, r);
+		}
+	}
+}
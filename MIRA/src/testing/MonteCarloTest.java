@@ -0,0 +1,84 @@
+package testing;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import sequential.Algorithm;
+import sequential.Mira;
+import sequential.YounesA;
+
+public class MonteCarloTest {
+	/*
+	 * The results of MonteCarlo must not depend on the number of threads
+	 */
+	private static final double[] THETA = {0.2, 0.28, 0.3, 0.32, 0.4};
+	private static final double P = 0.3;
+
+	private final MonteCarlo.Experiment<double[]> experiment = new MonteCarlo.Experiment<double[]>(){
+		public double[] run(int point, int firstRepeat, int repeats, SplittableRandom random){
+			//Samples and H0 conclusions of YounesA and Mira, and the sum of Mira's p-values, which depends on the order
+			double[] r = new double[5];
+			for(int i = 0; i < repeats; i++){
+				YounesA younesA = new YounesA(Algorithm.Operator.GREATER, THETA[point], 0.02, 0.05, 0.05, 0);
+				Mira mira = new Mira(THETA[point], 0.05, 0.05, 500);
+				boolean younesABoolean = true;
+				boolean miraBoolean = true;
+				while(younesABoolean || miraBoolean){
+					boolean isTrue = random.nextDouble() < P;
+					if(younesABoolean){
+						younesA.update(isTrue);
+						younesABoolean = younesA.obtainAnotherSample();
+					}
+					if(miraBoolean){
+						mira.update(isTrue);
+						miraBoolean = mira.obtainAnotherSample();
+					}
+				}
+				r[0] += younesA.getTotalSamples();
+				if(younesA.getConclusion() == Algorithm.Conclusion.H0) r[1]++;
+				r[2] += mira.getTotalSamples();
+				if(mira.getConclusion() == Algorithm.Conclusion.H0) r[3]++;
+				r[4] += mira.getH0pValue();
+			}
+			return r;
+		}
+		public double[] merge(double[] first, double[] second){
+			double[] r = new double[first.length];
+			for(int i = 0; i < r.length; i++) r[i] = first[i] + second[i];
+			return r;
+		}
+	};
+
+	@Test
+	public void independentOfThreads(){
+		List<double[]> single = new MonteCarlo<double[]>(this.experiment, THETA.length, 200, 7, 1).run(1);
+		for(int parallelism : new int[]{2, 4, 8}){
+			List<double[]> parallel = new MonteCarlo<double[]>(this.experiment, THETA.length, 200, 7, 1).run(parallelism);
+			Assert.assertEquals(single.size(), parallel.size());
+			for(int point = 0; point < THETA.length; point++){
+				Assert.assertArrayEquals(single.get(point), parallel.get(point), 0.0);
+			}
+		}
+	}
+
+	@Test
+	public void chunksCoverRepeats(){
+		//200 repeats in chunks of 7, the last one of 4
+		MonteCarlo.Experiment<int[]> count = new MonteCarlo.Experiment<int[]>(){
+			public int[] run(int point, int firstRepeat, int repeats, SplittableRandom random){
+				return new int[]{firstRepeat, repeats};
+			}
+			public int[] merge(int[] first, int[] second){
+				Assert.assertEquals(first[0] + first[1], second[0]);
+				return new int[]{first[0], first[1] + second[1]};
+			}
+		};
+		for(int[] r : new MonteCarlo<int[]>(count, 3, 200, 7, 1).run(4)){
+			Assert.assertEquals(0, r[0]);
+			Assert.assertEquals(200, r[1]);
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package testing;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import sequential.Algorithm;
+import sequential.Algorithm.Conclusion;
+import sequential.OperatingCharacteristic;
+
+public class OperatingCharacteristicTest {
+	/*
+	 * The exact operating characteristic must agree with Monte Carlo runs of the same rule
+	 * Differences are allowed up to 5 standard deviations of the Monte Carlo estimate
+	 */
+	private static final int REPEATS = 4000;
+	private static final double TOLERANCE = 1e-9;
+
+	private static final int[] TYPES = {Rules.YOUNES_A, Rules.YOUNES_B, Rules.MIRA, Rules.BAYESIAN_B};
+
+	private Algorithm createRule(int type){
+		//Mira is limited to 1000 samples, which keeps the exact computation at theta short
+		return Rules.create(type, 0.3, 0.05, 0.05, type == Rules.MIRA ? 1000 : 0);
+	}
+
+	@Test
+	public void agreesWithMonteCarlo(){
+		Random rand = new Random(1);
+		for(int type : TYPES){
+			for(double p : new double[]{0.22, 0.3, 0.36}){
+				OperatingCharacteristic oc = OperatingCharacteristic.compute(this.createRule(type), p, TOLERANCE);
+				Assert.assertEquals(1.0, oc.getStoppedProbability() + oc.getTruncatedProbability(), 1e-12);
+				Assert.assertTrue(oc.getTruncatedProbability() < TOLERANCE);
+				int[] count = new int[Conclusion.values().length];
+				double samples = 0.0;
+				double squaredSamples = 0.0;
+				for(int i = 0; i < REPEATS; i++){
+					Algorithm rule = this.createRule(type);
+					while(rule.obtainAnotherSample()) rule.update(rand.nextDouble() < p);
+					count[rule.getConclusion().ordinal()]++;
+					samples += rule.getTotalSamples();
+					squaredSamples += (double) rule.getTotalSamples() * rule.getTotalSamples();
+				}
+				String name = this.createRule(type).getClass().getSimpleName() + " p: " + p;
+				for(Conclusion conclusion : Conclusion.values()){
+					double expected = oc.getProbability(conclusion);
+					double sd = Math.sqrt(Math.max(expected * (1 - expected), 1e-4) / REPEATS);
+					Assert.assertEquals(name + " " + conclusion, expected, (double) count[conclusion.ordinal()] / REPEATS, 5 * sd);
+				}
+				double mean = samples / REPEATS;
+				double sd = Math.sqrt((squaredSamples / REPEATS - mean * mean) / REPEATS);
+				Assert.assertEquals(name + " ASN", oc.getExpectedSamples(), mean, 5 * sd + 1e-9);
+			}
+		}
+	}
+
+	@Test
+	public void maxNTruncates(){
+		//At theta YounesA has no upper bound on n, the mass left at maxN is truncated
+		OperatingCharacteristic oc = OperatingCharacteristic.compute(this.createRule(Rules.YOUNES_A), 0.3, TOLERANCE, 50);
+		Assert.assertEquals(50, oc.getLastN());
+		Assert.assertTrue(oc.getTruncatedProbability() > 0.0);
+		Assert.assertEquals(1.0, oc.getStoppedProbability() + oc.getTruncatedProbability(), 1e-12);
+	}
+
+	@Test
+	public void ruleIsRestored(){
+		//A rule used as the probe decides the same as a fresh one afterwards
+		Algorithm probed = this.createRule(Rules.MIRA);
+		OperatingCharacteristic.compute(probed, 0.3, TOLERANCE);
+		Algorithm fresh = this.createRule(Rules.MIRA);
+		Random rand = new Random(2);
+		while(fresh.obtainAnotherSample()){
+			boolean outcome = rand.nextDouble() < 0.3;
+			Assert.assertTrue(probed.obtainAnotherSample());
+			fresh.update(outcome);
+			probed.update(outcome);
+		}
+		Assert.assertFalse(probed.obtainAnotherSample());
+		Assert.assertEquals(fresh.getTotalSamples(), probed.getTotalSamples());
+		Assert.assertEquals(fresh.getConclusion(), probed.getConclusion());
+	}
+}
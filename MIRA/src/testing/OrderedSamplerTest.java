@@ -0,0 +1,84 @@
+package testing;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import sequential.Algorithm;
+import sequential.IndexedSampleSource;
+import sequential.OrderedSampler;
+
+public class OrderedSamplerTest {
+	private static final int LENGTH = 1 << 20;
+	private static final boolean[] OUTCOMES = new boolean[LENGTH];
+	static{
+		Random rand = new Random(1);
+		for(int i = 0; i < LENGTH; i++) OUTCOMES[i] = rand.nextDouble() < 0.31;
+	}
+
+	private class SlowTrueSource implements IndexedSampleSource {
+		/*
+		 * True samples take longer, so that taking the samples in completion order would favour false ones
+		 * Counts the calls, and the largest index asked for
+		 */
+		final AtomicInteger calls = new AtomicInteger();
+		final AtomicInteger maxIndex = new AtomicInteger(-1);
+
+		public boolean nextSample(int index){
+			this.calls.incrementAndGet();
+			int max;
+			while((max = this.maxIndex.get()) < index && !this.maxIndex.compareAndSet(max, index));
+			if(OUTCOMES[index]) Thread.yield();
+			return OUTCOMES[index];
+		}
+	}
+
+	private Algorithm createRule(int type){
+		return Rules.create(type, 0.3, 0.01, 0.01);
+	}
+
+	@Test
+	public void sameAsSequentialRun(){
+		for(int type = 0; type < Rules.TYPES; type++){
+			Algorithm rule = this.createRule(type);
+			while(rule.obtainAnotherSample()) rule.update(OUTCOMES[rule.getTotalSamples()]);
+			for(int workers : new int[]{1, 4}){
+				SlowTrueSource source = new SlowTrueSource();
+				OrderedSampler sampler = new OrderedSampler(this.createRule(type), source, 256);
+				Assert.assertEquals(rule.getConclusionOrNull(), sampler.run(workers));
+				Assert.assertEquals(rule.getTotalSamples(), sampler.getRule().getTotalSamples());
+				Assert.assertEquals(rule.getTrueSamples(), sampler.getRule().getTrueSamples());
+				Assert.assertTrue(sampler.getSamplesDispatched() >= rule.getTotalSamples());
+			}
+		}
+	}
+
+	@Test
+	public void fewSamplesPastTheDecision(){
+		//In flight samples are bounded by the capacity, and no sample is drawn once run() returns
+		SlowTrueSource source = new SlowTrueSource();
+		OrderedSampler sampler = new OrderedSampler(this.createRule(Rules.YOUNES_A), source, 64);
+		sampler.run(4);
+		int calls = source.calls.get();
+		Assert.assertTrue(source.maxIndex.get() < sampler.getRule().getTotalSamples() + 64);
+		Assert.assertTrue(sampler.getSamplesDispatched() < sampler.getRule().getTotalSamples() + 64);
+		try{
+			Thread.sleep(50);
+		}catch(InterruptedException e){
+			throw new Error(e);
+		}
+		Assert.assertEquals(calls, source.calls.get());
+	}
+
+	@Test(expected = Error.class)
+	public void failureIsRethrown(){
+		new OrderedSampler(this.createRule(Rules.YOUNES_A), new IndexedSampleSource(){
+			public boolean nextSample(int index){
+				if(index == 10) throw new IllegalStateException("simulator failed");
+				return OUTCOMES[index];
+			}
+		}, 16).run(2);
+	}
+}
@@ -6,10 +6,11 @@ import org.junit.Test;
 
 import sequential.Algorithm;
 import sequential.Algorithm.Conclusion;
-import sequential.Algorithm.RuleStatus;
 import sequential.BayesianA;
 import sequential.BayesianB;
 import sequential.Mira;
+import sequential.RuleSetMonitor;
+import sequential.SampleSource;
 import sequential.YounesA;
 import sequential.YounesB;
 
@@ -26,7 +27,7 @@ public class PointTest {
 		 * 220912 - 1, 12 => Used this for InCob paper
 		 */				
 //		Random rand = new Random(220912);
-		Random rand = new Random(1);
+		final Random rand = new Random(1);
 		
 		/*
 		 * Settings
@@ -108,50 +109,19 @@ public class PointTest {
 					varianceThreshold, maxSamples);
 			//=? operator
 			//Rule r = new Rule("", 0.9999, 0.01, 0);
-			boolean younesABoolean = true;
-			boolean younesBBoolean = true;
-			boolean miraABoolean = true;
-			boolean miraBBoolean = true;
-			boolean bayesianABoolean = true;
-			boolean bayesianBBoolean = true;
-			do{
-				boolean isTrue = false;
-				/*
-				 * Stochastic simulation of true/false based on true threshold
-				 */
-				if(rand.nextDouble() < trueThreshold) isTrue = true; 
-				
-				if(younesABoolean){
-					younesATotalSamples++;
-					younesARule.update(isTrue, RuleStatus.APNOTSATISFIED);
-					younesABoolean = younesARule.obtainAnotherSample();					
-				}
-				if(younesBBoolean){
-					younesBTotalSamples++;
-					younesBRule.update(isTrue, RuleStatus.APNOTSATISFIED);
-					younesBBoolean = younesBRule.obtainAnotherSample();					
-				}				
-				if(miraABoolean){
-					miraATotalSamples++;
-					miraARule.update(isTrue, RuleStatus.APNOTSATISFIED);
-					miraABoolean = miraARule.obtainAnotherSample();
-				}		
-				if(miraBBoolean){
-					miraBTotalSamples++;
-					miraBRule.update(isTrue, RuleStatus.APNOTSATISFIED);
-					miraBBoolean = miraBRule.obtainAnotherSample();
-				}	
-				if(bayesianABoolean){
-					bayesianATotalSamples++;
-					bayesianARule.update(isTrue, RuleStatus.APNOTSATISFIED);
-					bayesianABoolean = bayesianARule.obtainAnotherSample();
-				}
-				if(bayesianBBoolean){
-					bayesianBTotalSamples++;
-					bayesianBRule.update(isTrue, RuleStatus.APNOTSATISFIED);
-					bayesianBBoolean = bayesianBRule.obtainAnotherSample();
-				}
-			}while(younesABoolean || younesBBoolean || miraABoolean || miraBBoolean || bayesianABoolean || bayesianBBoolean);
+			/*
+			 * Stochastic simulation of true/false based on true threshold
+			 */
+			final double p = trueThreshold;
+			new RuleSetMonitor(new SampleSource(){
+				public boolean nextSample(){ return rand.nextDouble() < p; }
+			}, younesARule, younesBRule, miraARule, miraBRule, bayesianARule, bayesianBRule).run();
+			younesATotalSamples += younesARule.getTotalSamples();
+			younesBTotalSamples += younesBRule.getTotalSamples();
+			miraATotalSamples += miraARule.getTotalSamples();
+			miraBTotalSamples += miraBRule.getTotalSamples();
+			bayesianATotalSamples += bayesianARule.getTotalSamples();
+			bayesianBTotalSamples += bayesianBRule.getTotalSamples();
 			
 			/*
 			 * Obtain the conclusion of each algorithm
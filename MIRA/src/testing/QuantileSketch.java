@@ -0,0 +1,103 @@
+package testing;
+
+public class QuantileSketch {
+	/*
+	 * Quantiles of a stream of non-negative values, within a relative error, in bounded memory
+	 *
+	 * Values are counted in logarithmic buckets, bucket k holding (gamma^(k-1), gamma^k] with
+	 * gamma = (1 + relativeError) / (1 - relativeError), so that the midpoint of a bucket is within relativeError
+	 * of every value in it (DDSketch, Masson et al. 2019). Zero has a count of its own. Buckets are integer
+	 * counts, so merging sketches adds them and gives the same sketch in any order.
+	 *
+	 * At most maxBuckets buckets are kept. Beyond that the lowest are folded into one, so only the quantiles
+	 * among the smallest values lose accuracy, e.g. the p-values that are already far below any threshold.
+	 */
+	private final double relativeError;
+	private final int maxBuckets;
+	private final double logGamma;
+	private long[] counts = new long[0];
+	private int minKey = 0;//Key of counts[0]
+	private long zeroCount = 0;
+	private long count = 0;
+
+	public QuantileSketch(double relativeError, int maxBuckets){
+		if(!(relativeError > 0 && relativeError < 1)) throw new Error("relativeError MUST be > 0 and < 1. relativeError: " + relativeError);
+		if(maxBuckets <= 1) throw new Error("maxBuckets MUST be > 1. maxBuckets: " + maxBuckets);
+		this.relativeError = relativeError;
+		this.maxBuckets = maxBuckets;
+		this.logGamma = Math.log((1 + relativeError) / (1 - relativeError));
+	}
+
+	public void add(double value){
+		if(!(value >= 0) || Double.isInfinite(value)) throw new Error("QuantileSketch values MUST be finite and >= 0. value: " + value);
+		this.count++;
+		if(value == 0 || value < Double.MIN_NORMAL){
+			this.zeroCount++;
+			return;
+		}
+		this.add((int) Math.ceil(Math.log(value) / this.logGamma), 1);
+	}
+
+	private void add(int key, long n){
+		if(this.counts.length == 0){
+			this.counts = new long[1];
+			this.minKey = key;
+		}
+		//Keys below the folded buckets go into the lowest
+		if(key < this.minKey && this.counts.length >= this.maxBuckets) key = this.minKey;
+		if(key < this.minKey || key >= this.minKey + this.counts.length) this.cover(key);
+		if(key < this.minKey) key = this.minKey;
+		this.counts[key - this.minKey] += n;
+	}
+
+	private void cover(int key){
+		/*
+		 * Grows the buckets to cover key, folding the lowest ones when there would be more than maxBuckets
+		 * Keys only spread over the logarithm of the range of the values, so this is rare
+		 */
+		int low = Math.min(key, this.minKey);
+		int high = Math.max(key, this.minKey + this.counts.length - 1);
+		if(high - low + 1 > this.maxBuckets) low = high - this.maxBuckets + 1;
+		long[] counts = new long[high - low + 1];
+		for(int i = 0; i < this.counts.length; i++){
+			counts[Math.max(this.minKey + i, low) - low] += this.counts[i];
+		}
+		this.counts = counts;
+		this.minKey = low;
+	}
+
+	public QuantileSketch merge(QuantileSketch other){
+		//Sketch of the values of this and other, which must have the same relativeError and maxBuckets
+		if(other.relativeError != this.relativeError || other.maxBuckets != this.maxBuckets){
+			throw new Error("Only sketches with the same relativeError and maxBuckets can be merged");
+		}
+		QuantileSketch r = new QuantileSketch(this.relativeError, this.maxBuckets);
+		for(QuantileSketch s : new QuantileSketch[]{this, other}){
+			for(int i = 0; i < s.counts.length; i++){
+				if(s.counts[i] > 0) r.add(s.minKey + i, s.counts[i]);
+			}
+			r.zeroCount += s.zeroCount;
+			r.count += s.count;
+		}
+		return r;
+	}
+
+	public long getCount(){ return this.count; }
+
+	public double getQuantile(double q){
+		/*
+		 * Value of rank q * (count - 1) among the values sorted, within relativeError unless it is among the folded
+		 * NaN when empty
+		 */
+		if(!(q >= 0 && q <= 1)) throw new Error("q MUST be >= 0 and <= 1. q: " + q);
+		if(this.count == 0) return Double.NaN;
+		long rank = (long) Math.floor(q * (this.count - 1));
+		if(rank < this.zeroCount) return 0.0;
+		long seen = this.zeroCount;
+		for(int i = 0; i < this.counts.length; i++){
+			seen += this.counts[i];
+			if(seen > rank) return 2 * Math.exp((this.minKey + i) * this.logGamma) / (1 + Math.exp(this.logGamma));
+		}
+		throw new Error("Rank " + rank + " beyond the count " + this.count);
+	}
+}
@@ -0,0 +1,105 @@
+package testing;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import sequential.Algorithm;
+import sequential.FixedSamples;
+import sequential.LookSchedule;
+import sequential.Mira;
+import sequential.SampleEstimate;
+
+public class RemainingSamplesTest {
+	private static final int REPEATS = 200;
+	private static final int CHECKPOINT = 50;
+
+	//The rules with an estimate of their remaining samples, YounesA to FixedCIEstimate
+	private static final int TYPES = Rules.FIXED_CI_ESTIMATE + 1;
+
+	//Runs long enough to be past CHECKPOINT, BayesianA stops at a Bayes factor of 100 and BayesianB at a deviation of 0.01
+	private static final double[] DELTA = {0.02, 0.02, 0.02, 0.02, 0.03, 0.01};
+	private static final double[] ERROR = {0.05, 0.05, 0.05, 0.01, 0.05, 0.05};
+
+	private Algorithm createRule(int type, int maxSamples){
+		return Rules.create(type, 0.3, DELTA[type], ERROR[type], maxSamples);
+	}
+
+	@Test
+	public void estimateFollowsTheRuns(){
+		/*
+		 * From CHECKPOINT samples on, the samples the runs still took are mostly within the band, and their median
+		 * is within a factor of 4 of the median estimate
+		 * The closed forms of BayesianB and FixedCIEstimate are close, the band there holds 90% of the runs
+		 */
+		Random rand = new Random(1);
+		for(int type = 0; type < TYPES; type++){
+			for(double p : new double[]{0.2, 0.35}){
+				double[] remaining = new double[REPEATS];
+				double[] expected = new double[REPEATS];
+				int runs = 0;
+				int inBand = 0;
+				for(int i = 0; i < REPEATS; i++){
+					Algorithm rule = this.createRule(type, 0);
+					SampleEstimate estimate = null;
+					while(rule.obtainAnotherSample()){
+						if(rule.getTotalSamples() == CHECKPOINT) estimate = rule.estimateRemainingSamples();
+						rule.update(rand.nextDouble() < p);
+					}
+					if(estimate == null) continue;
+					double taken = rule.getTotalSamples() - CHECKPOINT;
+					remaining[runs] = taken;
+					expected[runs] = estimate.getExpected();
+					runs++;
+					if(taken >= estimate.getLower() && taken <= estimate.getUpper()) inBand++;
+				}
+				String name = this.createRule(type, 0).getClass().getSimpleName() + " p " + p;
+				Assert.assertTrue(name, runs > REPEATS / 2);
+				Arrays.sort(remaining, 0, runs);
+				Arrays.sort(expected, 0, runs);
+				double ratio = expected[runs / 2] / Math.max(1.0, remaining[runs / 2]);
+				Assert.assertTrue(name + " ratio " + ratio, ratio > 1.0 / 4 && ratio < 4);
+				double coverage = (double) inBand / runs;
+				Assert.assertTrue(name + " coverage " + coverage, coverage >= (type >= Rules.BAYESIAN_B ? 0.9 : 0.7));
+			}
+		}
+	}
+
+	@Test
+	public void withinTheLimits(){
+		/*
+		 * Between minAdditionalSamples() and maxSamples, at looks for group-sequential rules, and 0 once decided
+		 */
+		Random rand = new Random(2);
+		for(int type = 0; type < TYPES; type++){
+			for(int schedule = 0; schedule < 2; schedule++){
+				Algorithm rule = this.createRule(type, 700);
+				if(schedule == 1) rule.setLookSchedule(LookSchedule.every(64));
+				while(rule.obtainAnotherSample()){
+					SampleEstimate estimate = rule.estimateRemainingSamples();
+					Assert.assertTrue(estimate.getLower() >= rule.minAdditionalSamples());
+					Assert.assertTrue(estimate.getLower() <= estimate.getExpected());
+					Assert.assertTrue(estimate.getExpected() <= estimate.getUpper());
+					Assert.assertTrue(estimate.getUpper() <= 700 - rule.getTotalSamples());
+					if(schedule == 1){
+						for(double samples : new double[]{estimate.getLower(), estimate.getExpected(), estimate.getUpper()}){
+							int n = rule.getTotalSamples() + (int) samples;
+							Assert.assertTrue(n % 64 == 0 || n == 700);
+						}
+					}
+					rule.update(rand.nextDouble() < 0.31);
+				}
+				SampleEstimate estimate = rule.estimateRemainingSamples();
+				Assert.assertEquals(0.0, estimate.getUpper(), 0.0);
+			}
+		}
+		Algorithm rule = new FixedSamples("", 0.05, 1000);
+		rule.update(17, 100);
+		SampleEstimate estimate = rule.estimateRemainingSamples();
+		Assert.assertEquals(900.0, estimate.getLower(), 0.0);
+		Assert.assertEquals(900.0, estimate.getUpper(), 0.0);
+		Assert.assertEquals(Double.POSITIVE_INFINITY, new Mira(0.3, 0.05, 0.05, 0).estimateRemainingSamples().getUpper(), 0.0);
+	}
+}
@@ -0,0 +1,86 @@
+package testing;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import sequential.Algorithm;
+import sequential.BayesianB;
+import sequential.Mira;
+import sequential.RuleBank;
+import sequential.YounesA;
+import sequential.YounesB;
+
+public class RuleBankTest {
+	private Algorithm createRule(int type, Random rand){
+		/*
+		 * Random parameters, theta = 1.0 for some Mira and maxSamples for some of each
+		 */
+		double theta = 0.02 + 0.96 * rand.nextDouble();
+		double delta = 0.005 + 0.05 * rand.nextDouble();
+		double alpha = 0.005 + 0.1 * rand.nextDouble();
+		double beta = 0.005 + 0.1 * rand.nextDouble();
+		int maxSamples = rand.nextInt(4) == 0 ? 1 + rand.nextInt(2000) : 0;
+		switch(type){
+		case 0: return new YounesA(Algorithm.Operator.GREATER, theta, delta, alpha, beta, maxSamples);
+		case 1: return new YounesB("", Algorithm.Operator.GREATER, theta, delta, alpha, beta, Math.min(alpha, beta), maxSamples);
+		case 2:
+			if(rand.nextInt(20) == 0) theta = 1.0;
+			return new Mira(theta, alpha, beta, maxSamples == 0 ? 5000 : maxSamples);
+		default: return new BayesianB("", Algorithm.Operator.GREATER, theta, 1, 1, 1e-6 + 1e-4 * rand.nextDouble(), maxSamples);
+		}
+	}
+
+	@Test
+	public void sameAsTheRules(){
+		/*
+		 * Every rule of a bank takes the same samples and concludes alike as the Algorithm it was added from, fed
+		 * the same outcomes, including rules added with samples already taken and rules skipped along the way
+		 */
+		Random rand = new Random(8);
+		int rules = 400;
+		Algorithm[] expected = new Algorithm[rules];
+		double[] p = new double[rules];
+		RuleBank bank = new RuleBank();
+		for(int i = 0; i < rules; i++){
+			Algorithm rule = this.createRule(i % 4, rand);
+			p[i] = Math.min(1.0, Math.max(0.0, rule.getTheta() + (rand.nextInt(3) - 1) * 0.1 * rand.nextDouble()));
+			if(rand.nextInt(5) == 0){
+				for(int j = rand.nextInt(200); j > 0 && rule.obtainAnotherSample(); j--) rule.update(rand.nextDouble() < p[i]);
+			}
+			if(rand.nextInt(50) == 0) rule.skipRule();
+			expected[i] = rule;
+			Assert.assertEquals(i, bank.add(rule));
+		}
+		boolean[] outcomes = new boolean[rules];
+		int active = bank.getActiveCount();
+		while(active > 0){
+			int stillActive = 0;
+			for(int i = 0; i < rules; i++){
+				outcomes[i] = rand.nextDouble() < p[i];
+				if(expected[i].obtainAnotherSample()){
+					if(rand.nextInt(20000) == 0){
+						//The bank drops the rule from its active ones at the next update
+						bank.skipRule(i);
+						expected[i].skipRule();
+						continue;
+					}
+					expected[i].update(outcomes[i]);
+					if(expected[i].obtainAnotherSample()) stillActive++;
+				}
+			}
+			active = bank.update(outcomes);
+			Assert.assertEquals(stillActive, active);
+			for(int i = 0; i < rules; i++){
+				Assert.assertEquals("rule " + i, expected[i].obtainAnotherSample(), bank.obtainAnotherSample(i));
+				Assert.assertEquals("rule " + i, expected[i].getTotalSamples(), bank.getTotalSamples(i));
+				Assert.assertEquals("rule " + i, expected[i].getTrueSamples(), bank.getTrueSamples(i));
+			}
+		}
+		for(int i = 0; i < rules; i++){
+			Assert.assertEquals("rule " + i, expected[i].getSkipRule(), bank.getSkipRule(i));
+			if(!expected[i].getSkipRule()) Assert.assertEquals("rule " + i, expected[i].getConclusion(), bank.getConclusion(i));
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package testing;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import sequential.Algorithm;
+import sequential.Algorithm.Conclusion;
+import sequential.BayesianB;
+import sequential.FixedCIEstimate;
+import sequential.Mira;
+import sequential.RuleSetMonitor;
+import sequential.SampleSource;
+import sequential.YounesA;
+import sequential.YounesB;
+
+public class RuleSetMonitorTest {
+	/*
+	 * Counts the samples drawn, which for a simulator would be the runs
+	 */
+	private static class CountingSource implements SampleSource {
+		private final Random rand;
+		private final double p;
+		private int drawn = 0;
+
+		CountingSource(long seed, double p){
+			this.rand = new Random(seed);
+			this.p = p;
+		}
+
+		public boolean nextSample(){
+			this.drawn++;
+			return this.rand.nextDouble() < this.p;
+		}
+	}
+
+	private Algorithm[] createRules(){
+		Algorithm[] rules = {
+				new YounesA(Algorithm.Operator.GREATER, 0.3, 0.02, 0.01, 0.01, 0),
+				new YounesB("", Algorithm.Operator.GREATER, 0.3, 0.02, 0.01, 0.01, 0.01, 0),
+				new Mira(0.3, 0.01, 0.01, 3000),
+				new BayesianB("", Algorithm.Operator.GREATER, 0.3, 1, 1, 0.0001, 0),
+				new FixedCIEstimate("", 0.05, 0.02, 0)};
+		return rules;
+	}
+
+	@Test
+	public void sameAsIndependentRuns(){
+		for(long seed = 0; seed < 20; seed++){
+			CountingSource source = new CountingSource(seed, 0.33);
+			RuleSetMonitor monitor = new RuleSetMonitor(source, this.createRules());
+			int drawn = monitor.run();
+			Assert.assertEquals(0, monitor.getActiveCount());
+			Assert.assertEquals(drawn, source.drawn);
+			Assert.assertEquals(drawn, monitor.getSamplesDrawn());
+			Algorithm[] rules = this.createRules();
+			int longest = 0;
+			for(int i = 0; i < rules.length; i++){
+				Random rand = new Random(seed);
+				while(rules[i].obtainAnotherSample()) rules[i].update(rand.nextDouble() < 0.33);
+				Assert.assertEquals(rules[i].getTotalSamples(), monitor.getTotalSamples(i));
+				Assert.assertEquals(rules[i].getConclusionOrNull(), monitor.getConclusion(i));
+				longest = Math.max(longest, rules[i].getTotalSamples());
+			}
+			//No sample is drawn after the last rule has decided
+			Assert.assertEquals(longest, drawn);
+		}
+	}
+
+	@Test
+	public void skippedRulesStopTheDraws(){
+		CountingSource source = new CountingSource(1, 0.3);
+		RuleSetMonitor monitor = new RuleSetMonitor(source, this.createRules());
+		for(int i = 0; i < 10; i++) Assert.assertTrue(monitor.step());
+		for(int i = 0; i < monitor.size(); i++){
+			Assert.assertNull(monitor.getConclusion(i));
+			monitor.skipRule(i);
+		}
+		Assert.assertFalse(monitor.obtainAnotherSample());
+		Assert.assertFalse(monitor.step());
+		Assert.assertEquals(0, monitor.run());
+		Assert.assertEquals(10, source.drawn);
+		for(int i = 0; i < monitor.size(); i++){
+			Assert.assertNull(monitor.getConclusion(i));
+			Assert.assertEquals(10, monitor.getTotalSamples(i));
+		}
+	}
+
+	@Test
+	public void activeIndexShrinks(){
+		CountingSource source = new CountingSource(2, 0.9);
+		RuleSetMonitor monitor = new RuleSetMonitor(source, this.createRules());
+		int active = monitor.getActiveCount();
+		while(monitor.step()){
+			Assert.assertTrue(monitor.getActiveCount() <= active);
+			active = monitor.getActiveCount();
+			for(int j = 0; j < monitor.getActiveCount(); j++){
+				Assert.assertTrue(monitor.getRule(monitor.getActiveRule(j)).obtainAnotherSample());
+			}
+		}
+		for(int i = 0; i < monitor.size(); i++){
+			Assert.assertFalse(monitor.isActive(i));
+			//Estimates have none
+			Assert.assertEquals(monitor.getRule(i).hasConclusion(), monitor.getConclusion(i) != null);
+		}
+		Assert.assertEquals(Conclusion.H0, monitor.getConclusion(0));
+	}
+}
@@ -0,0 +1,43 @@
+package testing;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Random;
+
+import sequential.Algorithm;
+import sequential.RuleSnapshot;
+
+public class RuleShard {
+	/*
+	 * One shard of a rule verified across processes, run by RuleSnapshotTest over a loopback socket
+	 *
+	 * Reads the seed of its samples and the snapshot of the rule with no samples, then a quota per
+	 * synchronization point, and answers each quota with the snapshot of that many samples drawn from
+	 * Random(seed) with probability p of being true. A negative quota ends the shard.
+	 */
+	public static void main(String[] args) throws Exception {
+		if(args.length != 2) throw new Error("Need two arguments.\n 1) port (int) \n 2) p (double)");
+		int port = Integer.parseInt(args[0]);
+		double p = Double.parseDouble(args[1]);
+		Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+		try{
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			Random rand = new Random(in.readLong());
+			RuleSnapshot empty = RuleSnapshot.readFrom(in);
+			int quota;
+			while((quota = in.readInt()) >= 0){
+				Algorithm batch = empty.toRule();
+				for(int i = 0; i < quota; i++) batch.update(rand.nextDouble() < p);
+				RuleSnapshot.of(batch).writeTo(out);
+				out.flush();
+			}
+		}finally{
+			socket.close();
+		}
+	}
+}
@@ -0,0 +1,202 @@
+package testing;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import sequential.Algorithm;
+import sequential.LookSchedule;
+import sequential.RuleSnapshot;
+import sequential.Shard;
+import sequential.ShardCoordinator;
+
+public class RuleSnapshotTest {
+	private static final double P = 0.31;
+	//Milliseconds to wait for a shard to connect or answer
+	private static final int TIMEOUT = 30000;
+	//Synchronization points of the shards
+	private static final LookSchedule LOOKS = LookSchedule.every(100);
+
+	//Rules with a syntax and each comparison, so that the snapshots carry them
+	private static final String[] SYNTAX = {"P>=0.3 [a]", "P>0.3 [b]", "P<0.3 [c]", "", "", "P=? [d]", "P=? [e]"};
+	private static final Algorithm.Operator[] OPERATORS = {Algorithm.Operator.GREATER_EQUAL, Algorithm.Operator.GREATER,
+		Algorithm.Operator.LESSER, Algorithm.Operator.GREATER, Algorithm.Operator.GREATER, Algorithm.Operator.GREATER,
+		Algorithm.Operator.GREATER};
+
+	private Algorithm createRule(int type){
+		return Rules.create(type, SYNTAX[type], OPERATORS[type], 0.3, 0.01, 0.01, Rules.defaultMaxSamples(type));
+	}
+
+	@Test
+	public void roundTrip(){
+		//A rule restored from the bytes of its snapshot continues as the rule itself
+		for(int type = 0; type < Rules.TYPES; type++){
+			Random rand = new Random(type);
+			Algorithm rule = this.createRule(type);
+			for(int i = 0; i < 300; i++){
+				rule.update(rand.nextDouble() < P, Algorithm.RuleStatus.TRUE);
+				rule.obtainAnotherSample();
+			}
+			byte[] bytes = RuleSnapshot.of(rule).toBytes();
+			Algorithm restored = RuleSnapshot.fromBytes(bytes).toRule();
+			Assert.assertArrayEquals(bytes, RuleSnapshot.of(restored).toBytes());
+			Assert.assertEquals(Algorithm.RuleStatus.TRUE, restored.getLastStatus());
+			while(rule.obtainAnotherSample()){
+				boolean isTrue = rand.nextDouble() < P;
+				rule.update(isTrue);
+				Assert.assertTrue(restored.obtainAnotherSample());
+				restored.update(isTrue);
+			}
+			Assert.assertFalse(restored.obtainAnotherSample());
+			Assert.assertEquals(rule.getTotalSamples(), restored.getTotalSamples());
+			if(rule.getOperator() != Algorithm.Operator.QUESTION) Assert.assertEquals(rule.getConclusion(), restored.getConclusion());
+		}
+	}
+
+	@Test
+	public void mergeAddsCounts(){
+		Algorithm first = this.createRule(Rules.MIRA);
+		first.update(30, 100);
+		first.obtainAnotherSample();
+		Algorithm second = this.createRule(Rules.MIRA);
+		second.update(5, 10, Algorithm.RuleStatus.FALSE);
+		RuleSnapshot merged = RuleSnapshot.of(first).merge(RuleSnapshot.of(second));
+		Assert.assertEquals(110, merged.getTotalSamples());
+		Assert.assertEquals(35, merged.getTrueSamples());
+		Assert.assertEquals(Algorithm.RuleStatus.FALSE, merged.getLastStatus());
+		Algorithm rule = merged.toRule();
+		Assert.assertEquals(110, rule.getTotalSamples());
+		Assert.assertEquals(35, rule.getTrueSamples());
+	}
+
+	@Test(expected = Error.class)
+	public void mergeOfDifferentRules(){
+		RuleSnapshot.of(this.createRule(Rules.YOUNES_A)).merge(RuleSnapshot.of(this.createRule(Rules.YOUNES_B)));
+	}
+
+	@Test
+	public void readRejectsCorruptBytes(){
+		//Bad magic, unknown version, kind, operator and status, each an IOException
+		byte[] bytes = RuleSnapshot.of(this.createRule(Rules.YOUNES_A)).toBytes();
+		int operator = 4 + 1 + 1 + 2 + SYNTAX[Rules.YOUNES_A].length();
+		int status = operator + 1 + 5 * 8 + 4 * 4;
+		int[][] corruptions = {{0, 0}, {4, 9}, {5, Rules.TYPES}, {5, -2}, {operator, 100}, {status, 100}};
+		for(int[] corruption : corruptions){
+			byte[] corrupt = bytes.clone();
+			corrupt[corruption[0]] = (byte) corruption[1];
+			try{
+				RuleSnapshot.readFrom(new DataInputStream(new ByteArrayInputStream(corrupt)));
+				Assert.fail("Read a snapshot with byte " + corruption[0] + " set to " + corruption[1]);
+			}catch(IOException e){
+				//Expected
+			}
+		}
+	}
+
+	@Test
+	public void shardsOverLoopback() throws Exception {
+		/*
+		 * Shard processes sample a group-sequential Mira rule for a ShardCoordinator, which merges their samples at
+		 * the looks, and stops at exactly the sample of one rule fed the same samples in turn
+		 */
+		final int shards = 3;
+		ServerSocket server = new ServerSocket(0, shards, InetAddress.getLoopbackAddress());
+		server.setSoTimeout(TIMEOUT);
+		List<Process> processes = new ArrayList<Process>();
+		List<File> logs = new ArrayList<File>();
+		List<Socket> sockets = new ArrayList<Socket>();
+		try{
+			String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+			for(int shard = 0; shard < shards; shard++){
+				File log = File.createTempFile("shard", ".log");
+				logs.add(log);
+				processes.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), RuleShard.class.getName(),
+						"" + server.getLocalPort(), "" + P).redirectErrorStream(true).redirectOutput(log).start());
+			}
+			Algorithm rule = this.createRule(Rules.MIRA);
+			rule.setLookSchedule(LOOKS);
+			RuleSnapshot empty = RuleSnapshot.of(rule);
+			ShardCoordinator.StreamShard[] streams = new ShardCoordinator.StreamShard[shards];
+			//The quotas of each shard, round by round
+			final List<List<Integer>> quotas = new ArrayList<List<Integer>>();
+			Shard[] recorded = new Shard[shards];
+			for(int shard = 0; shard < shards; shard++){
+				Socket socket = server.accept();
+				sockets.add(socket);
+				socket.setSoTimeout(TIMEOUT);
+				DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+				out.writeLong(shard);
+				empty.writeTo(out);
+				final ShardCoordinator.StreamShard stream = new ShardCoordinator.StreamShard(in, out);
+				final List<Integer> shardQuotas = new ArrayList<Integer>();
+				streams[shard] = stream;
+				quotas.add(shardQuotas);
+				recorded[shard] = new Shard(){
+					@Override
+					public void request(int quota) throws IOException {
+						shardQuotas.add(quota);
+						stream.request(quota);
+					}
+
+					@Override
+					public RuleSnapshot collect() throws IOException {
+						return stream.collect();
+					}
+				};
+			}
+			ShardCoordinator coordinator = new ShardCoordinator(rule, recorded);
+			rule = coordinator.run();
+			for(ShardCoordinator.StreamShard stream : streams) stream.close();
+			for(Process process : processes){
+				if(process.waitFor() != 0) Assert.fail("A shard failed:\n" + this.output(logs));
+			}
+			//The same samples in turn, round by round and shard by shard
+			Algorithm sequential = this.createRule(Rules.MIRA);
+			sequential.setLookSchedule(LOOKS);
+			Random[] rand = new Random[shards];
+			for(int shard = 0; shard < shards; shard++) rand[shard] = new Random(shard);
+			for(int round = 0; round < coordinator.getRounds(); round++){
+				for(int shard = 0; shard < shards; shard++){
+					for(int i = 0; i < quotas.get(shard).get(round); i++){
+						boolean isTrue = rand[shard].nextDouble() < P;
+						if(sequential.obtainAnotherSample()) sequential.update(isTrue);
+					}
+				}
+			}
+			Assert.assertFalse(sequential.obtainAnotherSample());
+			Assert.assertEquals(sequential.getTotalSamples(), rule.getTotalSamples());
+			Assert.assertEquals(sequential.getTrueSamples(), rule.getTrueSamples());
+			Assert.assertEquals(sequential.getConclusion(), rule.getConclusion());
+		}catch(SocketTimeoutException e){
+			Assert.fail("No shard connected or answered within " + TIMEOUT + " ms:\n" + this.output(logs));
+		}finally{
+			for(Socket socket : sockets) socket.close();
+			server.close();
+			for(Process process : processes) process.destroy();
+			for(File log : logs) log.delete();
+		}
+	}
+
+	private String output(List<File> logs) throws IOException {
+		//What the shards printed so far
+		StringBuilder output = new StringBuilder();
+		for(File log : logs) output.append(new String(Files.readAllBytes(log.toPath())));
+		return output.toString();
+	}
+}
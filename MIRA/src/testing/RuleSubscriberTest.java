@@ -0,0 +1,155 @@
+package testing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Flow;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import sequential.Algorithm;
+import sequential.RuleSubscriber;
+
+public class RuleSubscriberTest {
+	private static final int LENGTH = 1 << 16;
+	private static final boolean[] OUTCOMES = new boolean[LENGTH];
+	static{
+		Random rand = new Random(1);
+		for(int i = 0; i < LENGTH; i++) OUTCOMES[i] = rand.nextDouble() < 0.29;
+	}
+
+	private static class ArrayPublisher implements Flow.Publisher<Boolean>, Flow.Subscription {
+		/*
+		 * Publishes the first length of OUTCOMES on the calling thread, no more than requested
+		 * Requests made from onNext are served by the loop of the outer call
+		 */
+		final int length;
+		final Throwable failure;//Signalled after the samples if not null
+		Flow.Subscriber<? super Boolean> subscriber;
+		long demand = 0;
+		int produced = 0;
+		long maxDemand = 0;
+		boolean isCancelled = false;
+		boolean isEmitting = false;
+		boolean isEnded = false;
+
+		ArrayPublisher(int length, Throwable failure){
+			this.length = length;
+			this.failure = failure;
+		}
+
+		public void subscribe(Flow.Subscriber<? super Boolean> subscriber){
+			this.subscriber = subscriber;
+			subscriber.onSubscribe(this);
+		}
+
+		public void request(long n){
+			this.demand += n;
+			this.maxDemand = Math.max(this.maxDemand, this.demand);
+			if(this.isEmitting) return;
+			this.isEmitting = true;
+			while(!this.isCancelled && !this.isEnded && this.demand > 0 && this.produced < this.length){
+				this.demand--;
+				this.subscriber.onNext(OUTCOMES[this.produced++]);
+			}
+			if(!this.isCancelled && !this.isEnded && this.produced == this.length){
+				this.isEnded = true;
+				if(this.failure == null) this.subscriber.onComplete();
+				else this.subscriber.onError(this.failure);
+			}
+			this.isEmitting = false;
+		}
+
+		public void cancel(){
+			this.isCancelled = true;
+		}
+	}
+
+	private static class Collector implements Flow.Subscriber<RuleSubscriber.Result> {
+		final List<RuleSubscriber.Result> results = new ArrayList<RuleSubscriber.Result>();
+		Throwable failure = null;
+		boolean isComplete = false;
+
+		public void onSubscribe(Flow.Subscription subscription){
+			subscription.request(1);
+		}
+		public void onNext(RuleSubscriber.Result result){ this.results.add(result); }
+		public void onError(Throwable failure){ this.failure = failure; }
+		public void onComplete(){ this.isComplete = true; }
+	}
+
+	@Test
+	public void noSampleIsOverproduced(){
+		/*
+		 * Same conclusion as from a loop over the samples, with every sample produced taken by the rule, no more
+		 * than maxChunk requested at once and the subscription cancelled on the decision
+		 */
+		for(int type : new int[]{Rules.YOUNES_A, Rules.YOUNES_B, Rules.MIRA, Rules.FIXED_CI_ESTIMATE}){
+			Algorithm expected = Rules.create(type);
+			int i = 0;
+			while(expected.obtainAnotherSample()) expected.update(OUTCOMES[i++]);
+			RuleSubscriber subscriber = new RuleSubscriber(Rules.create(type), 256);
+			Collector collector = new Collector();
+			subscriber.subscribe(collector);
+			Assert.assertTrue(collector.results.isEmpty());
+			ArrayPublisher publisher = new ArrayPublisher(LENGTH, null);
+			publisher.subscribe(subscriber);
+			Assert.assertTrue(publisher.isCancelled);
+			Assert.assertEquals(expected.getTotalSamples(), publisher.produced);
+			Assert.assertEquals(0, publisher.demand);
+			Assert.assertTrue(publisher.maxDemand <= 256);
+			Assert.assertTrue(collector.isComplete);
+			Assert.assertEquals(1, collector.results.size());
+			RuleSubscriber.Result result = collector.results.get(0);
+			Assert.assertEquals(expected.getTotalSamples(), result.getTotalSamples());
+			Assert.assertEquals(expected.getTrueSamples(), result.getTrueSamples());
+			if(type == Rules.FIXED_CI_ESTIMATE){
+				Assert.assertNull(result.getConclusion());
+			}else{
+				Assert.assertEquals(expected.getConclusion(), result.getConclusion());
+				Assert.assertEquals(expected.getConclusionInRuleStatus(), result.getStatus());
+			}
+			//A late subscriber gets the result straight away
+			Collector late = new Collector();
+			subscriber.subscribe(late);
+			Assert.assertEquals(1, late.results.size());
+			Assert.assertTrue(late.isComplete);
+		}
+	}
+
+	@Test
+	public void endAndFailureOfTheSamples(){
+		/*
+		 * Samples ending before the decision give the result so far, a failure is passed on
+		 */
+		RuleSubscriber subscriber = new RuleSubscriber(Rules.create(Rules.YOUNES_A), 64);
+		Collector collector = new Collector();
+		subscriber.subscribe(collector);
+		new ArrayPublisher(10, null).subscribe(subscriber);
+		Assert.assertTrue(collector.isComplete);
+		Assert.assertEquals(10, collector.results.get(0).getTotalSamples());
+		Assert.assertEquals(Algorithm.RuleStatus.UNKNOWN, collector.results.get(0).getStatus());
+
+		subscriber = new RuleSubscriber(Rules.create(Rules.MIRA), 64);
+		collector = new Collector();
+		subscriber.subscribe(collector);
+		IllegalStateException failure = new IllegalStateException("stream broken");
+		new ArrayPublisher(10, failure).subscribe(subscriber);
+		Assert.assertSame(failure, collector.failure);
+		Assert.assertTrue(collector.results.isEmpty());
+		Assert.assertFalse(collector.isComplete);
+
+		//A skipped rule takes no sample
+		Algorithm skipped = Rules.create(Rules.YOUNES_B);
+		skipped.skipRule();
+		subscriber = new RuleSubscriber(skipped, 64);
+		collector = new Collector();
+		subscriber.subscribe(collector);
+		ArrayPublisher publisher = new ArrayPublisher(LENGTH, null);
+		publisher.subscribe(subscriber);
+		Assert.assertTrue(publisher.isCancelled);
+		Assert.assertEquals(0, publisher.produced);
+		Assert.assertNull(collector.results.get(0).getConclusion());
+	}
+}
@@ -0,0 +1,69 @@
+package testing;
+
+import sequential.Algorithm;
+import sequential.BayesianA;
+import sequential.BayesianB;
+import sequential.FixedCIEstimate;
+import sequential.FixedSamples;
+import sequential.Mira;
+import sequential.YounesA;
+import sequential.YounesB;
+
+class Rules {
+	/*
+	 * One rule of each type, as the tests run them
+	 *
+	 * The hypothesis tests have alpha = beta = error, and YounesB gamma = error. The Bayesian rules have a uniform
+	 * prior, BayesianA stops at a Bayes factor of 1 / error and BayesianB at a posterior standard deviation of
+	 * delta / 3. The estimates are at confidence 1 - error, FixedCIEstimate to a half-width of delta.
+	 */
+	static final int YOUNES_A = 0;
+	static final int YOUNES_B = 1;
+	static final int MIRA = 2;
+	static final int BAYESIAN_A = 3;
+	static final int BAYESIAN_B = 4;
+	static final int FIXED_CI_ESTIMATE = 5;
+	static final int FIXED_SAMPLES = 6;
+	static final int TYPES = 7;
+
+	//Limits when none is given, Mira may not stop near theta without one and FixedSamples only stops at it
+	static final int MIRA_MAX_SAMPLES = 20000;
+	static final int FIXED_SAMPLES_MAX_SAMPLES = 5000;
+
+	private Rules(){}
+
+	static Algorithm create(int type){
+		//P > 0.3 with delta 0.05 and error 0.05
+		return create(type, 0.3, 0.05, 0.05);
+	}
+
+	static Algorithm create(int type, double theta, double delta, double error){
+		return create(type, theta, delta, error, defaultMaxSamples(type));
+	}
+
+	static int defaultMaxSamples(int type){
+		//Without a limit but for Mira and FixedSamples
+		if(type == MIRA) return MIRA_MAX_SAMPLES;
+		if(type == FIXED_SAMPLES) return FIXED_SAMPLES_MAX_SAMPLES;
+		return 0;
+	}
+
+	static Algorithm create(int type, double theta, double delta, double error, int maxSamples){
+		return create(type, "", Algorithm.Operator.GREATER, theta, delta, error, maxSamples);
+	}
+
+	static Algorithm create(int type, String syntax, Algorithm.Operator operator, double theta, double delta, double error,
+			int maxSamples){
+		//The estimates take neither operator nor theta
+		switch(type){
+		case YOUNES_A: return new YounesA(syntax, operator, theta, delta, error, error, maxSamples);
+		case YOUNES_B: return new YounesB(syntax, operator, theta, delta, error, error, error, maxSamples);
+		case MIRA: return new Mira(syntax, operator, theta, error, error, maxSamples);
+		case BAYESIAN_A: return new BayesianA(syntax, operator, theta, 1, 1, 1 / error, maxSamples);
+		case BAYESIAN_B: return new BayesianB(syntax, operator, theta, 1, 1, delta * delta / 9, maxSamples);
+		case FIXED_CI_ESTIMATE: return new FixedCIEstimate(syntax, error, delta, maxSamples);
+		case FIXED_SAMPLES: return new FixedSamples(syntax, error, maxSamples);
+		default: throw new Error("Unknown rule type: " + type);
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package testing;
+
+public class RunningStats {
+	/*
+	 * Count, mean, variance, minimum and maximum of a stream of values in constant memory
+	 * The mean and the sum of squared deviations are updated as by Welford, and merged as by Chan et al., which
+	 * stays accurate where a sum of squares would cancel
+	 */
+	private long count = 0;
+	private double mean = 0.0;
+	private double m2 = 0.0;//Sum of squared deviations from the mean
+	private double min = Double.POSITIVE_INFINITY;
+	private double max = Double.NEGATIVE_INFINITY;
+
+	public void add(double value){
+		this.count++;
+		double d = value - this.mean;
+		this.mean += d / this.count;
+		this.m2 += d * (value - this.mean);
+		if(value < this.min) this.min = value;
+		if(value > this.max) this.max = value;
+	}
+
+	public RunningStats merge(RunningStats other){
+		//Statistics of the values of this followed by those of other
+		RunningStats r = new RunningStats();
+		r.count = this.count + other.count;
+		if(r.count == 0) return r;
+		double d = other.mean - this.mean;
+		r.mean = this.mean + d * other.count / r.count;
+		r.m2 = this.m2 + other.m2 + d * d * ((double) this.count * other.count / r.count);
+		r.min = Math.min(this.min, other.min);
+		r.max = Math.max(this.max, other.max);
+		return r;
+	}
+
+	public long getCount(){ return this.count; }
+	public double getMin(){ return this.min; }
+	public double getMax(){ return this.max; }
+
+	public double getMean(){
+		//NaN when empty
+		return this.count == 0 ? Double.NaN : this.mean;
+	}
+
+	public double getSum(){ return this.mean * this.count; }
+
+	public double getVariance(){
+		//Sample variance, NaN for fewer than two values
+		return this.count < 2 ? Double.NaN : this.m2 / (this.count - 1);
+	}
+
+	public double getStandardDeviation(){ return Math.sqrt(this.getVariance()); }
+}
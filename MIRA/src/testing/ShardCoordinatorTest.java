@@ -0,0 +1,112 @@
+package testing;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import sequential.Algorithm;
+import sequential.LookSchedule;
+import sequential.RuleSnapshot;
+import sequential.Shard;
+import sequential.ShardCoordinator;
+
+public class ShardCoordinatorTest {
+	private static final double P = 0.31;
+	private static final int SHARDS = 3;
+
+	private static class LocalShard implements Shard {
+		//Samples of Random(seed), and the quotas it was asked for
+		private final RuleSnapshot empty;
+		private final Random rand;
+		private final List<Integer> quotas = new ArrayList<Integer>();
+
+		LocalShard(RuleSnapshot empty, long seed){
+			this.empty = empty;
+			this.rand = new Random(seed);
+		}
+
+		@Override
+		public void request(int quota){
+			this.quotas.add(quota);
+		}
+
+		@Override
+		public RuleSnapshot collect(){
+			Algorithm batch = this.empty.toRule();
+			int quota = this.quotas.get(this.quotas.size() - 1);
+			for(int i = 0; i < quota; i++) batch.update(this.rand.nextDouble() < P);
+			return RuleSnapshot.of(batch);
+		}
+	}
+
+	private Algorithm createRule(int type, LookSchedule schedule){
+		Algorithm rule = Rules.create(type, 0.3, 0.02, 0.05);
+		rule.setLookSchedule(schedule);
+		return rule;
+	}
+
+	@Test
+	public void sameAsOneMachine() throws IOException {
+		/*
+		 * Every round ends at a look, and the rule stops at exactly the sample of one rule fed the same samples in
+		 * turn, round by round and shard by shard
+		 */
+		for(LookSchedule schedule : new LookSchedule[]{LookSchedule.every(1), LookSchedule.every(50), new LookSchedule(40, 25, 50)}){
+			for(int type = 0; type < Rules.TYPES; type++){
+				Algorithm rule = this.createRule(type, schedule);
+				LocalShard[] shards = new LocalShard[SHARDS];
+				for(int shard = 0; shard < SHARDS; shard++) shards[shard] = new LocalShard(RuleSnapshot.of(rule), shard);
+				ShardCoordinator coordinator = new ShardCoordinator(rule, shards);
+				rule = coordinator.run();
+				Algorithm sequential = this.createRule(type, schedule);
+				Random[] rand = new Random[SHARDS];
+				for(int shard = 0; shard < SHARDS; shard++) rand[shard] = new Random(shard);
+				for(int round = 0; round < coordinator.getRounds(); round++){
+					for(int shard = 0; shard < SHARDS; shard++){
+						for(int i = 0; i < shards[shard].quotas.get(round); i++){
+							boolean isTrue = rand[shard].nextDouble() < P;
+							if(sequential.obtainAnotherSample()) sequential.update(isTrue);
+						}
+					}
+					int n = sequential.getTotalSamples();
+					Assert.assertTrue(schedule.isLook(n) || n == Rules.defaultMaxSamples(type));
+				}
+				Assert.assertFalse(rule.obtainAnotherSample());
+				Assert.assertFalse(sequential.obtainAnotherSample());
+				Assert.assertEquals(sequential.getTotalSamples(), rule.getTotalSamples());
+				Assert.assertEquals(sequential.getTrueSamples(), rule.getTrueSamples());
+				Assert.assertEquals(sequential.getConclusionOrNull(), rule.getConclusionOrNull());
+			}
+		}
+	}
+
+	@Test
+	public void roundsAreWholeGroups() throws IOException {
+		/*
+		 * Near a decision a rule that checks after every sample can stop at any sample, but the rounds of a
+		 * group-sequential rule still reach a look, so there are at most as many rounds as looks
+		 */
+		LookSchedule schedule = LookSchedule.every(100);
+		Algorithm rule = this.createRule(Rules.YOUNES_B, schedule);
+		LocalShard[] shards = new LocalShard[SHARDS];
+		for(int shard = 0; shard < SHARDS; shard++) shards[shard] = new LocalShard(RuleSnapshot.of(rule), shard);
+		ShardCoordinator coordinator = new ShardCoordinator(rule, shards);
+		rule = coordinator.run();
+		Assert.assertTrue(rule.getTotalSamples() >= 100);
+		Assert.assertTrue(coordinator.getRounds() <= rule.getTotalSamples() / 100);
+		for(int round = 0; round < coordinator.getRounds(); round++){
+			int budget = 0;
+			for(LocalShard shard : shards) budget += shard.quotas.get(round);
+			Assert.assertTrue(budget >= 100);
+		}
+	}
+
+	@Test(expected = Error.class)
+	public void needsLooks(){
+		new ShardCoordinator(Rules.create(Rules.YOUNES_A), new Shard[]{new LocalShard(null, 0)});
+	}
+}
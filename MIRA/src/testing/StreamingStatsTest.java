@@ -0,0 +1,124 @@
+package testing;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StreamingStatsTest {
+	private static final int LENGTH = 100000;
+
+	private static double[] values(long seed){
+		//Spread over many orders of magnitude as p-values are, with some zeros
+		Random rand = new Random(seed);
+		double[] values = new double[LENGTH];
+		for(int i = 0; i < LENGTH; i++) values[i] = i % 97 == 0 ? 0.0 : 0.5 * Math.pow(rand.nextDouble(), 4);
+		return values;
+	}
+
+	@Test
+	public void histogramCountsAsBinned(){
+		double[] values = values(1);
+		Histogram histogram = new Histogram(0.0, 0.05, 9);
+		long[] counts = new long[9];
+		long overflow = 0;
+		for(double value : values){
+			histogram.add(value);
+			if(value >= 0.45) overflow++;
+			else counts[(int) (value / 0.05)]++;
+		}
+		double[][] xy = histogram.toXY();
+		for(int i = 0; i < counts.length; i++){
+			Assert.assertEquals(i * 0.05, xy[0][i], 1e-12);
+			Assert.assertEquals(counts[i], (long) xy[1][i]);
+		}
+		Assert.assertEquals(overflow, histogram.getOverflow());
+		Assert.assertEquals(0, histogram.getUnderflow());
+		Assert.assertEquals(LENGTH, histogram.getTotal());
+	}
+
+	@Test
+	public void mergedSameAsOneStream(){
+		/*
+		 * Accumulators filled by chunks and merged have the counts of one filled with all the values
+		 */
+		double[] values = values(2);
+		Histogram histogram = new Histogram(0.0, 0.05, 10);
+		RunningStats stats = new RunningStats();
+		QuantileSketch sketch = new QuantileSketch(0.01, 2048);
+		Histogram mergedHistogram = new Histogram(0.0, 0.05, 10);
+		RunningStats mergedStats = new RunningStats();
+		QuantileSketch mergedSketch = new QuantileSketch(0.01, 2048);
+		for(int from = 0; from < LENGTH; from += 7919){
+			Histogram h = new Histogram(0.0, 0.05, 10);
+			RunningStats r = new RunningStats();
+			QuantileSketch q = new QuantileSketch(0.01, 2048);
+			for(int i = from; i < Math.min(LENGTH, from + 7919); i++){
+				h.add(values[i]);
+				r.add(values[i]);
+				q.add(values[i]);
+				histogram.add(values[i]);
+				stats.add(values[i]);
+				sketch.add(values[i]);
+			}
+			mergedHistogram = mergedHistogram.merge(h);
+			mergedStats = r.merge(mergedStats);
+			mergedSketch = q.merge(mergedSketch);
+		}
+		Assert.assertArrayEquals(histogram.toXY()[1], mergedHistogram.toXY()[1], 0.0);
+		Assert.assertEquals(stats.getCount(), mergedStats.getCount());
+		Assert.assertEquals(stats.getMean(), mergedStats.getMean(), 1e-12);
+		Assert.assertEquals(stats.getVariance(), mergedStats.getVariance(), 1e-12);
+		Assert.assertEquals(stats.getMin(), mergedStats.getMin(), 0.0);
+		Assert.assertEquals(stats.getMax(), mergedStats.getMax(), 0.0);
+		for(double q = 0; q <= 1; q += 0.01) Assert.assertEquals(sketch.getQuantile(q), mergedSketch.getQuantile(q), 0.0);
+	}
+
+	@Test
+	public void statsSameAsTwoPass(){
+		double[] values = values(3);
+		RunningStats stats = new RunningStats();
+		double sum = 0;
+		for(double value : values){
+			stats.add(value);
+			sum += value;
+		}
+		double mean = sum / LENGTH;
+		double squares = 0;
+		for(double value : values) squares += (value - mean) * (value - mean);
+		Assert.assertEquals(mean, stats.getMean(), 1e-12);
+		Assert.assertEquals(squares / (LENGTH - 1), stats.getVariance(), 1e-12);
+		Assert.assertTrue(Double.isNaN(new RunningStats().getMean()));
+	}
+
+	@Test
+	public void quantilesWithinRelativeError(){
+		double[] values = values(4);
+		QuantileSketch sketch = new QuantileSketch(0.01, 2048);
+		for(double value : values) sketch.add(value);
+		double[] sorted = values.clone();
+		Arrays.sort(sorted);
+		for(double q = 0; q <= 1; q += 0.001){
+			double exact = sorted[(int) Math.floor(q * (LENGTH - 1))];
+			Assert.assertEquals("q " + q, exact, sketch.getQuantile(q), 0.01 * exact);
+		}
+	}
+
+	@Test
+	public void foldedBucketsKeepTheLargeQuantiles(){
+		/*
+		 * With few buckets only the quantiles among the smallest values lose accuracy
+		 */
+		double[] values = values(5);
+		QuantileSketch sketch = new QuantileSketch(0.01, 64);
+		for(double value : values) sketch.add(value);
+		double[] sorted = values.clone();
+		Arrays.sort(sorted);
+		for(double q = 0.9; q <= 1; q += 0.001){
+			double exact = sorted[(int) Math.floor(q * (LENGTH - 1))];
+			Assert.assertEquals("q " + q, exact, sketch.getQuantile(q), 0.01 * exact);
+		}
+		Assert.assertTrue(sketch.getQuantile(0.5) >= sorted[LENGTH / 2]);
+	}
+}
@@ -0,0 +1,79 @@
+package testing;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import sequential.TextTrace;
+
+public class TextTraceTest {
+	private void assertSameAsReadLine(String text) throws IOException {
+		byte[] bytes = text.getBytes("UTF-8");
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(bytes), "UTF-8"));
+		TextTrace trace = new TextTrace(new ByteArrayInputStream(bytes));
+		String line;
+		while((line = reader.readLine()) != null){
+			Assert.assertTrue(trace.hasNextSample());
+			Assert.assertEquals(Boolean.parseBoolean(line), trace.nextSample());
+		}
+		Assert.assertFalse(trace.hasNextSample());
+		Assert.assertEquals(bytes.length, trace.getBytesRead());
+		trace.close();
+	}
+
+	@Test
+	public void sameAsReadLine() throws IOException {
+		this.assertSameAsReadLine("");
+		this.assertSameAsReadLine("true");
+		this.assertSameAsReadLine("true\nfalse\nTRUE\r\nTrue\rtrue\r\n\ntrue");
+		this.assertSameAsReadLine("truex\ntru\n true\ntrue \nétrue\nyes\n1\n\r\n");
+		//Lines across the boundaries of the buffer
+		Random rand = new Random(1);
+		String[] lines = {"true", "false", "TRUE", "", "trUe", "tru"};
+		String[] ends = {"\n", "\r", "\r\n"};
+		StringBuilder text = new StringBuilder();
+		for(int i = 0; i < 100000; i++){
+			text.append(lines[rand.nextInt(lines.length)]).append(ends[rand.nextInt(ends.length)]);
+		}
+		this.assertSameAsReadLine(text.toString());
+	}
+
+	@Test
+	public void readsLazily() throws IOException {
+		StringBuilder text = new StringBuilder();
+		for(int i = 0; i < 1000000; i++) text.append(i % 3 == 0 ? "true\n" : "false\n");
+		byte[] bytes = text.toString().getBytes("UTF-8");
+		TextTrace trace = new TextTrace(new ByteArrayInputStream(bytes));
+		for(int i = 0; i < 200; i++) Assert.assertEquals(i % 3 == 0, trace.nextSample());
+		Assert.assertEquals(200, trace.getSamplesRead());
+		Assert.assertTrue(trace.getBytesRead() < bytes.length / 10);
+		trace.close();
+	}
+
+	@Test
+	public void strictTakesOnlyTrueAndFalse() throws IOException {
+		byte[] bytes = "true\nFALSE\r\nTrue\rfalse\n".getBytes("UTF-8");
+		TextTrace trace = new TextTrace(new ByteArrayInputStream(bytes), true);
+		boolean[] expected = {true, false, true, false};
+		for(boolean isTrue : expected) Assert.assertEquals(isTrue, trace.nextSample());
+		Assert.assertFalse(trace.hasNextSample());
+		trace.close();
+		for(String line : new String[]{"", "yes", "fals", "falsex", " false", "0"}){
+			trace = new TextTrace(new ByteArrayInputStream(("true\n" + line + "\ntrue").getBytes("UTF-8")), true);
+			Assert.assertTrue(trace.nextSample());
+			try{
+				trace.nextSample();
+				Assert.fail(line);
+			}catch(UncheckedIOException e){
+				Assert.assertTrue(e.getCause().getMessage().startsWith("Line 2 "));
+			}
+			trace.close();
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package testing;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import sequential.Algorithm;
+import sequential.ThresholdSweep;
+
+public class ThresholdSweepTest {
+	/*
+	 * Every rule of a sweep must stop at the same sample with the same conclusion as when it is run on its own
+	 */
+	private static final int SAMPLES = 200000;
+	private static final double DELTA = 0.02;
+	private static final double ERROR = 0.05;
+
+	@Test
+	public void sameAsIndependentRuns(){
+		Random rand = new Random(1);
+		for(int type = Rules.YOUNES_A; type <= Rules.MIRA; type++){
+			for(int repeat = 0; repeat < 10; repeat++){
+				double p = rand.nextDouble();
+				//Mira may not stop near p without a limit
+				int maxSamples = (type == Rules.MIRA || repeat % 3 == 0) ? 5000 : 0;
+				double[] theta = new double[101];
+				for(int i = 0; i < theta.length; i++) theta[i] = i / 100.0;
+				boolean[] outcomes = new boolean[SAMPLES];
+				for(int i = 0; i < SAMPLES; i++) outcomes[i] = rand.nextDouble() < p;
+
+				Algorithm[] rules = new Algorithm[theta.length];
+				for(int i = 0; i < theta.length; i++) rules[i] = Rules.create(type, theta[i], DELTA, ERROR, maxSamples);
+				ThresholdSweep sweep = new ThresholdSweep(rules);
+				int samples = 0;
+				while(sweep.obtainAnotherSample() && samples < SAMPLES) sweep.update(outcomes[samples++]);
+				Assert.assertEquals(0, sweep.getUndecidedCount());
+
+				int longest = 0;
+				for(int i = 0; i < theta.length; i++){
+					Algorithm rule = Rules.create(type, theta[i], DELTA, ERROR, maxSamples);
+					int n = 0;
+					while(rule.obtainAnotherSample()) rule.update(outcomes[n++]);
+					String name = rule.getClass().getSimpleName() + " p: " + p + " theta: " + theta[i];
+					Assert.assertEquals(name, rule.getTotalSamples(), sweep.getRule(i).getTotalSamples());
+					Assert.assertEquals(name, rule.getConclusion(), sweep.getConclusion(i));
+					longest = Math.max(longest, n);
+				}
+				//One stream, as long as the longest run
+				Assert.assertEquals(longest, sweep.getTotalSamples());
+			}
+		}
+	}
+
+	@Test(expected = Error.class)
+	public void unsortedThetas(){
+		new ThresholdSweep(new Algorithm[]{Rules.create(Rules.YOUNES_A, 0.5, DELTA, ERROR, 0),
+				Rules.create(Rules.YOUNES_A, 0.4, DELTA, ERROR, 0)});
+	}
+
+	@Test(expected = Error.class)
+	public void differentDelta(){
+		new ThresholdSweep(new Algorithm[]{Rules.create(Rules.YOUNES_A, 0.4, DELTA, ERROR, 0),
+				Rules.create(Rules.YOUNES_A, 0.5, DELTA / 2, ERROR, 0)});
+	}
+}
@@ -0,0 +1,222 @@
+package testing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import sequential.Algorithm;
+import sequential.Algorithm.Conclusion;
+import sequential.SampleSource;
+import sequential.VerificationService;
+
+public class VerificationServiceTest {
+	private static final int LENGTH = 1 << 16;
+	private static final boolean[] OUTCOMES = new boolean[LENGTH];
+	static{
+		Random rand = new Random(1);
+		for(int i = 0; i < LENGTH; i++) OUTCOMES[i] = rand.nextDouble() < 0.29;
+	}
+
+	private static class BlockingSource implements SampleSource {
+		/*
+		 * Sample i is OUTCOMES[offset + i], after blocking for a while as a read would
+		 * Counts the calls to nextSample() in progress over all the sources sharing concurrent
+		 */
+		final int offset;
+		final AtomicInteger concurrent;
+		final AtomicInteger maxConcurrent;
+		int index = 0;
+
+		BlockingSource(int offset, AtomicInteger concurrent, AtomicInteger maxConcurrent){
+			this.offset = offset;
+			this.concurrent = concurrent;
+			this.maxConcurrent = maxConcurrent;
+		}
+
+		public boolean nextSample(){
+			int now = this.concurrent.incrementAndGet();
+			while(true){
+				int max = this.maxConcurrent.get();
+				if(now <= max || this.maxConcurrent.compareAndSet(max, now)) break;
+			}
+			LockSupport.parkNanos(20000);
+			this.concurrent.decrementAndGet();
+			return OUTCOMES[(this.offset + this.index++) % LENGTH];
+		}
+	}
+
+	private static class StuckSource implements SampleSource {
+		//Never returns a sample, until interrupted
+		final CountDownLatch never = new CountDownLatch(1);
+		final CountDownLatch isWaiting = new CountDownLatch(1);
+
+		public boolean nextSample(){
+			this.isWaiting.countDown();
+			try{
+				this.never.await();
+			}catch(InterruptedException e){
+				Thread.currentThread().interrupt();
+				throw new Error("Interrupted", e);
+			}
+			return true;
+		}
+	}
+
+	private Algorithm createRule(int i){
+		//YounesA, YounesB and Mira in turn
+		return Rules.create(i % (Rules.MIRA + 1));
+	}
+
+	@Test
+	public void sameAsSequentialWithinTheLimit() throws InterruptedException {
+		/*
+		 * Each rule decides as it would alone, with at most as many samples drawn at once as the limit has permits
+		 * while there are more rules than permits and more permits than processors
+		 */
+		int rules = 48;
+		int permits = 4 * Runtime.getRuntime().availableProcessors();
+		AtomicInteger concurrent = new AtomicInteger();
+		AtomicInteger maxConcurrent = new AtomicInteger();
+		Semaphore limit = new Semaphore(permits);
+		VerificationService service = new VerificationService();
+		List<Algorithm> submitted = new ArrayList<Algorithm>();
+		List<Future<Conclusion>> futures = new ArrayList<Future<Conclusion>>();
+		try{
+			for(int i = 0; i < rules; i++){
+				Algorithm rule = this.createRule(i);
+				submitted.add(rule);
+				futures.add(service.submit(rule, new BlockingSource(997 * i, concurrent, maxConcurrent), limit));
+			}
+			service.awaitAll();
+		}finally{
+			service.close();
+		}
+		long samples = 0;
+		for(int i = 0; i < rules; i++){
+			Algorithm expected = this.createRule(i);
+			int j = 0;
+			while(expected.obtainAnotherSample()) expected.update(OUTCOMES[(997 * i + j++) % LENGTH]);
+			Assert.assertTrue(futures.get(i).isDone());
+			try{
+				Assert.assertEquals(expected.getConclusion(), futures.get(i).get());
+			}catch(ExecutionException e){
+				throw new Error(e);
+			}
+			Assert.assertEquals(expected.getTotalSamples(), submitted.get(i).getTotalSamples());
+			samples += expected.getTotalSamples();
+		}
+		Assert.assertEquals(samples, service.getSamplesTaken());
+		Assert.assertEquals(rules, service.getRulesCompleted());
+		Assert.assertEquals(rules, service.getRulesSubmitted());
+		Assert.assertEquals(0, service.getRulesFailed());
+		Assert.assertTrue(maxConcurrent.get() <= permits);
+		Assert.assertTrue(maxConcurrent.get() > 1);
+		Assert.assertTrue(service.getSamplesPerSecond() > 0);
+	}
+
+	@Test
+	public void closeCancelsBlockedRules() throws InterruptedException {
+		/*
+		 * close() interrupts the rules waiting for a sample and returns once their tasks have ended
+		 * A skipped rule draws no sample
+		 */
+		VerificationService service = new VerificationService();
+		List<StuckSource> sources = new ArrayList<StuckSource>();
+		List<Future<Conclusion>> futures = new ArrayList<Future<Conclusion>>();
+		for(int i = 0; i < 16; i++){
+			StuckSource source = new StuckSource();
+			sources.add(source);
+			futures.add(service.submit(this.createRule(i), source));
+		}
+		Algorithm skipped = this.createRule(0);
+		skipped.skipRule();
+		StuckSource unused = new StuckSource();
+		Future<Conclusion> skippedFuture = service.submit(skipped, unused);
+		for(StuckSource source : sources) source.isWaiting.await();
+		try{
+			Assert.assertNull(skippedFuture.get());
+		}catch(ExecutionException e){
+			throw new Error(e);
+		}
+		Assert.assertEquals(16, service.getRulesRunning());
+		service.close();
+		Assert.assertEquals(0, service.getRulesRunning());
+		for(Future<Conclusion> future : futures) Assert.assertTrue(future.isCancelled());
+		Assert.assertEquals(1, unused.isWaiting.getCount());
+		Assert.assertEquals(0, skipped.getTotalSamples());
+		try{
+			service.submit(this.createRule(0), unused);
+			Assert.fail();
+		}catch(Error e){
+			//Closed
+		}
+	}
+
+	@Test
+	public void failureCancelsTheOthers() throws InterruptedException {
+		VerificationService service = new VerificationService();
+		List<StuckSource> sources = new ArrayList<StuckSource>();
+		List<Future<Conclusion>> futures = new ArrayList<Future<Conclusion>>();
+		try{
+			for(int i = 0; i < 4; i++){
+				StuckSource source = new StuckSource();
+				sources.add(source);
+				futures.add(service.submit(this.createRule(i), source));
+			}
+			final int[] count = {0};
+			service.submit(this.createRule(0), new SampleSource(){
+				public boolean nextSample(){
+					if(++count[0] > 10) throw new IllegalStateException("simulator crashed");
+					return false;
+				}
+			});
+			try{
+				service.awaitAll();
+				Assert.fail();
+			}catch(Error e){
+				Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+			}
+			for(Future<Conclusion> future : futures) Assert.assertTrue(future.isCancelled());
+		}finally{
+			service.close();
+		}
+		Assert.assertEquals(1, service.getRulesFailed());
+		Assert.assertEquals(10, service.getSamplesTaken());
+	}
+
+	@Test
+	public void interruptedCloseStillWaits() throws InterruptedException {
+		/*
+		 * close() called with the interrupt set waits for a task that takes a while to end once cancelled, and
+		 * returns with the interrupt still set
+		 */
+		VerificationService service = new VerificationService();
+		final CountDownLatch isWaiting = new CountDownLatch(1);
+		service.submit(this.createRule(0), new SampleSource(){
+			public boolean nextSample(){
+				isWaiting.countDown();
+				try{
+					new CountDownLatch(1).await();
+				}catch(InterruptedException e){
+					LockSupport.parkNanos(100000000);
+					throw new Error("Interrupted", e);
+				}
+				return true;
+			}
+		});
+		isWaiting.await();
+		Thread.currentThread().interrupt();
+		service.close();
+		Assert.assertTrue(Thread.interrupted());
+		Assert.assertEquals(0, service.getRulesRunning());
+	}
+}